@@ -2,8 +2,10 @@ package com.example.sprint1;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Sprint1Application {
 
     public static void main(String[] args) {
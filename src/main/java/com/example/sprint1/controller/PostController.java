@@ -1,6 +1,7 @@
 package com.example.sprint1.controller;
 
 import com.example.sprint1.dto.PostDto;
+import com.example.sprint1.dto.PostPromoDto;
 import com.example.sprint1.service.IPostService;
 import com.example.sprint1.service.IProductService;
 import jakarta.validation.Valid;
@@ -35,14 +36,25 @@ public class PostController {
      * US 0006 US 0009
      * Obtain a list of the publications made by the sellers that a user follows in the last two weeks
      * Sort by ascending and descending date
+     * The window can be changed with the days param, two weeks by default
+     * With the limit and cursor params the list is read by pages, and the response has the cursor of the next page
      * @param userId
      * @param order
+     * @param days
+     * @param limit
+     * @param cursor
      * @return
      */
     @GetMapping("/followed/{userId}/list")
     public ResponseEntity<?> followedList (@PathVariable Integer
-                                                   userId, @RequestParam(value = "order", required = false) String order){
-        return new ResponseEntity<>(postService.selectIfOrderFollowedList(userId,order), HttpStatus.OK);
+                                                   userId, @RequestParam(value = "order", required = false) String order,
+                                           @RequestParam(value = "days", required = false) Integer days,
+                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                           @RequestParam(value = "cursor", required = false) String cursor){
+        if(limit==null && cursor==null){
+            return new ResponseEntity<>(postService.selectIfOrderFollowedList(userId,order,days,null), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(postService.getFollowedPostPage(userId,order,days,limit,cursor), HttpStatus.OK);
     }
 
         /**
@@ -52,7 +64,7 @@ public class PostController {
          * @return
          */
         @PostMapping("/promo-post")
-        public ResponseEntity<?> postPromo (@RequestBody @Valid PostDto postDto){
+        public ResponseEntity<?> postPromo (@RequestBody @Valid PostPromoDto postDto){
             return new ResponseEntity<>(postService.postPromo(postDto), HttpStatus.CREATED);
         }
 
@@ -79,6 +91,59 @@ public class PostController {
             return new ResponseEntity<>(postService.getPromo(user_id), HttpStatus.OK);
         }
 
+    /**
+     * Obtain the amount of posts and promo posts and the average price and discount,
+     * optionally of a seller, a category and the last days
+     * @param userId
+     * @param category
+     * @param days
+     * @return
+     */
+    @GetMapping("/posts/stats")
+    public ResponseEntity<?> getPostStats(@RequestParam(value = "user_id", required = false) Integer userId,
+                                          @RequestParam(value = "category", required = false) Integer category,
+                                          @RequestParam(value = "days", required = false) Integer days){
+        return new ResponseEntity<>(postService.getPostStats(userId, category, days), HttpStatus.OK);
+    }
+
+    /**
+     * Search the posts by seller, dates (dd-MM-yyyy), category, price and promo, newest first.
+     * Every filter is optional and the posts must match all of them.
+     * @param userId
+     * @param dateFrom
+     * @param dateTo
+     * @param category
+     * @param priceMin
+     * @param priceMax
+     * @param hasPromo
+     * @param limit
+     * @return
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchPosts(@RequestParam(value = "user_id", required = false) Integer userId,
+                                         @RequestParam(value = "date_from", required = false) String dateFrom,
+                                         @RequestParam(value = "date_to", required = false) String dateTo,
+                                         @RequestParam(value = "category", required = false) Integer category,
+                                         @RequestParam(value = "price_min", required = false) Double priceMin,
+                                         @RequestParam(value = "price_max", required = false) Double priceMax,
+                                         @RequestParam(value = "has_promo", required = false) Boolean hasPromo,
+                                         @RequestParam(value = "limit", required = false) Integer limit){
+        return new ResponseEntity<>(postService.searchPosts(userId, dateFrom, dateTo, category,
+                priceMin, priceMax, hasPromo, limit), HttpStatus.OK);
+    }
+
+    /**
+     * Search the newest posts whose product has every word of the text, without case and accents
+     * @param text
+     * @param limit
+     * @return
+     */
+    @GetMapping("/search/text")
+    public ResponseEntity<?> searchPostsByText(@RequestParam(value = "q") String text,
+                                               @RequestParam(value = "limit", required = false) Integer limit){
+        return new ResponseEntity<>(postService.searchPostsByText(text, limit), HttpStatus.OK);
+    }
+
     /**
      * Obtain a list of all posts
      * @return
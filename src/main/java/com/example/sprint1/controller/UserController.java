@@ -50,25 +50,33 @@ public class UserController {
 
     /**
      * This method is used to get the list of followers that the user have and package it into a FolloweRListDto object
+     * The list can be read by pages with the limit and cursor params
      * @param userId - The id of the user
      * @return - A FollowerListDto object that contains the list of followers that the user have
      */
     @GetMapping("/{userId}/followers/list")
-    public ResponseEntity<?> getFollowerList(@PathVariable Integer userId, @RequestParam(required = false) String order){
-        return new ResponseEntity<>(userService.getFollowerList(userId, order), HttpStatus.OK);
+    public ResponseEntity<?> getFollowerList(@PathVariable Integer userId, @RequestParam(required = false) String order,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String cursor){
+        return new ResponseEntity<>(userService.getFollowerList(userId, order, limit, cursor), HttpStatus.OK);
     }
 
     /**
      * US 0004, US 0008
      * List of all the sellers that follow some user
      * Sort alphabetically, ascending and descending
+     * The list can be read by pages with the limit and cursor params
      * @param userId
      * @param order
+     * @param limit
+     * @param cursor
      * @return
      */
     @GetMapping("/{userId}/followed/list")
-    public ResponseEntity<?> getFollowedList(@PathVariable Integer userId, @RequestParam(value = "order", required = false) String order){
-        return new ResponseEntity<>(userService.getFollowedList(userId, order), HttpStatus.OK);
+    public ResponseEntity<?> getFollowedList(@PathVariable Integer userId, @RequestParam(value = "order", required = false) String order,
+                                             @RequestParam(value = "limit", required = false) Integer limit,
+                                             @RequestParam(value = "cursor", required = false) String cursor){
+        return new ResponseEntity<>(userService.getFollowedList(userId, order, limit, cursor), HttpStatus.OK);
     }
 
     /**
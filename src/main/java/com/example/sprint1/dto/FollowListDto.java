@@ -1,6 +1,7 @@
 package com.example.sprint1.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,4 +15,13 @@ public class FollowListDto {
     Integer user_id;
     String user_name;
     List<FollowerUsersDto> followed;
+    // Cursor of the next page, only present in paginated requests when there are more users
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String next_cursor;
+
+    public FollowListDto(Integer user_id, String user_name, List<FollowerUsersDto> followed) {
+        this.user_id = user_id;
+        this.user_name = user_name;
+        this.followed = followed;
+    }
 }
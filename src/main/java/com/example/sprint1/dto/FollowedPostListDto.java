@@ -1,2 +1,18 @@
-package com.example.sprint1.dto;public class FollowedPostListDto {
+package com.example.sprint1.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowedPostListDto {
+    Integer user_id;
+    List<PostForListDto> posts;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String next_cursor;
 }
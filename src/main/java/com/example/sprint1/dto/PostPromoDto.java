@@ -0,0 +1,20 @@
+package com.example.sprint1.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class PostPromoDto extends PostDto {
+
+    @NotNull(message = "El campo has_promo no puede estar vacío.")
+    private Boolean has_promo;
+
+    @NotNull(message = "El descuento no puede estar vacío.")
+    @DecimalMin(value = "0.0", inclusive = false, message = "El descuento debe ser mayor a cero")
+    @DecimalMax(value = "1.0", inclusive = false, message = "El descuento debe ser menor a uno")
+    private Double discount;
+}
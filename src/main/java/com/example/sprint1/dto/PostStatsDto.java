@@ -0,0 +1,21 @@
+package com.example.sprint1.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostStatsDto {
+    @JsonProperty("posts_count")
+    private Integer postsCount;
+    @JsonProperty("promo_posts_count")
+    private Integer promoPostsCount;
+    // Null when no post has a price or a discount
+    @JsonProperty("average_price")
+    private Double averagePrice;
+    @JsonProperty("average_discount")
+    private Double averageDiscount;
+}
@@ -1,15 +1,19 @@
 package com.example.sprint1.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class PromoPostDto {
-    public class PromoPost {
 
-        @JsonProperty("user_id")
-        private Integer userId;
-        @JsonProperty("user_name")
-        private String userName;
-        @JsonProperty("promo_products_count")
-        private Integer promoProductCount;
-    }
+    @JsonProperty("user_id")
+    private Integer userId;
+    @JsonProperty("user_name")
+    private String userName;
+    @JsonProperty("promo_products_count")
+    private Integer promoProductCount;
 }
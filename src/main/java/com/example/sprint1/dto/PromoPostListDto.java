@@ -0,0 +1,20 @@
+package com.example.sprint1.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromoPostListDto {
+
+    @JsonProperty("user_id")
+    private Integer userId;
+    @JsonProperty("user_name")
+    private String userName;
+    private List<PostPromoDto> posts;
+}
@@ -1,15 +1,15 @@
 package com.example.sprint1.dto;
 
+import com.example.sprint1.util.IntSet;
 import lombok.Data;
 
-import java.util.Set;
 @Data
 public class UserDto {
     private Integer id;
     private String user_name;
-    private Set<Integer> followers;
-    private Set<Integer> followed;
-    private Set<Integer> posts;
+    private IntSet followers;
+    private IntSet followed;
+    private IntSet posts;
     public Integer getCountFollowers(){
         return followers.size();
     }
@@ -1,20 +1,76 @@
 package com.example.sprint1.model;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Post {
 
+    // Format of the date in the JSON files and in the API
+    public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
     private Integer id;
     private Integer user_id;
-    private String date;
+    // Date of the post as days since 01-01-1970, parsed once when the date is set
+    @JsonIgnore
+    private int epochDay;
     private Integer category;
     private Double price;
     private Product product;
     private boolean has_promo;
     private Double discount;
+
+    public Post(Integer id, Integer user_id, String date, Integer category, Double price, Product product,
+                boolean has_promo, Double discount) {
+        this.id = id;
+        this.user_id = user_id;
+        setDate(date);
+        this.category = category;
+        this.price = price;
+        this.product = product;
+        this.has_promo = has_promo;
+        this.discount = discount;
+    }
+
+    /**
+     * Returns the date of the post in the dd-MM-yyyy format. The digits are written by hand, formatting
+     * with DATE_FORMATTER took most of the time of converting a post to its DTO.
+     * @return the formatted date
+     */
+    public String getDate() {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int year = date.getYear();
+        if (year < 1 || year > 9999) {
+            return date.format(DATE_FORMATTER);
+        }
+        byte[] text = new byte[10];
+        writeDigits(text, 0, date.getDayOfMonth(), 2);
+        text[2] = '-';
+        writeDigits(text, 3, date.getMonthValue(), 2);
+        text[5] = '-';
+        writeDigits(text, 6, year, 4);
+        return new String(text, StandardCharsets.US_ASCII);
+    }
+
+    private static void writeDigits(byte[] text, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            text[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Sets the date of the post from the dd-MM-yyyy format
+     * @param date the formatted date
+     * @throws java.time.format.DateTimeParseException if the date doesn't have the dd-MM-yyyy format
+     */
+    public void setDate(String date) {
+        this.epochDay = (int) LocalDate.parse(date, DATE_FORMATTER).toEpochDay();
+    }
 }
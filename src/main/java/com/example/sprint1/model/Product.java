@@ -1,19 +1,107 @@
 package com.example.sprint1.model;
 
-import lombok.AllArgsConstructor;
+import com.example.sprint1.util.CompressedText;
+import com.example.sprint1.util.StringDictionary;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
+// equals and hashCode compare the codes and the encoded notes, the encoding is deterministic so equal
+// values have equal codes and bytes, and nothing is decoded
 @Data
-@AllArgsConstructor
+@EqualsAndHashCode(doNotUseGetters = true)
 @NoArgsConstructor
 public class Product {
 
+    // Shared dictionaries of the fields with few distinct values, the products keep the codes
+    public static final StringDictionary TYPES = new StringDictionary();
+    public static final StringDictionary BRANDS = new StringDictionary();
+    public static final StringDictionary COLORS = new StringDictionary();
+
     private Integer id;
     private String product_name;
-    private String type;
-    private String brand;
-    private String color;
-    private String notes;
+    // Codes in TYPES, BRANDS and COLORS, decoded by the getters (when the product is serialized)
+    private int type = StringDictionary.NULL;
+    private int brand = StringDictionary.NULL;
+    private int color = StringDictionary.NULL;
+    // Free text, see CompressedText
+    private byte[] notes;
+
+    public Product(Integer id, String product_name, String type, String brand, String color, String notes) {
+        this.id = id;
+        this.product_name = product_name;
+        setType(type);
+        setBrand(brand);
+        setColor(color);
+        setNotes(notes);
+    }
+
+    /**
+     * Creates a product from fields already encoded, as the post stores keep them, without encoding them again
+     * @param type code in TYPES
+     * @param brand code in BRANDS
+     * @param color code in COLORS
+     * @param notes notes encoded by CompressedText, kept without a copy
+     * @return the product
+     */
+    public static Product ofEncoded(Integer id, String product_name, int type, int brand, int color, byte[] notes) {
+        Product product = new Product();
+        product.id = id;
+        product.product_name = product_name;
+        product.type = type;
+        product.brand = brand;
+        product.color = color;
+        product.notes = notes;
+        return product;
+    }
+
+    // Encoded fields, read by the post stores to copy the product without decoding it (not getters, so they aren't serialized)
+    public int typeCode() {
+        return type;
+    }
+
+    public int brandCode() {
+        return brand;
+    }
+
+    public int colorCode() {
+        return color;
+    }
+
+    public byte[] encodedNotes() {
+        return notes;
+    }
+
+    public String getType() {
+        return TYPES.decode(type);
+    }
+
+    public void setType(String type) {
+        this.type = TYPES.encode(type);
+    }
+
+    public String getBrand() {
+        return BRANDS.decode(brand);
+    }
+
+    public void setBrand(String brand) {
+        this.brand = BRANDS.encode(brand);
+    }
+
+    public String getColor() {
+        return COLORS.decode(color);
+    }
+
+    public void setColor(String color) {
+        this.color = COLORS.encode(color);
+    }
+
+    public String getNotes() {
+        return CompressedText.decode(notes);
+    }
+
+    public void setNotes(String notes) {
+        this.notes = CompressedText.encode(notes);
+    }
 
 }
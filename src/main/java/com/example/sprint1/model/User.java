@@ -1,24 +1,37 @@
 package com.example.sprint1.model;
 
-import lombok.AllArgsConstructor;
+import com.example.sprint1.util.IntSet;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Comparator;
 import java.util.Set;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class User {
 
+    // Order of the name_asc lists: by name and then by id, so users with the same name keep a total order
+    public static final Comparator<User> BY_NAME = Comparator.comparing(User::getUser_name,
+            Comparator.nullsFirst(Comparator.naturalOrder())).thenComparing(User::getId);
+
     private Integer id;
     private String user_name;
-    private Set<Integer> followers;
-    private Set<Integer> followed;
-    private Set<Integer> posts;
+    // Ids are kept in primitive int sets, see IntSet
+    private IntSet followers = new IntSet();
+    private IntSet followed = new IntSet();
+    private IntSet posts = new IntSet();
+
+    public User(Integer id, String user_name, Set<Integer> followers, Set<Integer> followed, Set<Integer> posts) {
+        this.id = id;
+        this.user_name = user_name;
+        this.followers = IntSet.copyOf(followers);
+        this.followed = IntSet.copyOf(followed);
+        this.posts = IntSet.copyOf(posts);
+    }
 
     public void addFollowed(Integer id){
-        followed.add(id);
+        followed.add(id.intValue());
     }
 
     public Integer getCountFollowers(){
@@ -31,14 +44,14 @@ public class User {
 
     // Add Isay params for US 0007
     public void addFollower(Integer id){
-        followers.add(id);
+        followers.add(id.intValue());
     }
 
     public void deleteFollower(Integer id){
-        followers.remove(id);
+        followers.remove(id.intValue());
     }
 
     public void deleteFollowed(Integer id){
-        followed.remove(id);
+        followed.remove(id.intValue());
     }
 }
@@ -0,0 +1,802 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.exception.BadRequestException;
+import com.example.sprint1.exception.NotFoundException;
+import com.example.sprint1.model.User;
+import com.example.sprint1.util.IntSet;
+import com.example.sprint1.util.JsonStreamLoader;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * User repository that keeps the follow graph in CSR form (see FollowGraph) instead of a pair of
+ * hash sets per user. Follows and unfollows are appended to a small delta log, and once the log
+ * reaches the compaction threshold a background task merges it into a new CSR generation.
+ * Reads see the current generation with the delta log applied on top.
+ * Enabled with socialmeli.users.graph=csr.
+ */
+@Repository
+@ConditionalOnProperty(name = "socialmeli.users.graph", havingValue = "csr")
+public class CsrUserRepositoryImpl implements IUserRepository {
+
+    // A follow (add) or unfollow of the delta log
+    private record Mutation(int from, int to, boolean add) {
+    }
+
+    // Users without their followers and followed, which live in the graph, in the order of nodeIds
+    private User[] users;
+    private FollowGraph graph;
+    // Follows and unfollows not compacted into graph yet, oldest first
+    private final List<Mutation> delta = new ArrayList<>();
+    // Last mutation of each edge in the delta log, so checking an edge doesn't scan the log
+    private final Map<Long, Boolean> deltaEdges = new HashMap<>();
+    // Amount of followers and followed of each node, kept up to date with the delta log
+    private int[] followerCounts;
+    private int[] followedCounts;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Mutations in the delta log that start a compaction
+    @Value("${socialmeli.users.graph.compaction-threshold:1024}")
+    private int compactionThreshold = 1024;
+
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "follow-graph-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Log of the follows and unfollows made after loading the JSON file, null when it is disabled
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
+
+    // Offset of the write-ahead log the loaded users already include, the replay starts there
+    private long replayFrom;
+
+    public CsrUserRepositoryImpl() throws IOException {
+        this(Optional.empty());
+    }
+
+    /**
+     * Loads the users from the last snapshot when there is one, or else from the JSON file
+     * @param snapshotStore store of the snapshots, empty when they are disabled
+     * @throws IOException If the snapshot or the JSON file can't be read.
+     */
+    @Autowired
+    public CsrUserRepositoryImpl(Optional<SnapshotStore> snapshotStore) throws IOException {
+        // The followers are the same edges, the graph builds them
+        SnapshotStore.UserSnapshot snapshot = snapshotStore.isPresent() ? snapshotStore.get().readUsers(false) : null;
+        loadDatabase(snapshot);
+        if (snapshot != null) {
+            replayFrom = snapshot.logOffset();
+        }
+    }
+
+    /**
+     * Applies the follows and unfollows of the write-ahead log, the ones made after the JSON file or the
+     * snapshot were loaded in previous runs. The changes a snapshot already has are skipped as invalid.
+     * @throws IOException If the log can't be read.
+     */
+    @PostConstruct
+    public void replayLog() throws IOException {
+        if (writeAheadLog == null) {
+            return;
+        }
+        writeAheadLog.replay(replayFrom, record -> {
+            if (record.type() != WriteAheadLog.RecordType.POST) {
+                mutate(record.from(), record.to(), record.type() == WriteAheadLog.RecordType.FOLLOW, true);
+            }
+        });
+        // The replayed mutations are compacted once in the background, instead of every compactionThreshold mutations
+        if (delta.size() >= compactionThreshold && compacting.compareAndSet(false, true)) {
+            compactInBackground();
+        }
+    }
+
+    /**
+     * Loads the users and builds the first generation of the graph from their followed users
+     * @param snapshot snapshot of the users, null to load the JSON file
+     * @throws IOException
+     */
+    private void loadDatabase(SnapshotStore.UserSnapshot snapshot) throws IOException {
+        List<User> loaded = new ArrayList<>();
+        // Edges as parallel arrays of follower and followed, the users drop their sets as soon as they are parsed
+        int[][] edges = {new int[1024], new int[1024]};
+        int[] edgeCounter = {0};
+        Consumer<User> load = user -> {
+            for (int followed : user.getFollowed().toIntArray()) {
+                int edge = edgeCounter[0]++;
+                if (edge == edges[0].length) {
+                    edges[0] = Arrays.copyOf(edges[0], edge * 2);
+                    edges[1] = Arrays.copyOf(edges[1], edge * 2);
+                }
+                edges[0][edge] = user.getId();
+                edges[1][edge] = followed;
+            }
+            // The edges are kept in the graph only
+            user.setFollowers(null);
+            user.setFollowed(null);
+            loaded.add(user);
+        };
+        if (snapshot != null) {
+            snapshot.users().forEach(load);
+        } else {
+            JsonStreamLoader.load("users.json", User.class, load);
+        }
+        loaded.sort(Comparator.comparing(User::getId));
+
+        int[] nodeIds = new int[loaded.size()];
+        for (int i = 0; i < nodeIds.length; i++) {
+            nodeIds[i] = loaded.get(i).getId();
+        }
+        // Users never change their name, so the name order of the nodes is computed once
+        List<User> byName = new ArrayList<>(loaded);
+        byName.sort(User.BY_NAME);
+        int[] nameRanks = new int[nodeIds.length];
+        for (int rank = 0; rank < nameRanks.length; rank++) {
+            nameRanks[Arrays.binarySearch(nodeIds, byName.get(rank).getId())] = rank;
+        }
+        int edgeCount = edgeCounter[0];
+        int[] from = edges[0];
+        int[] to = edges[1];
+
+        graph = FollowGraph.build(nodeIds, nameRanks, from, to, edgeCount);
+        users = loaded.toArray(new User[0]);
+        followerCounts = new int[nodeIds.length];
+        followedCounts = new int[nodeIds.length];
+        for (int i = 0; i < nodeIds.length; i++) {
+            followerCounts[i] = graph.followersOf(nodeIds[i]).size();
+            followedCounts[i] = graph.followedOf(nodeIds[i]).size();
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        lock.readLock().lock();
+        try {
+            List<User> all = new ArrayList<>(users.length);
+            for (User user : users) {
+                all.add(view(user));
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a user with its followers and followed read from the graph.
+     * The user is a copy, changes to its followers, followed and posts are not saved, use updateUserFollower
+     * and addPost.
+     * @param id Id of the user to search
+     * @return the user or null if it doesn't exist
+     */
+    @Override
+    public User findUserById(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int node = graph.nodeOf(id);
+            return node < 0 ? null : view(users[node]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> getUserById(int id) {
+        return Optional.ofNullable(findUserById(id));
+    }
+
+    /**
+     * Appends a follow to the delta log, and updates the given users too
+     * @param user User who will follow
+     * @param userToFollow User who will be followed
+     * @throws BadRequestException if user already follows userToFollow
+     */
+    @Override
+    public void updateUserFollower(User user, User userToFollow) {
+        mutate(user.getId(), userToFollow.getId(), true, false);
+        user.addFollowed(userToFollow.getId());
+        userToFollow.addFollower(user.getId());
+    }
+
+    /**
+     * Appends an unfollow to the delta log, and updates the given users too
+     * @param user
+     * @param userToFollow
+     * @throws BadRequestException if user doesn't follow userToFollow
+     */
+    @Override
+    public void updateUserFollowerDelete(User user, User userToFollow) {
+        mutate(user.getId(), userToFollow.getId(), false, false);
+        user.deleteFollowed(userToFollow.getId());
+        userToFollow.deleteFollower(user.getId());
+    }
+
+    // Appends a mutation, once its record is durable when the write-ahead log is enabled (see WriteAheadLog).
+    // Mutations read from the write-ahead log are not written to it again, and the invalid ones are skipped.
+    private void mutate(int from, int to, boolean add, boolean replaying) {
+        if (replaying || writeAheadLog == null) {
+            apply(from, to, add, replaying);
+            return;
+        }
+        Runnable check = () -> {
+            lock.readLock().lock();
+            try {
+                isValid(from, to, add, false);
+            } finally {
+                lock.readLock().unlock();
+            }
+        };
+        if (add) {
+            writeAheadLog.logFollow(from, to, check, () -> apply(from, to, true, false));
+        } else {
+            writeAheadLog.logUnfollow(from, to, check, () -> apply(from, to, false, false));
+        }
+    }
+
+    // Appends a mutation, checking under the same lock that it changes the graph, and starts a compaction when the log is full
+    private void apply(int from, int to, boolean add, boolean replaying) {
+        boolean startCompaction;
+        lock.writeLock().lock();
+        try {
+            if (!isValid(from, to, add, replaying)) {
+                return;
+            }
+            delta.add(new Mutation(from, to, add));
+            deltaEdges.put(edgeKey(from, to), add);
+            followedCounts[graph.nodeOf(from)] += add ? 1 : -1;
+            followerCounts[graph.nodeOf(to)] += add ? 1 : -1;
+            startCompaction = !replaying && delta.size() >= compactionThreshold && compacting.compareAndSet(false, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (startCompaction) {
+            compactInBackground();
+        }
+    }
+
+    // Runs a compaction in the compactor thread, compacting must be set
+    private void compactInBackground() {
+        compactor.execute(() -> {
+            try {
+                compact();
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    // Checks that both users exist and the mutation changes the edge, throws unless replaying
+    private boolean isValid(int from, int to, boolean add, boolean replaying) {
+        if (graph.nodeOf(from) < 0 || graph.nodeOf(to) < 0) {
+            if (replaying) {
+                return false;
+            }
+            throw new NotFoundException("User not found");
+        }
+        if (hasEdge(from, to) == add) {
+            if (replaying) {
+                return false;
+            }
+            throw new BadRequestException(add ? "User already followed" : "You are not following this user: " + to);
+        }
+        return true;
+    }
+
+    /**
+     * Merges the delta log into a new generation of the graph.
+     * The delta log is reduced to the last mutation of each edge and sorted by follower and followed
+     * user once, so it is merged with the sorted followed slices in a single pass over the graph.
+     * The new generation is built without blocking readers or writers, only the swap takes the lock,
+     * and mutations appended meanwhile stay in the log for the next compaction.
+     */
+    void compact() {
+        FollowGraph base;
+        List<Mutation> applied;
+        lock.readLock().lock();
+        try {
+            base = graph;
+            applied = List.copyOf(delta);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (applied.isEmpty()) {
+            return;
+        }
+
+        // The last mutation of an edge decides if it is in the next generation
+        Map<Long, Mutation> lastByEdge = new HashMap<>();
+        for (Mutation mutation : applied) {
+            lastByEdge.put(edgeKey(mutation.from(), mutation.to()), mutation);
+        }
+        Mutation[] changes = lastByEdge.values().toArray(new Mutation[0]);
+        Arrays.sort(changes, Comparator.comparingInt(Mutation::from).thenComparingInt(Mutation::to));
+
+        int[] nodeIds = base.nodeIds();
+        int capacity = base.edgeCount() + changes.length;
+        int[] from = new int[capacity];
+        int[] to = new int[capacity];
+        int edges = 0;
+        int nextChange = 0;
+        for (int id : nodeIds) {
+            FollowGraph.Neighbors followed = base.followedOf(id);
+            int i = 0;
+            while (i < followed.size() || (nextChange < changes.length && changes[nextChange].from() == id)) {
+                Mutation change = nextChange < changes.length && changes[nextChange].from() == id ? changes[nextChange] : null;
+                int target;
+                if (change == null || (i < followed.size() && followed.get(i) < change.to())) {
+                    target = followed.get(i++);
+                } else {
+                    // The change replaces the edge of the generation, if it has it
+                    if (i < followed.size() && followed.get(i) == change.to()) {
+                        i++;
+                    }
+                    nextChange++;
+                    if (!change.add()) {
+                        continue;
+                    }
+                    target = change.to();
+                }
+                from[edges] = id;
+                to[edges] = target;
+                edges++;
+            }
+        }
+        FollowGraph next = FollowGraph.build(nodeIds, base.nameRanks(), from, to, edges);
+
+        lock.writeLock().lock();
+        try {
+            graph = next;
+            delta.subList(0, applied.size()).clear();
+            deltaEdges.clear();
+            for (Mutation mutation : delta) {
+                deltaEdges.put(edgeKey(mutation.from(), mutation.to()), mutation.add());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a new id in the idPost List
+     * @param id - Integer id used to search an User.
+     * @param postId - Integer id that is going to be added to the list.
+     * @throws NotFoundException - If user is not found.
+     */
+    @Override
+    public void addPost(Integer id, Integer postId) {
+        // The posts set is not thread safe, the views copy it under the read lock
+        lock.writeLock().lock();
+        try {
+            int node = graph.nodeOf(id);
+            if (node < 0) {
+                throw new NotFoundException("User not found");
+            }
+            users[node].getPosts().add(postId.intValue());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> getFollowersById(Integer id) {
+        return resolve(neighbors(id, false), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> getFollowedById(Integer id) {
+        return resolve(neighbors(id, true), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> getFollowersPage(Integer id, Integer afterId, int limit) {
+        FollowGraph.Neighbors ids = neighbors(id, false);
+        return resolve(ids, startAfter(ids, afterId), limit);
+    }
+
+    @Override
+    public List<User> getFollowedPage(Integer id, Integer afterId, int limit) {
+        FollowGraph.Neighbors ids = neighbors(id, true);
+        return resolve(ids, startAfter(ids, afterId), limit);
+    }
+
+    /**
+     * Returns a page of the followers of a user sorted by name, read in order from the name sorted slices of the graph
+     * @param id id of the user
+     * @param ascending true for name_asc, false for name_desc
+     * @param afterId id of the last follower of the previous page, null for the first page
+     * @param limit maximum amount of followers
+     * @return the followers of the page
+     * @throws NotFoundException if the user doesn't exist
+     * @throws BadRequestException if the user of afterId doesn't exist
+     */
+    @Override
+    public List<User> getFollowersByName(Integer id, boolean ascending, Integer afterId, int limit) {
+        return pageByName(id, false, ascending, afterId, limit);
+    }
+
+    /**
+     * Returns a page of the users followed by a user sorted by name, see getFollowersByName
+     */
+    @Override
+    public List<User> getFollowedByName(Integer id, boolean ascending, Integer afterId, int limit) {
+        return pageByName(id, true, ascending, afterId, limit);
+    }
+
+    private List<User> pageByName(Integer id, boolean forward, boolean ascending, Integer afterId, int limit) {
+        FollowGraph.Neighbors ids;
+        int from;
+        lock.readLock().lock();
+        try {
+            if (graph.nodeOf(id) < 0) {
+                throw new NotFoundException("No se encontró el usuario con el ID proporcionado");
+            }
+            int afterRank = afterId == null ? -1 : graph.nameRank(afterId);
+            if (afterId != null && afterRank < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            ids = neighborsByName(graph, delta, id, forward);
+            if (ascending) {
+                from = afterId == null ? 0 : countBelow(graph, ids, afterRank + 1);
+            } else {
+                from = (afterId == null ? ids.size() : countBelow(graph, ids, afterRank)) - 1;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<User> page = new ArrayList<>(Math.min(limit, ids.size()));
+        if (ascending) {
+            for (int i = from; i < ids.size() && page.size() < limit; i++) {
+                addResolved(page, ids.get(i));
+            }
+        } else {
+            for (int i = from; i >= 0 && page.size() < limit; i--) {
+                addResolved(page, ids.get(i));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public int countFollowers(Integer id) {
+        lock.readLock().lock();
+        try {
+            int node = graph.nodeOf(id);
+            return node < 0 ? 0 : followerCounts[node];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countFollowed(Integer id) {
+        lock.readLock().lock();
+        try {
+            int node = graph.nodeOf(id);
+            return node < 0 ? 0 : followedCounts[node];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isFollowing(Integer id, Integer followedId) {
+        return containsEdge(id, followedId);
+    }
+
+    // Sorted ids of the followed users (forward) or followers of a user, with the delta log applied
+    private FollowGraph.Neighbors neighbors(Integer id, boolean forward) {
+        lock.readLock().lock();
+        try {
+            if (graph.nodeOf(id) < 0) {
+                throw new NotFoundException("No se encontró el usuario con el ID proporcionado");
+            }
+            return forward ? followedOf(graph, delta, id) : followersOf(graph, delta, id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static FollowGraph.Neighbors followedOf(FollowGraph graph, List<Mutation> delta, int id) {
+        FollowGraph.Neighbors base = graph.followedOf(id);
+        IntSet changed = null;
+        for (Mutation mutation : delta) {
+            if (mutation.from() == id) {
+                changed = apply(changed, base, mutation.to(), mutation.add());
+            }
+        }
+        return changed == null ? base : FollowGraph.Neighbors.of(sorted(changed));
+    }
+
+    private static FollowGraph.Neighbors followersOf(FollowGraph graph, List<Mutation> delta, int id) {
+        FollowGraph.Neighbors base = graph.followersOf(id);
+        IntSet changed = null;
+        for (Mutation mutation : delta) {
+            if (mutation.to() == id) {
+                changed = apply(changed, base, mutation.from(), mutation.add());
+            }
+        }
+        return changed == null ? base : FollowGraph.Neighbors.of(sorted(changed));
+    }
+
+    /**
+     * Ids of the followed users (forward) or followers of a user sorted by name, with the delta log applied.
+     * The neighbors changed by the delta log are dropped from the name sorted slice and the ones still
+     * present are merged back in name order, so only the changed neighbors are sorted.
+     */
+    private static FollowGraph.Neighbors neighborsByName(FollowGraph graph, List<Mutation> delta, int id,
+                                                         boolean forward) {
+        FollowGraph.Neighbors base = forward ? graph.followedByName(id) : graph.followersByName(id);
+        IntSet changed = null;
+        for (Mutation mutation : delta) {
+            if ((forward ? mutation.from() : mutation.to()) == id) {
+                if (changed == null) {
+                    changed = new IntSet();
+                }
+                changed.add(forward ? mutation.to() : mutation.from());
+            }
+        }
+        if (changed == null) {
+            return base;
+        }
+        // Changed neighbors that are still present, sorted by name rank
+        FollowGraph.Neighbors current = forward ? followedOf(graph, delta, id) : followersOf(graph, delta, id);
+        int[] changedIds = changed.toIntArray();
+        long[] present = new long[changedIds.length];
+        int presentCount = 0;
+        for (int neighbor : changedIds) {
+            if (current.indexOf(neighbor) >= 0) {
+                present[presentCount++] = ((long) graph.nameRank(neighbor) << 32) | (neighbor & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(present, 0, presentCount);
+
+        int[] merged = new int[current.size()];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < base.size(); i++) {
+            int neighbor = base.get(i);
+            if (changed.contains(neighbor)) {
+                continue;
+            }
+            int rank = graph.nameRank(neighbor);
+            while (next < presentCount && (int) (present[next] >>> 32) < rank) {
+                merged[size++] = (int) present[next++];
+            }
+            merged[size++] = neighbor;
+        }
+        while (next < presentCount) {
+            merged[size++] = (int) present[next++];
+        }
+        return FollowGraph.Neighbors.of(merged);
+    }
+
+    // Amount of neighbors with a name rank lower than the given one, the neighbors are sorted by name rank
+    private static int countBelow(FollowGraph graph, FollowGraph.Neighbors ids, int rank) {
+        int low = 0;
+        int high = ids.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (graph.nameRank(ids.get(mid)) < rank) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Applies a mutation to the neighbors, copying them from the generation on the first one
+    private static IntSet apply(IntSet neighbors, FollowGraph.Neighbors base, int id, boolean add) {
+        if (neighbors == null) {
+            neighbors = new IntSet(base.size() + 1);
+            for (int i = 0; i < base.size(); i++) {
+                neighbors.add(base.get(i));
+            }
+        }
+        if (add) {
+            neighbors.add(id);
+        } else {
+            neighbors.remove(id);
+        }
+        return neighbors;
+    }
+
+    private static int[] sorted(IntSet ids) {
+        int[] values = ids.toIntArray();
+        Arrays.sort(values);
+        return values;
+    }
+
+    // Checks an edge in the delta log and then in the generation
+    private boolean hasEdge(int from, int to) {
+        Boolean add = deltaEdges.get(edgeKey(from, to));
+        return add != null ? add : graph.hasEdge(from, to);
+    }
+
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private static int startAfter(FollowGraph.Neighbors ids, Integer afterId) {
+        if (afterId == null) {
+            return 0;
+        }
+        int index = ids.indexOf(afterId);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private void addResolved(List<User> users, int id) {
+        User user = findUserById(id);
+        if (user != null) {
+            users.add(user);
+        }
+    }
+
+    // Users of the given ids from the position from on
+    private List<User> resolve(FollowGraph.Neighbors ids, int from, int limit) {
+        int to = (int) Math.min(ids.size(), (long) from + limit);
+        List<User> resolved = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            User user = findUserById(ids.get(i));
+            if (user != null) {
+                resolved.add(user);
+            }
+        }
+        return resolved;
+    }
+
+    // Copy of a user whose followers and followed are read from the graph when they are used.
+    // Called under the read lock, the posts are copied because addPost changes them under the write lock
+    private User view(User user) {
+        User view = new User();
+        view.setId(user.getId());
+        view.setUser_name(user.getUser_name());
+        view.setFollowers(new NeighborSet(user.getId(), false));
+        view.setFollowed(new NeighborSet(user.getId(), true));
+        view.setPosts(IntSet.copyOf(user.getPosts()));
+        return view;
+    }
+
+    // Checks an edge with the delta log applied
+    private boolean containsEdge(int from, int to) {
+        lock.readLock().lock();
+        try {
+            return hasEdge(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Followers or followed users of a view, read from the current generation and the delta log on each
+     * call, so creating a view copies no edges: size is the counter of the user, contains checks one
+     * edge, and only the iteration reads the neighbors.
+     * A change that isn't in the graph already turns the set into a plain copy of the neighbors, so
+     * changes to a view are not saved, as the javadoc of findUserById says.
+     */
+    private final class NeighborSet extends IntSet {
+
+        private final int id;
+        private final boolean forward;
+        private boolean copied;
+
+        NeighborSet(int id, boolean forward) {
+            this.id = id;
+            this.forward = forward;
+        }
+
+        @Override
+        public boolean add(int value) {
+            if (!copied) {
+                if (contains(value)) {
+                    return false;
+                }
+                copy();
+            }
+            return super.add(value);
+        }
+
+        @Override
+        public boolean remove(int value) {
+            if (!copied) {
+                if (!contains(value)) {
+                    return false;
+                }
+                copy();
+            }
+            return super.remove(value);
+        }
+
+        @Override
+        public boolean contains(int value) {
+            if (copied) {
+                return super.contains(value);
+            }
+            return forward ? containsEdge(id, value) : containsEdge(value, id);
+        }
+
+        @Override
+        public int size() {
+            if (copied) {
+                return super.size();
+            }
+            return forward ? countFollowed(id) : countFollowers(id);
+        }
+
+        @Override
+        public void clear() {
+            copied = true;
+            super.clear();
+        }
+
+        @Override
+        public int[] toIntArray() {
+            return copied ? super.toIntArray() : neighbors(id, forward).toArray();
+        }
+
+        @Override
+        public PrimitiveIterator.OfInt iterator() {
+            if (copied) {
+                return super.iterator();
+            }
+            FollowGraph.Neighbors ids = neighbors(id, forward);
+            return new PrimitiveIterator.OfInt() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < ids.size();
+                }
+
+                @Override
+                public int nextInt() {
+                    if (next == ids.size()) {
+                        throw new NoSuchElementException();
+                    }
+                    return ids.get(next++);
+                }
+
+                @Override
+                public void remove() {
+                    if (next == 0) {
+                        throw new IllegalStateException();
+                    }
+                    NeighborSet.this.remove(ids.get(next - 1));
+                }
+            };
+        }
+
+        private void copy() {
+            FollowGraph.Neighbors ids = neighbors(id, forward);
+            for (int i = 0; i < ids.size(); i++) {
+                super.add(ids.get(i));
+            }
+            copied = true;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.sprint1.repository;
+
+import java.util.Arrays;
+
+/**
+ * Immutable generation of the follow graph in compressed sparse row (CSR) form.
+ * The users are numbered by the position of their id in a sorted array, and the neighbors of every
+ * user are a slice of one int array, sorted by id: targets[offsets[i]] .. targets[offsets[i + 1]].
+ * Both directions are kept, followed (forward) and followers (reverse), so any neighbor scan is a
+ * sequential read over a contiguous slice, with 4 bytes per edge and per direction.
+ * Each direction is also kept with its slices sorted by the name of the users (by their name rank),
+ * so the name_asc and name_desc lists are read in order instead of sorted per request, at another
+ * 4 bytes per edge and per direction.
+ * Neighbors are returned as views over the slices, the arrays are never copied on a read.
+ */
+public final class FollowGraph {
+
+    /**
+     * Read only view of the neighbors of a user: ids[from] .. ids[to - 1]
+     */
+    public record Neighbors(int[] ids, int from, int to) {
+
+        public static final Neighbors EMPTY = new Neighbors(new int[0], 0, 0);
+
+        // View over a whole array
+        public static Neighbors of(int[] ids) {
+            return new Neighbors(ids, 0, ids.length);
+        }
+
+        public int size() {
+            return to - from;
+        }
+
+        public int get(int index) {
+            return ids[from + index];
+        }
+
+        /**
+         * Searches an id in a view sorted by id
+         * @param id id to search
+         * @return the index of the id, or (-(insertion point) - 1) as Arrays.binarySearch
+         */
+        public int indexOf(int id) {
+            int index = Arrays.binarySearch(ids, from, to, id);
+            return index >= 0 ? index - from : index + from;
+        }
+
+        public int[] toArray() {
+            return Arrays.copyOfRange(ids, from, to);
+        }
+    }
+
+    // Ids of the users, sorted, the node of a user is the position of its id
+    private final int[] nodeIds;
+    private final int[] followedOffsets;
+    private final int[] followedTargets;
+    private final int[] followerOffsets;
+    private final int[] followerTargets;
+    // Position of each node in the order of User.BY_NAME, shared by the generations
+    private final int[] nameRanks;
+    // Same slices as followedTargets and followerTargets, sorted by name rank
+    private final int[] followedByName;
+    private final int[] followersByName;
+
+    private FollowGraph(int[] nodeIds, int[] nameRanks, int[] followedOffsets, int[] followedTargets,
+                        int[] followerOffsets, int[] followerTargets) {
+        this.nodeIds = nodeIds;
+        this.nameRanks = nameRanks;
+        this.followedOffsets = followedOffsets;
+        this.followedTargets = followedTargets;
+        this.followerOffsets = followerOffsets;
+        this.followerTargets = followerTargets;
+        this.followedByName = sortedByName(followedOffsets, followedTargets);
+        this.followersByName = sortedByName(followerOffsets, followerTargets);
+    }
+
+    /**
+     * Builds a generation from a list of edges. Edges of unknown users are dropped.
+     * @param nodeIds ids of the users, sorted and without duplicates
+     * @param nameRanks position of each node (of each id of nodeIds) when the users are sorted by name
+     * @param from follower of each edge
+     * @param to followed user of each edge
+     * @param edgeCount amount of edges in from and to
+     * @return the new generation
+     */
+    public static FollowGraph build(int[] nodeIds, int[] nameRanks, int[] from, int[] to, int edgeCount) {
+        int nodes = nodeIds.length;
+        int[] fromNodes = new int[edgeCount];
+        int[] toNodes = new int[edgeCount];
+        int edges = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            int fromNode = Arrays.binarySearch(nodeIds, from[i]);
+            int toNode = Arrays.binarySearch(nodeIds, to[i]);
+            if (fromNode >= 0 && toNode >= 0) {
+                fromNodes[edges] = fromNode;
+                toNodes[edges] = toNode;
+                edges++;
+            }
+        }
+
+        // Forward adjacency: counting sort of the edges by follower, then each slice sorted by id
+        int[] followedOffsets = offsets(fromNodes, edges, nodes);
+        int[] followedTargets = new int[edges];
+        int[] next = Arrays.copyOf(followedOffsets, nodes);
+        for (int i = 0; i < edges; i++) {
+            followedTargets[next[fromNodes[i]]++] = nodeIds[toNodes[i]];
+        }
+        for (int node = 0; node < nodes; node++) {
+            Arrays.sort(followedTargets, followedOffsets[node], followedOffsets[node + 1]);
+        }
+
+        // Reverse adjacency from the forward one: followers are visited by ascending id, so slices come out sorted
+        int[] followerOffsets = offsets(toNodes, edges, nodes);
+        int[] followerTargets = new int[edges];
+        next = Arrays.copyOf(followerOffsets, nodes);
+        for (int node = 0; node < nodes; node++) {
+            for (int i = followedOffsets[node]; i < followedOffsets[node + 1]; i++) {
+                int target = Arrays.binarySearch(nodeIds, followedTargets[i]);
+                followerTargets[next[target]++] = nodeIds[node];
+            }
+        }
+        return new FollowGraph(nodeIds, nameRanks, followedOffsets, followedTargets, followerOffsets, followerTargets);
+    }
+
+    // Copy of the targets with each slice sorted by the name rank of the targets
+    private int[] sortedByName(int[] offsets, int[] targets) {
+        // Rank in the high bits, so sorting the keys sorts by rank, and the id in the low bits
+        long[] keys = new long[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            keys[i] = ((long) nameRanks[nodeOf(targets[i])] << 32) | (targets[i] & 0xFFFFFFFFL);
+        }
+        int[] sorted = new int[targets.length];
+        for (int node = 0; node < nodeIds.length; node++) {
+            Arrays.sort(keys, offsets[node], offsets[node + 1]);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    // Start of the slice of every node for the given edge endpoints, plus the total at the end
+    private static int[] offsets(int[] endpoints, int edges, int nodes) {
+        int[] offsets = new int[nodes + 1];
+        for (int i = 0; i < edges; i++) {
+            offsets[endpoints[i] + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        return offsets;
+    }
+
+    /**
+     * Returns the node of a user
+     * @param id id of the user
+     * @return the node, or a negative number if the user is not in the graph
+     */
+    public int nodeOf(int id) {
+        return Arrays.binarySearch(nodeIds, id);
+    }
+
+    public int[] nodeIds() {
+        return nodeIds.clone();
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int edgeCount() {
+        return followedTargets.length;
+    }
+
+    // Name ranks of the nodes, the next generations are built with the same array
+    int[] nameRanks() {
+        return nameRanks;
+    }
+
+    /**
+     * Returns the position of a user when the users are sorted by name
+     * @param id id of the user
+     * @return the rank, or -1 if the user is not in the graph
+     */
+    public int nameRank(int id) {
+        int node = nodeOf(id);
+        return node < 0 ? -1 : nameRanks[node];
+    }
+
+    /**
+     * Returns the ids of the users followed by a user, sorted
+     * @param id id of the user
+     * @return the ids, empty if the user is not in the graph
+     */
+    public Neighbors followedOf(int id) {
+        return slice(followedOffsets, followedTargets, nodeOf(id));
+    }
+
+    /**
+     * Returns the ids of the followers of a user, sorted
+     * @param id id of the user
+     * @return the ids, empty if the user is not in the graph
+     */
+    public Neighbors followersOf(int id) {
+        return slice(followerOffsets, followerTargets, nodeOf(id));
+    }
+
+    /**
+     * Returns the ids of the users followed by a user, sorted by name (see User.BY_NAME)
+     * @param id id of the user
+     * @return the ids, empty if the user is not in the graph
+     */
+    public Neighbors followedByName(int id) {
+        return slice(followedOffsets, followedByName, nodeOf(id));
+    }
+
+    /**
+     * Returns the ids of the followers of a user, sorted by name (see User.BY_NAME)
+     * @param id id of the user
+     * @return the ids, empty if the user is not in the graph
+     */
+    public Neighbors followersByName(int id) {
+        return slice(followerOffsets, followersByName, nodeOf(id));
+    }
+
+    /**
+     * Checks if a user follows another one
+     * @param from id of the follower
+     * @param to id of the followed user
+     * @return true if the edge is in this generation
+     */
+    public boolean hasEdge(int from, int to) {
+        int node = nodeOf(from);
+        return node >= 0
+                && Arrays.binarySearch(followedTargets, followedOffsets[node], followedOffsets[node + 1], to) >= 0;
+    }
+
+    private static Neighbors slice(int[] offsets, int[] targets, int node) {
+        if (node < 0) {
+            return Neighbors.EMPTY;
+        }
+        return new Neighbors(targets, offsets[node], offsets[node + 1]);
+    }
+}
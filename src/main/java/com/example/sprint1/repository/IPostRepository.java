@@ -1,11 +1,21 @@
 package com.example.sprint1.repository;
 
 import com.example.sprint1.model.Post;
+import java.util.Iterator;
 import java.util.List;
 
 public interface IPostRepository {
     List<Post> getResentPost(Integer userId);
+    List<Post> getResentPost(Integer userId, int days);
+    Iterator<Post> getResentPostIterator(Integer userId, int days, boolean ascending);
+    Iterator<Post> getResentPostIterator(Integer userId, int days, boolean ascending, Long afterKey);
     Post save(Post post);
     List<Post> findAll();
     Post findById(Integer id);
+    List<Post> findAllById(List<Integer> ids);
+    int countPromoPosts(Integer userId);
+    List<Post> findPromoPosts(Integer userId);
+    PostColumns.Stats getStats(Integer userId, Integer category, Integer firstDay);
+    List<Post> search(PostSearchIndex.Query query, int limit);
+    List<Post> searchText(String text, int limit);
 }
@@ -0,0 +1,28 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+
+import java.util.Set;
+
+public interface ITimelineRepository {
+
+    Timeline findByUserId(Integer userId);
+
+    Timeline saveIfAbsent(Integer userId, Timeline timeline);
+
+    Timeline push(Integer userId, Post post);
+
+    boolean isPullSeller(Integer userId);
+
+    Set<Integer> getPullSellers();
+
+    void markPullSeller(Integer userId);
+
+    void unmarkPullSeller(Integer userId);
+
+    int getPullThreshold();
+
+    int getCapacity();
+
+    int getDays();
+}
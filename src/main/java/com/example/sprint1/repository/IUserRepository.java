@@ -21,4 +21,18 @@ public interface IUserRepository {
 
     List<User> getFollowedById(Integer id);
 
+    List<User> getFollowersPage(Integer id, Integer afterId, int limit);
+
+    List<User> getFollowedPage(Integer id, Integer afterId, int limit);
+
+    List<User> getFollowersByName(Integer id, boolean ascending, Integer afterId, int limit);
+
+    List<User> getFollowedByName(Integer id, boolean ascending, Integer afterId, int limit);
+
+    int countFollowers(Integer id);
+
+    int countFollowed(Integer id);
+
+    boolean isFollowing(Integer id, Integer followedId);
+
 }
@@ -0,0 +1,663 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import com.example.sprint1.util.JsonStreamLoader;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Post repository that keeps the posts off the heap, as fixed width records in a memory-mapped file,
+ * with the strings of the products in a second mapped file. The heap only holds the indexes: the
+ * record of each post id, and the keys (see PostRepositoryImpl.timeKey) and records of each author
+ * in two sorted primitive arrays.
+ * The posts returned are decoded from the records when they are read and are not kept, so changing
+ * them doesn't change the repository. Scans by date (getResentPost) only visit the keys of the
+ * author and decode the posts inside the window.
+ * The files are rebuilt on every start from the snapshot or the JSON file plus the write-ahead log,
+ * like the heap repository. Enabled with socialmeli.posts.store=mapped.
+ */
+@Repository
+@ConditionalOnProperty(name = "socialmeli.posts.store", havingValue = "mapped")
+public class MappedPostRepositoryImpl implements IPostRepository, SmartInitializingSingleton {
+
+    // Layout of a record, the optional fields have a bit in FLAGS telling if they are present
+    private static final int ID = 0;
+    private static final int USER_ID = 4;
+    private static final int EPOCH_DAY = 8;
+    private static final int FLAGS = 12;
+    private static final int CATEGORY = 16;
+    private static final int PRODUCT_ID = 20;
+    private static final int PRICE = 24;
+    private static final int DISCOUNT = 32;
+    // Offsets of the product name and of the encoded notes (see CompressedText) in the strings file, -1 for null
+    private static final int PRODUCT_NAME = 40;
+    private static final int NOTES = 48;
+    // Codes of the product dictionaries (see Product), the files are rebuilt on every start so the codes stay valid
+    private static final int TYPE = 56;
+    private static final int BRAND = 60;
+    private static final int COLOR = 64;
+    static final int RECORD_SIZE = 72;
+
+    private static final int HAS_PROMO = 1;
+    private static final int HAS_CATEGORY = 1 << 1;
+    private static final int HAS_PRICE = 1 << 2;
+    private static final int HAS_DISCOUNT = 1 << 3;
+    private static final int HAS_PRODUCT = 1 << 4;
+    private static final int HAS_PRODUCT_ID = 1 << 5;
+
+    // Both files are mapped in segments of this size, a record or a string never crosses two segments
+    private static final int SEGMENT_SIZE = 1 << 26;
+    private static final int RECORDS_PER_SEGMENT = SEGMENT_SIZE / RECORD_SIZE;
+
+    private final FileChannel recordsChannel;
+    private final FileChannel stringsChannel;
+    private volatile MappedByteBuffer[] recordSegments = new MappedByteBuffer[0];
+    private volatile MappedByteBuffer[] stringSegments = new MappedByteBuffer[0];
+    // Amount of records published, written after the record and its indexes
+    private volatile int count;
+    // Offset of the next string in the strings file, only used by the writer
+    private long stringsEnd;
+
+    private final IdIndex idIndex = new IdIndex();
+    private final Map<Integer, AuthorPosts> postsByUser = new ConcurrentHashMap<>();
+    // Promo posts of each author, the amount is the length of the arrays
+    private final Map<Integer, AuthorPosts> promosByUser = new ConcurrentHashMap<>();
+    // Attributes of the posts by column, read by the aggregations instead of decoding the records
+    private final PostColumns columns = new PostColumns();
+    // Secondary indexes of the search, it reads the author and promo indexes above and decodes the posts by id
+    private final PostSearchIndex searchIndex = new PostSearchIndex(
+            userId -> dateIndex(postsByUser.get(userId)), userId -> dateIndex(promosByUser.get(userId)));
+    // Full-text index of the words of the products
+    private final ProductTextIndex textIndex = new ProductTextIndex();
+
+    // Log of the posts saved after loading the JSON file, null when it is disabled
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
+
+    // Offset of the write-ahead log the loaded posts already include, the replay starts there
+    private long replayFrom;
+
+    // Load of the JSON file started by the constructor, it runs while the other beans are created
+    private CompletableFuture<Void> loading = CompletableFuture.completedFuture(null);
+
+    /**
+     * Creates the repository over the files of a directory and loads the posts of the JSON file
+     * @param directory directory of the mapped files, they are overwritten
+     * @throws IOException If the files can't be created or the JSON file can't be read
+     */
+    public MappedPostRepositoryImpl(Path directory) throws IOException {
+        this(directory, Optional.empty());
+        JsonStreamLoader.await(loading);
+    }
+
+    /**
+     * Creates the repository and loads the posts from the last snapshot when there is one, or else
+     * starts loading the JSON file in the background (see afterSingletonsInstantiated)
+     * @param directory directory of the mapped files, they are overwritten
+     * @param snapshotStore store of the snapshots, empty when they are disabled
+     * @throws IOException If the files can't be created or the snapshot can't be read
+     */
+    @Autowired
+    public MappedPostRepositoryImpl(@Value("${socialmeli.posts.mapped.dir:data/posts}") Path directory,
+                                    Optional<SnapshotStore> snapshotStore) throws IOException {
+        Files.createDirectories(directory);
+        recordsChannel = FileChannel.open(directory.resolve("posts.dat"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        stringsChannel = FileChannel.open(directory.resolve("strings.dat"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        SnapshotStore.PostSnapshot snapshot = snapshotStore.isPresent() ? snapshotStore.get().readPosts() : null;
+        if (snapshot != null) {
+            snapshot.posts().forEach(this::insert);
+            replayFrom = snapshot.logOffset();
+        } else {
+            loading = JsonStreamLoader.loadAsync("posts.json", Post.class, this::insert);
+        }
+    }
+
+    /**
+     * Waits for the JSON file, loaded meanwhile with the other seed files, and replays the write-ahead log.
+     * Runs once every bean was created and before the server takes requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            JsonStreamLoader.await(loading);
+            replayLog();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds the posts of the write-ahead log saved after the JSON file or the snapshot were loaded in previous runs
+     * @throws IOException If the log can't be read.
+     */
+    public void replayLog() throws IOException {
+        if (writeAheadLog == null) {
+            return;
+        }
+        writeAheadLog.replay(replayFrom, record -> {
+            if (record.type() == WriteAheadLog.RecordType.POST) {
+                synchronized (this) {
+                    if (idIndex.get(record.post().getId()) < 0) {
+                        insert(record.post());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Saves a new post or throws an exception if a post with the same ID already exists.
+     * The post is copied into the files, later changes to it are not saved.
+     * When the write-ahead log is enabled, the post is added once its record is durable, see WriteAheadLog.
+     * @param post - The Post object to be saved.
+     * @return Post - The Post object that was saved.
+     */
+    @Override
+    public Post save(Post post) {
+        if (writeAheadLog == null) {
+            insert(post);
+        } else {
+            writeAheadLog.logPost(post, () -> checkNew(post), () -> insert(post));
+        }
+        return post;
+    }
+
+    // Throws an exception if a post with the same ID already exists
+    private synchronized void checkNew(Post post) {
+        if (idIndex.get(post.getId()) >= 0) {
+            throw new IllegalArgumentException("Post with ID: " + post.getId() + " already exists");
+        }
+    }
+
+    // Writes the record of a post and indexes it, or throws an exception if a post with the same ID already exists
+    private synchronized void insert(Post post) {
+        checkNew(post);
+        int record = count;
+        ByteBuffer segment = recordSegment(record, true);
+        int base = (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        int flags = post.isHas_promo() ? HAS_PROMO : 0;
+        segment.putInt(base + ID, post.getId());
+        segment.putInt(base + USER_ID, post.getUser_id());
+        segment.putInt(base + EPOCH_DAY, post.getEpochDay());
+        if (post.getCategory() != null) {
+            flags |= HAS_CATEGORY;
+            segment.putInt(base + CATEGORY, post.getCategory());
+        }
+        if (post.getPrice() != null) {
+            flags |= HAS_PRICE;
+            segment.putDouble(base + PRICE, post.getPrice());
+        }
+        if (post.getDiscount() != null) {
+            flags |= HAS_DISCOUNT;
+            segment.putDouble(base + DISCOUNT, post.getDiscount());
+        }
+        Product product = post.getProduct();
+        if (product != null) {
+            flags |= HAS_PRODUCT;
+            if (product.getId() != null) {
+                flags |= HAS_PRODUCT_ID;
+                segment.putInt(base + PRODUCT_ID, product.getId());
+            }
+            segment.putLong(base + PRODUCT_NAME, writeString(product.getProduct_name()));
+            segment.putLong(base + NOTES, writeBytes(product.encodedNotes()));
+            segment.putInt(base + TYPE, product.typeCode());
+            segment.putInt(base + BRAND, product.brandCode());
+            segment.putInt(base + COLOR, product.colorCode());
+        }
+        segment.putInt(base + FLAGS, flags);
+
+        idIndex.put(post.getId(), record);
+        long key = PostRepositoryImpl.timeKey(post.getEpochDay(), post.getId());
+        postsByUser.computeIfAbsent(post.getUser_id(), userId -> new AuthorPosts()).insert(key, record);
+        if (post.isHas_promo()) {
+            promosByUser.computeIfAbsent(post.getUser_id(), userId -> new AuthorPosts()).insert(key, record);
+        }
+        columns.append(post);
+        searchIndex.add(post);
+        textIndex.add(post);
+        // Publishes the record, readers only look at the records below count
+        count = record + 1;
+    }
+
+    // Copies a string to the strings file and returns its offset, -1 for null
+    private long writeString(String value) {
+        return writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Copies bytes to the strings file, after their length, and returns their offset, -1 for null
+    private long writeBytes(byte[] bytes) {
+        if (bytes == null) {
+            return -1;
+        }
+        if (4 + bytes.length > SEGMENT_SIZE) {
+            throw new IllegalArgumentException("String too long for the post store: " + bytes.length + " bytes");
+        }
+        if (stringsEnd % SEGMENT_SIZE + 4 + bytes.length > SEGMENT_SIZE) {
+            // Moves to the start of the next segment, a string never crosses two
+            stringsEnd = (stringsEnd / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+        }
+        long offset = stringsEnd;
+        ByteBuffer segment = stringSegment(offset, true);
+        int position = (int) (offset % SEGMENT_SIZE);
+        segment.putInt(position, bytes.length);
+        segment.put(position + 4, bytes);
+        stringsEnd = offset + 4 + bytes.length;
+        return offset;
+    }
+
+    private String readString(long offset) {
+        byte[] bytes = readBytes(offset);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(long offset) {
+        if (offset < 0) {
+            return null;
+        }
+        ByteBuffer segment = stringSegment(offset, false);
+        int position = (int) (offset % SEGMENT_SIZE);
+        byte[] bytes = new byte[segment.getInt(position)];
+        segment.get(position + 4, bytes);
+        return bytes;
+    }
+
+    private ByteBuffer recordSegment(int record, boolean grow) {
+        int index = record / RECORDS_PER_SEGMENT;
+        MappedByteBuffer[] segments = recordSegments;
+        if (index == segments.length && grow) {
+            segments = recordSegments = map(recordsChannel, segments);
+        }
+        return segments[index];
+    }
+
+    private ByteBuffer stringSegment(long offset, boolean grow) {
+        int index = (int) (offset / SEGMENT_SIZE);
+        MappedByteBuffer[] segments = stringSegments;
+        if (index == segments.length && grow) {
+            segments = stringSegments = map(stringsChannel, segments);
+        }
+        return segments[index];
+    }
+
+    // Maps one more segment at the end of a file, growing the file
+    private static MappedByteBuffer[] map(FileChannel channel, MappedByteBuffer[] segments) {
+        try {
+            MappedByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[segments.length] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    (long) segments.length * SEGMENT_SIZE, SEGMENT_SIZE);
+            return grown;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Decodes the post of a record
+    private Post read(int record) {
+        ByteBuffer segment = recordSegment(record, false);
+        int base = (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        int flags = segment.getInt(base + FLAGS);
+        Post post = new Post();
+        post.setId(segment.getInt(base + ID));
+        post.setUser_id(segment.getInt(base + USER_ID));
+        post.setEpochDay(segment.getInt(base + EPOCH_DAY));
+        post.setHas_promo((flags & HAS_PROMO) != 0);
+        post.setCategory((flags & HAS_CATEGORY) != 0 ? segment.getInt(base + CATEGORY) : null);
+        post.setPrice((flags & HAS_PRICE) != 0 ? segment.getDouble(base + PRICE) : null);
+        post.setDiscount((flags & HAS_DISCOUNT) != 0 ? segment.getDouble(base + DISCOUNT) : null);
+        if ((flags & HAS_PRODUCT) != 0) {
+            // The encoded fields are copied as they are, without going through the dictionaries and the compression
+            post.setProduct(Product.ofEncoded(
+                    (flags & HAS_PRODUCT_ID) != 0 ? segment.getInt(base + PRODUCT_ID) : null,
+                    readString(segment.getLong(base + PRODUCT_NAME)),
+                    segment.getInt(base + TYPE),
+                    segment.getInt(base + BRAND),
+                    segment.getInt(base + COLOR),
+                    readBytes(segment.getLong(base + NOTES))));
+        }
+        return post;
+    }
+
+    /**
+     * Returns every post, in the order they were saved.
+     * The list is a read only view over the records saved so far, each post is decoded when it is read.
+     * @return List<Post> - The posts saved so far.
+     */
+    @Override
+    public List<Post> findAll() {
+        int size = count;
+        return new RecordList(size);
+    }
+
+    @Override
+    public Post findById(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        int record = idIndex.get(id);
+        // A record at or above count may not be complete yet
+        return record < 0 || record >= count ? null : read(record);
+    }
+
+    @Override
+    public List<Post> findAllById(List<Integer> ids) {
+        List<Post> posts = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Post post = findById(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    @Override
+    public List<Post> getResentPost(Integer userId) {
+        return getResentPost(userId, PostRepositoryImpl.RECENT_POSTS_DAYS);
+    }
+
+    @Override
+    public List<Post> getResentPost(Integer userId, int days) {
+        List<Post> posts = new ArrayList<>();
+        getResentPostIterator(userId, days, true).forEachRemaining(posts::add);
+        return posts;
+    }
+
+    @Override
+    public Iterator<Post> getResentPostIterator(Integer userId, int days, boolean ascending) {
+        return getResentPostIterator(userId, days, ascending, null);
+    }
+
+    /**
+     * Returns a lazy iterator over the posts of a user newer than the given amount of days,
+     * starting right after the post with the given key (see PostRepositoryImpl.timeKey).
+     * The window is found by binary search over the keys of the author, and each post is only
+     * decoded when the iterator reaches it.
+     * @param userId id of the author
+     * @param days size of the window in days
+     * @param ascending true for oldest first, false for newest first
+     * @param afterKey key of the last post already read, null to start from the beginning
+     * @return iterator over the posts of the author inside the window
+     */
+    @Override
+    public Iterator<Post> getResentPostIterator(Integer userId, int days, boolean ascending, Long afterKey) {
+        AuthorPosts author = postsByUser.get(userId);
+        if (author == null) {
+            return Collections.emptyIterator();
+        }
+        AuthorPosts.Slice posts = author.slice();
+        long firstDay = LocalDate.now().minusDays(days).toEpochDay() + 1;
+        int from = posts.lowerBound(PostRepositoryImpl.timeKey(firstDay, 0));
+        int to = posts.size();
+        if (afterKey != null) {
+            if (ascending) {
+                from = Math.max(from, posts.upperBound(afterKey));
+            } else {
+                to = posts.lowerBound(afterKey);
+            }
+        }
+        int start = from;
+        int end = to;
+        return new Iterator<>() {
+            private int next = ascending ? start : end - 1;
+
+            @Override
+            public boolean hasNext() {
+                return ascending ? next < end : next >= start;
+            }
+
+            @Override
+            public Post next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Post post = read(posts.records()[next]);
+                next += ascending ? 1 : -1;
+                return post;
+            }
+        };
+    }
+
+    @Override
+    public int countPromoPosts(Integer userId) {
+        AuthorPosts promos = promosByUser.get(userId);
+        return promos == null ? 0 : promos.slice().size();
+    }
+
+    /**
+     * Returns the posts with a promo of a user, newest first, decoding only the promo records of the user
+     * @param userId id of the author
+     * @return the promo posts of the user
+     */
+    @Override
+    public List<Post> findPromoPosts(Integer userId) {
+        AuthorPosts author = promosByUser.get(userId);
+        if (author == null) {
+            return new ArrayList<>();
+        }
+        AuthorPosts.Slice promos = author.slice();
+        List<Post> posts = new ArrayList<>(promos.size());
+        for (int i = promos.size() - 1; i >= 0; i--) {
+            posts.add(read(promos.records()[i]));
+        }
+        return posts;
+    }
+
+    @Override
+    public PostColumns.Stats getStats(Integer userId, Integer category, Integer firstDay) {
+        return columns.aggregate(userId, category, firstDay);
+    }
+
+    @Override
+    public List<Post> search(PostSearchIndex.Query query, int limit) {
+        // The posts not published yet are null and skipped
+        return searchIndex.search(query, limit, this::findById);
+    }
+
+    @Override
+    public List<Post> searchText(String text, int limit) {
+        return textIndex.search(text, limit, this::findById);
+    }
+
+    /**
+     * Releases the files, the mappings stay valid until they are garbage collected
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        recordsChannel.close();
+        stringsChannel.close();
+    }
+
+    /**
+     * Read only view over the first records, decoding each post when it is read
+     */
+    private final class RecordList extends AbstractList<Post> implements RandomAccess {
+
+        private final int size;
+
+        private RecordList(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Post get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return read(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Posts of an author as read by the search, null if there are none
+    private static PostSearchIndex.DateIndex dateIndex(AuthorPosts author) {
+        return author == null ? null : author.slice();
+    }
+
+    /**
+     * Posts of an author as two parallel arrays sorted by key: the keys and the records, with room to
+     * grow at the end. Readers take the published slice (the arrays and the size) and only look below
+     * its size, so they never lock. A post newer than the others, the usual case, is written past the
+     * end of the slice and published with a new size, doubling the arrays when they are full, so
+     * loading N posts in date order costs O(N). Only an older post is inserted into a copy.
+     * Writers are serialized by the repository.
+     */
+    private static final class AuthorPosts {
+
+        /**
+         * Sorted prefix of the arrays visible to readers
+         */
+        record Slice(long[] keys, int[] records, int size) implements PostSearchIndex.DateIndex {
+
+            @Override
+            public long count() {
+                return size;
+            }
+
+            @Override
+            public long floor(long key) {
+                int index = upperBound(key) - 1;
+                return index < 0 ? NONE : keys[index];
+            }
+
+            // First position whose key is not lower than the given key
+            int lowerBound(long key) {
+                int index = Arrays.binarySearch(keys, 0, size, key);
+                return index >= 0 ? index : -index - 1;
+            }
+
+            // First position whose key is greater than the given key
+            int upperBound(long key) {
+                int index = Arrays.binarySearch(keys, 0, size, key);
+                return index >= 0 ? index + 1 : -index - 1;
+            }
+        }
+
+        private volatile Slice slice = new Slice(new long[4], new int[4], 0);
+
+        Slice slice() {
+            return slice;
+        }
+
+        void insert(long key, int record) {
+            Slice current = slice;
+            int size = current.size();
+            long[] keys = current.keys();
+            int[] records = current.records();
+            int position = size == 0 || keys[size - 1] < key ? size : current.lowerBound(key);
+            if (position == size && size < keys.length) {
+                // Past the end of every published slice of these arrays
+                keys[size] = key;
+                records[size] = record;
+            } else {
+                int capacity = size < keys.length ? keys.length : keys.length * 2;
+                long[] grownKeys = new long[capacity];
+                int[] grownRecords = new int[capacity];
+                System.arraycopy(keys, 0, grownKeys, 0, position);
+                System.arraycopy(records, 0, grownRecords, 0, position);
+                grownKeys[position] = key;
+                grownRecords[position] = record;
+                System.arraycopy(keys, position, grownKeys, position + 1, size - position);
+                System.arraycopy(records, position, grownRecords, position + 1, size - position);
+                keys = grownKeys;
+                records = grownRecords;
+            }
+            slice = new Slice(keys, records, size + 1);
+        }
+    }
+
+    /**
+     * Map of post id to record, as the id and the record packed in one long per slot of an open
+     * addressing table. Writes are serialized by the repository; readers don't lock, they may miss
+     * an entry being added, which the repository treats as not published yet.
+     */
+    private static final class IdIndex {
+
+        private static final long FREE = -1L;
+
+        private volatile long[] slots = newSlots(16);
+        private int size;
+
+        int get(int id) {
+            long[] table = slots;
+            int mask = table.length - 1;
+            for (int index = hash(id) & mask; ; index = (index + 1) & mask) {
+                long slot = table[index];
+                if (slot == FREE) {
+                    return -1;
+                }
+                if ((int) (slot >>> 32) == id) {
+                    return (int) slot;
+                }
+            }
+        }
+
+        void put(int id, int record) {
+            if (size + 1 > slots.length - (slots.length >>> 2)) {
+                long[] table = newSlots(slots.length * 2);
+                for (long slot : slots) {
+                    if (slot != FREE) {
+                        insert(table, slot);
+                    }
+                }
+                // Published only once it is complete
+                slots = table;
+            }
+            insert(slots, ((long) id << 32) | (record & 0xFFFFFFFFL));
+            size++;
+        }
+
+        private static void insert(long[] table, long slot) {
+            int mask = table.length - 1;
+            int index = hash((int) (slot >>> 32)) & mask;
+            while (table[index] != FREE) {
+                index = (index + 1) & mask;
+            }
+            table[index] = slot;
+        }
+
+        private static int hash(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private static long[] newSlots(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, FREE);
+            return table;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+
+import java.util.Arrays;
+
+/**
+ * Column store of the attributes of the posts used by the aggregations: author, day, category,
+ * price, promo flag and discount, one primitive array per attribute, in the order the posts were
+ * saved. An aggregation reads only the columns it needs, in tight loops over int and double arrays
+ * without following references, which the JIT can unroll and vectorize.
+ * The rows live in fixed size chunks like PostLog: appends are serialized, readers never lock and
+ * only read the rows below the published size.
+ */
+public class PostColumns {
+
+    // Value of a missing category
+    public static final int NO_CATEGORY = Integer.MIN_VALUE;
+
+    // Rows per chunk, a power of two
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * Result of an aggregation. The averages are NaN when no post has the attribute.
+     */
+    public record Stats(int count, int promoCount, double averagePrice, double averageDiscount) {
+    }
+
+    // Columns of a chunk of rows; price and discount are NaN when they are missing
+    private static final class Chunk {
+        final int[] userIds = new int[CHUNK_SIZE];
+        final int[] epochDays = new int[CHUNK_SIZE];
+        final int[] categories = new int[CHUNK_SIZE];
+        final double[] prices = new double[CHUNK_SIZE];
+        final double[] discounts = new double[CHUNK_SIZE];
+        // 1 if the post has a promo, 0 if it doesn't, so it can be added up
+        final byte[] promos = new byte[CHUNK_SIZE];
+    }
+
+    private volatile Chunk[] chunks = new Chunk[4];
+    // Amount of rows published, written after the row, so readers see it complete
+    private volatile int size;
+
+    /**
+     * Appends the attributes of a post
+     * @param post post to append
+     */
+    public synchronized void append(Post post) {
+        int row = size;
+        int index = row >>> CHUNK_BITS;
+        Chunk[] directory = chunks;
+        if (index == directory.length) {
+            directory = Arrays.copyOf(directory, directory.length * 2);
+        }
+        if (directory[index] == null) {
+            directory[index] = new Chunk();
+        }
+        Chunk chunk = directory[index];
+        int offset = row & (CHUNK_SIZE - 1);
+        chunk.userIds[offset] = post.getUser_id();
+        chunk.epochDays[offset] = post.getEpochDay();
+        chunk.categories[offset] = post.getCategory() == null ? NO_CATEGORY : post.getCategory();
+        chunk.prices[offset] = post.getPrice() == null ? Double.NaN : post.getPrice();
+        chunk.discounts[offset] = post.getDiscount() == null ? Double.NaN : post.getDiscount();
+        chunk.promos[offset] = (byte) (post.isHas_promo() ? 1 : 0);
+        chunks = directory;
+        size = row + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Aggregates the posts that match the given author, category and days
+     * @param userId id of the author, null for any
+     * @param category category, null for any
+     * @param firstDay first epoch day of the posts, null for any
+     * @return the amount of posts, of promo posts, and the average price and discount
+     */
+    public Stats aggregate(Integer userId, Integer category, Integer firstDay) {
+        int rows = size;
+        Chunk[] directory = chunks;
+        int count = 0;
+        int promoCount = 0;
+        double priceSum = 0;
+        int priceCount = 0;
+        double discountSum = 0;
+        int discountCount = 0;
+        boolean anyUser = userId == null;
+        boolean anyCategory = category == null;
+        int user = anyUser ? 0 : userId;
+        int wantedCategory = anyCategory ? 0 : category;
+        int fromDay = firstDay == null ? Integer.MIN_VALUE : firstDay;
+        for (int start = 0; start < rows; start += CHUNK_SIZE) {
+            Chunk chunk = directory[start >>> CHUNK_BITS];
+            int[] userIds = chunk.userIds;
+            int[] categories = chunk.categories;
+            int[] epochDays = chunk.epochDays;
+            double[] prices = chunk.prices;
+            double[] discounts = chunk.discounts;
+            byte[] promos = chunk.promos;
+            int length = Math.min(CHUNK_SIZE, rows - start);
+            for (int i = 0; i < length; i++) {
+                if ((anyUser || userIds[i] == user) && (anyCategory || categories[i] == wantedCategory)
+                        && epochDays[i] >= fromDay) {
+                    count++;
+                    promoCount += promos[i];
+                    double price = prices[i];
+                    double discount = discounts[i];
+                    // NaN (missing) is the only value not equal to itself
+                    if (price == price) {
+                        priceSum += price;
+                        priceCount++;
+                    }
+                    if (discount == discount) {
+                        discountSum += discount;
+                        discountCount++;
+                    }
+                }
+            }
+        }
+        return new Stats(count, promoCount,
+                priceCount == 0 ? Double.NaN : priceSum / priceCount,
+                discountCount == 0 ? Double.NaN : discountSum / discountCount);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Append-only log of the posts, in the order they were saved.
+ * The posts live in fixed size chunks that are never moved or copied, so a position written once
+ * stays valid. Appends are serialized, but readers never lock: they read the published size and
+ * only look at the positions below it, which are complete. A snapshot is just that size, so taking
+ * one doesn't copy anything and it doesn't change when posts are appended later.
+ */
+public class PostLog {
+
+    // Posts per chunk, a power of two
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    // Directory of chunks, replaced by a bigger copy when it is full (the chunks themselves are shared)
+    private volatile Post[][] chunks = new Post[4][];
+    // Amount of posts published, written after the post and the chunk, so readers see them complete
+    private volatile int size;
+
+    /**
+     * Appends a post at the end of the log
+     * @param post post to append
+     */
+    public synchronized void append(Post post) {
+        int index = size;
+        int chunk = index >>> CHUNK_BITS;
+        Post[][] directory = chunks;
+        if (chunk == directory.length) {
+            directory = Arrays.copyOf(directory, directory.length * 2);
+        }
+        if (directory[chunk] == null) {
+            directory[chunk] = new Post[CHUNK_SIZE];
+        }
+        directory[chunk][index & (CHUNK_SIZE - 1)] = post;
+        chunks = directory;
+        size = index + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the posts appended so far. The list is a read only view over the log, it isn't copied,
+     * and it keeps the same posts when more posts are appended.
+     * @return the posts in the order they were appended
+     */
+    public Snapshot snapshot() {
+        // The size is read first, the directory read after it has every chunk below that size
+        int snapshotSize = size;
+        return new Snapshot(chunks, snapshotSize);
+    }
+
+    /**
+     * Read only view over a prefix of the log
+     */
+    public static final class Snapshot extends AbstractList<Post> implements RandomAccess {
+
+        private final Post[][] chunks;
+        private final int size;
+
+        private Snapshot(Post[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public Post get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return chunks[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
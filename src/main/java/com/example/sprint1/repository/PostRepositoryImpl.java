@@ -1,27 +1,68 @@
 package com.example.sprint1.repository;
 
 import com.example.sprint1.model.Post;
-import com.example.sprint1.model.User;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.sprint1.util.JsonStreamLoader;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.ResourceUtils;
 
-import java.io.File;
 import java.io.IOException;
-import java.time.format.DateTimeFormatter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
 
+// Default post repository, see MappedPostRepositoryImpl for the off-heap store
 @Repository
-public class PostRepositoryImpl implements IPostRepository {
+@ConditionalOnProperty(name = "socialmeli.posts.store", havingValue = "heap", matchIfMissing = true)
+public class PostRepositoryImpl implements IPostRepository, SmartInitializingSingleton {
+
+    // Default window of getResentPost, two weeks
+    public static final int RECENT_POSTS_DAYS = 14;
 
     // begin modify Leonardo
-    // A static list that stores all posts loaded from the JSON file or added dynamically. ArrayList.
-    private static List<Post> listOfPosts = new ArrayList<>();
+    // A static log that stores all posts loaded from the JSON file or added dynamically, in order. Readers don't lock.
+    private static PostLog listOfPosts = new PostLog();
+
+    // Primary key index: post id -> post
+    private static Map<Integer, Post> postsById = new ConcurrentHashMap<>();
+
+    // Secondary index: author (user_id) -> posts of that author ordered by date (see timeKey), and their amount
+    private static Map<Integer, NavigableMap<Long, Post>> postsByUser = new ConcurrentHashMap<>();
+    private static Map<Integer, LongAdder> postCounts = new ConcurrentHashMap<>();
+
+    // Attributes of the posts by column, read by the aggregations instead of the posts
+    private static PostColumns columns = new PostColumns();
+
+    // Promo index: author -> promo posts of that author ordered by date (see timeKey), and their amount
+    private static Map<Integer, NavigableMap<Long, Post>> promosByUser = new ConcurrentHashMap<>();
+    private static Map<Integer, LongAdder> promoCounts = new ConcurrentHashMap<>();
+
+    // Secondary indexes of the search: category and price, it reads the author and promo indexes above
+    private static PostSearchIndex searchIndex = newSearchIndex();
+
+    // Full-text index of the words of the products
+    private static ProductTextIndex textIndex = new ProductTextIndex();
+
+    // Log of the posts saved after loading the JSON file, null when it is disabled
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
+
+    // Offset of the write-ahead log the loaded posts already include, the replay starts there
+    private long replayFrom;
+
+    // Load of the JSON file started by the constructor, it runs while the other beans are created
+    private CompletableFuture<Void> loading = CompletableFuture.completedFuture(null);
 
     /**
      * Constructor that loads the database of posts from a JSON file when an instance of the repository is created.
@@ -29,42 +70,133 @@ public class PostRepositoryImpl implements IPostRepository {
      */
 
     public PostRepositoryImpl() throws IOException {
-        loadDatabase();
+        this(Optional.empty());
+        JsonStreamLoader.await(loading);
     }
 
     /**
-     * Loads posts from a JSON file into the listOfPosts list.
-     * converts the JSON data into Post objects and adds them to the listOfPosts list.
-     * @throws IOException If the JSON file cannot be read or the data cannot be parsed, an IOException is thrown.
+     * Constructor that loads the posts from the last snapshot when there is one, or else starts loading
+     * the JSON file in the background (see afterSingletonsInstantiated).
+     * @param snapshotStore store of the snapshots, empty when they are disabled
+     * @throws IOException If there is an error reading the snapshot, an IOException is thrown.
      */
-    private void loadDatabase() throws IOException {
-        File file;
-        ObjectMapper objectMapper = new ObjectMapper();
-        // Added
-        file = ResourceUtils.getFile("classpath:posts.json");
-        List<Post> posts = objectMapper.readValue(file, new TypeReference<List<Post>>() {});
-        listOfPosts.addAll(posts); // Adds loaded posts to the list of posts
+    @Autowired
+    public PostRepositoryImpl(Optional<SnapshotStore> snapshotStore) throws IOException {
+        SnapshotStore.PostSnapshot snapshot = snapshotStore.isPresent() ? snapshotStore.get().readPosts() : null;
+        // Starts from empty indexes so loading twice doesn't duplicate posts
+        listOfPosts = new PostLog();
+        postsById = new ConcurrentHashMap<>();
+        postsByUser = new ConcurrentHashMap<>();
+        postCounts = new ConcurrentHashMap<>();
+        columns = new PostColumns();
+        promosByUser = new ConcurrentHashMap<>();
+        promoCounts = new ConcurrentHashMap<>();
+        searchIndex = newSearchIndex();
+        textIndex = new ProductTextIndex();
+        if (snapshot != null) {
+            snapshot.posts().forEach(this::insert);
+            replayFrom = snapshot.logOffset();
+        } else {
+            // Each post goes to the indexes as soon as it is parsed, the file is never held as a whole
+            loading = JsonStreamLoader.loadAsync("posts.json", Post.class, this::insert);
+        }
+    }
+
+    /**
+     * Waits for the JSON file, loaded meanwhile with the other seed files, and replays the write-ahead log.
+     * Runs once every bean was created and before the server takes requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            JsonStreamLoader.await(loading);
+            replayLog();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds the posts of the write-ahead log saved after the JSON file or the snapshot were loaded in previous runs.
+     * A snapshot is taken while posts are saved, so it may already have some posts after its offset, those are skipped.
+     * @throws IOException If the log can't be read.
+     */
+    public void replayLog() throws IOException {
+        if (writeAheadLog == null) {
+            return;
+        }
+        writeAheadLog.replay(replayFrom, record -> {
+            if (record.type() == WriteAheadLog.RecordType.POST
+                    && postsById.putIfAbsent(record.post().getId(), record.post()) == null) {
+                index(record.post());
+            }
+        });
     }
 
     /**
      * Saves a new post to the list or throws an exception if a post with the same ID already exists.
+     * When the write-ahead log is enabled, the post is indexed once its record is durable, so a post that
+     * can't be logged is never seen (see WriteAheadLog).
      * @param post - The Post object to be saved.
      * @return Post - The Post object that was saved.
      */
     @Override
     public Post save(Post post){
-        // Checks if the ID already exists
-        if (findById(post.getId()) != null){
-            throw new IllegalArgumentException("Post with ID: " + post.getId() + " already exists");
+        if (writeAheadLog == null) {
+            insert(post);
+        } else {
+            writeAheadLog.logPost(post, () -> {
+                if (postsById.containsKey(post.getId())) {
+                    throw new IllegalArgumentException("Post with ID: " + post.getId() + " already exists");
+                }
+            }, () -> insert(post));
         }
-        listOfPosts.add(post); // Adds the post to the list
         return post;
     }
+
+    // Adds a post to the indexes without logging it, or throws an exception if a post with the same ID already exists
+    private void insert(Post post) {
+        // Checks if the ID already exists, registering it in the same step
+        if (postsById.putIfAbsent(post.getId(), post) != null){
+            throw new IllegalArgumentException("Post with ID: " + post.getId() + " already exists");
+        }
+        index(post);
+    }
+
+    // Adds a post already registered by id to the author and promo indexes and the log of posts
+    private void index(Post post) {
+        long key = timeKey(post.getEpochDay(), post.getId());
+        postsByUser.computeIfAbsent(post.getUser_id(), userId -> new ConcurrentSkipListMap<>()).put(key, post);
+        postCounts.computeIfAbsent(post.getUser_id(), userId -> new LongAdder()).increment();
+        if (post.isHas_promo()) {
+            promosByUser.computeIfAbsent(post.getUser_id(), userId -> new ConcurrentSkipListMap<>()).put(key, post);
+            promoCounts.computeIfAbsent(post.getUser_id(), userId -> new LongAdder()).increment();
+        }
+        listOfPosts.append(post); // Adds the post to the log
+        columns.append(post);
+        searchIndex.add(post);
+        textIndex.add(post);
+    }
+
+    // Search index that reads the author and promo indexes of the repository, see PostSearchIndex.DateIndex
+    private static PostSearchIndex newSearchIndex() {
+        return new PostSearchIndex(userId -> dateIndex(postsByUser.get(userId), postCounts.get(userId)),
+                userId -> dateIndex(promosByUser.get(userId), promoCounts.get(userId)));
+    }
+
+    private static PostSearchIndex.DateIndex dateIndex(NavigableMap<Long, Post> posts, LongAdder count) {
+        return posts == null || count == null ? null : PostSearchIndex.DateIndex.of(posts.navigableKeySet(), count.sum());
+    }
     // finished modify Leonardo
 
+    /**
+     * Returns every post, in the order they were saved.
+     * The list is a read only snapshot of the log, taken without copying it.
+     * @return List<Post> - The posts saved so far.
+     */
     @Override
     public List<Post> findAll() {
-        return new ArrayList<>(listOfPosts);
+        return listOfPosts.snapshot();
     }
 
     // begin modify Leonardo
@@ -76,28 +208,158 @@ public class PostRepositoryImpl implements IPostRepository {
     @Override
     public Post findById(Integer id) {
         // Returns the post with the specified ID, or null if no such post exists
-        return listOfPosts.stream()
-                .filter(post -> post.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        if (id == null) {
+            return null;
+        }
+        return postsById.get(id);
     }
     // finished modify Leonardo
 
     /**
-     * Returns all the recent posts
-     * @param userId
-     * @return
+     * Finds the posts with the given ids, skipping the ids that don't exist.
+     * @param ids - The ids of the posts to be retrieved.
+     * @return List<Post> - The posts in the same order as the ids.
+     */
+    @Override
+    public List<Post> findAllById(List<Integer> ids) {
+        List<Post> posts = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Post post = postsById.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    /**
+     * Returns the recent posts (last two weeks) of a user
+     * @param userId id of the author
+     * @return the posts of the author newer than two weeks
      */
     @Override
     public List<Post> getResentPost(Integer userId) {
-        LocalDate twoWeeksAgo = LocalDate.now().minusWeeks(2);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        return getResentPost(userId, RECENT_POSTS_DAYS);
+    }
+
+    /**
+     * Returns the posts of a user newer than the given amount of days, oldest first.
+     * Only the posts inside the window are visited, through a range scan over the author index.
+     * @param userId id of the author
+     * @param days size of the window in days
+     * @return the posts of the author inside the window
+     */
+    @Override
+    public List<Post> getResentPost(Integer userId, int days) {
+        NavigableMap<Long, Post> userPosts = postsByUser.get(userId);
+        if (userPosts == null) {
+            return new ArrayList<>();
+        }
+        long firstDay = LocalDate.now().minusDays(days).toEpochDay() + 1;
+        return new ArrayList<>(userPosts.tailMap(timeKey(firstDay, 0), true).values());
+    }
 
-        return listOfPosts.stream()
-                .filter(post -> post.getUser_id().equals(userId))
-                .filter(post -> LocalDate.parse(post.getDate(), formatter).isAfter(twoWeeksAgo))
-                .collect(Collectors.toList());
+    /**
+     * Returns a lazy iterator over the posts of a user newer than the given amount of days.
+     * The posts are only read from the author index as the iterator advances.
+     * @param userId id of the author
+     * @param days size of the window in days
+     * @param ascending true for oldest first, false for newest first
+     * @return iterator over the posts of the author inside the window
+     */
+    @Override
+    public Iterator<Post> getResentPostIterator(Integer userId, int days, boolean ascending) {
+        return getResentPostIterator(userId, days, ascending, null);
     }
 
-}
+    /**
+     * Returns a lazy iterator over the posts of a user newer than the given amount of days,
+     * starting right after the post with the given key (see timeKey).
+     * @param userId id of the author
+     * @param days size of the window in days
+     * @param ascending true for oldest first, false for newest first
+     * @param afterKey key of the last post already read, null to start from the beginning
+     * @return iterator over the posts of the author inside the window
+     */
+    @Override
+    public Iterator<Post> getResentPostIterator(Integer userId, int days, boolean ascending, Long afterKey) {
+        NavigableMap<Long, Post> userPosts = postsByUser.get(userId);
+        if (userPosts == null) {
+            return Collections.emptyIterator();
+        }
+        long firstDay = LocalDate.now().minusDays(days).toEpochDay() + 1;
+        NavigableMap<Long, Post> window = userPosts.tailMap(timeKey(firstDay, 0), true);
+        if (ascending) {
+            return (afterKey == null ? window : window.tailMap(afterKey, false)).values().iterator();
+        }
+        return (afterKey == null ? window : window.headMap(afterKey, false)).descendingMap().values().iterator();
+    }
 
+    /**
+     * Returns the amount of posts with a promo of a user in constant time, from the promo index
+     * @param userId id of the author
+     * @return the amount of promo posts, 0 if the user has none
+     */
+    @Override
+    public int countPromoPosts(Integer userId) {
+        LongAdder count = promoCounts.get(userId);
+        return count == null ? 0 : count.intValue();
+    }
+
+    /**
+     * Returns the posts with a promo of a user, newest first, only visiting the promo posts of the user
+     * @param userId id of the author
+     * @return the promo posts of the user
+     */
+    @Override
+    public List<Post> findPromoPosts(Integer userId) {
+        NavigableMap<Long, Post> promos = promosByUser.get(userId);
+        return promos == null ? new ArrayList<>() : new ArrayList<>(promos.descendingMap().values());
+    }
+
+    /**
+     * Aggregates the posts that match the filters, scanning the columns
+     * @param userId id of the author, null for any
+     * @param category category, null for any
+     * @param firstDay first epoch day of the posts, null for any
+     * @return the amount of posts, of promo posts, and the average price and discount
+     */
+    @Override
+    public PostColumns.Stats getStats(Integer userId, Integer category, Integer firstDay) {
+        return columns.aggregate(userId, category, firstDay);
+    }
+
+    /**
+     * Finds the posts that match the filters, newest first, see PostSearchIndex
+     * @param query filters of the search
+     * @param limit maximum amount of posts to return
+     * @return the posts that match the filters
+     */
+    @Override
+    public List<Post> search(PostSearchIndex.Query query, int limit) {
+        return searchIndex.search(query, limit, postsById::get);
+    }
+
+    /**
+     * Finds the newest posts whose product has every word of the text, see ProductTextIndex
+     * @param text words to look for
+     * @param limit maximum amount of posts to return
+     * @return the posts that have every word, newest first
+     */
+    @Override
+    public List<Post> searchText(String text, int limit) {
+        return textIndex.search(text, limit, postsById::get);
+    }
+
+    /**
+     * Builds the key of a post in the author index: the epoch day in the high bits and the post id
+     * in the low bits, so the posts of an author are kept ordered by date and then by id.
+     * @param epochDay day of the post
+     * @param postId id of the post
+     * @return the key of the post
+     */
+    public static long timeKey(long epochDay, int postId) {
+        return (epochDay << 32) | (postId & 0xFFFFFFFFL);
+    }
+
+}
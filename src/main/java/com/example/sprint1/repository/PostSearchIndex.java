@@ -0,0 +1,327 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.util.SortedLongSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Secondary indexes of the posts used by the search. The indexes of the author and of the promos of an
+ * author are the ones the repository already keeps, read through DateIndex, so this class only adds the
+ * posts of each category ordered by date (see PostRepositoryImpl.timeKey) and every post ordered by
+ * price. The indexes only keep keys with the post id in the low bits, the posts are read from the
+ * repository, as sorted primitive runs (see SortedLongSet).
+ * A search is planned from the sizes of the indexes: the index that matches the fewest posts drives the
+ * search and the other date ordered indexes are intersected with it by skipping ahead in them (leapfrog
+ * join), so the cost follows the size of the result and not the amount of posts. A search without an
+ * indexed filter walks the categories merged by date, there are few of them.
+ */
+public class PostSearchIndex {
+
+    /**
+     * Keys of posts ordered by date (see PostRepositoryImpl.timeKey), read newest first by the search
+     */
+    public interface DateIndex {
+
+        // Returned by floor when there is no key
+        long NONE = Long.MIN_VALUE;
+
+        /**
+         * @return the amount of keys, in constant time, the planner reads it
+         */
+        long count();
+
+        /**
+         * @param key key to look for
+         * @return the greatest key lower than or equal to the given one, NONE if there is none
+         */
+        long floor(long key);
+
+        /**
+         * Reads a set of keys as a DateIndex
+         * @param keys the keys, ordered by date
+         * @param count the amount of keys, the size of a skip list is not constant time
+         * @return the index
+         */
+        static DateIndex of(NavigableSet<Long> keys, long count) {
+            return new DateIndex() {
+                @Override
+                public long count() {
+                    return count;
+                }
+
+                @Override
+                public long floor(long key) {
+                    Long floor = keys.floor(key);
+                    return floor == null ? NONE : floor;
+                }
+            };
+        }
+    }
+
+    /**
+     * Filters of a search, null for any. The days and prices are inclusive.
+     */
+    public record Query(Integer userId, Integer fromDay, Integer toDay, Integer category,
+                        Double minPrice, Double maxPrice, Boolean hasPromo) {
+
+        /**
+         * Checks every filter against a post
+         * @param post post to check
+         * @return true if the post matches the query
+         */
+        public boolean matches(Post post) {
+            return (userId == null || userId.equals(post.getUser_id()))
+                    && (fromDay == null || post.getEpochDay() >= fromDay)
+                    && (toDay == null || post.getEpochDay() <= toDay)
+                    && (category == null || category.equals(post.getCategory()))
+                    && (minPrice == null || (post.getPrice() != null && post.getPrice() >= minPrice))
+                    && (maxPrice == null || (post.getPrice() != null && post.getPrice() <= maxPrice))
+                    && (hasPromo == null || hasPromo == post.isHas_promo());
+        }
+    }
+
+    // Low bits of the sortable price dropped by the buckets of priceCounts, about eight buckets per power of two
+    private static final int PRICE_BUCKET_SHIFT = 20;
+
+    // Newest first, the order of the results
+    private static final Comparator<Post> NEWEST_FIRST = Comparator.comparingInt(Post::getEpochDay)
+            .thenComparingInt(Post::getId).reversed();
+
+    // Date ordered index of the posts of each category, the posts without category under NO_CATEGORY
+    private final Map<Integer, SortedLongSet> byCategory = new ConcurrentHashMap<>();
+    // Price ordered index, see priceKey
+    private final SortedLongSet byPrice = new SortedLongSet();
+
+    // Counters read by the planner
+    private final LongAdder total = new LongAdder();
+    // Posts per day and per price bucket (see PRICE_BUCKET_SHIFT), to estimate the ranges
+    private final ConcurrentSkipListMap<Integer, LongAdder> dayCounts = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, LongAdder> priceCounts = new ConcurrentSkipListMap<>();
+
+    // Date ordered indexes of the repository: the posts and the promo posts of an author, null if there are none
+    private final IntFunction<DateIndex> postsByUser;
+    private final IntFunction<DateIndex> promosByUser;
+
+    /**
+     * @param postsByUser reads the date ordered index of the posts of an author, null if there are none
+     * @param promosByUser reads the date ordered index of the promo posts of an author, null if there are none
+     */
+    public PostSearchIndex(IntFunction<DateIndex> postsByUser, IntFunction<DateIndex> promosByUser) {
+        this.postsByUser = postsByUser;
+        this.promosByUser = promosByUser;
+    }
+
+    /**
+     * Adds a post to the indexes, after the repository added it to its own
+     * @param post post to add, its id must not be in the indexes yet
+     */
+    public synchronized void add(Post post) {
+        long key = PostRepositoryImpl.timeKey(post.getEpochDay(), post.getId());
+        total.increment();
+        dayCounts.computeIfAbsent(post.getEpochDay(), day -> new LongAdder()).increment();
+        int category = post.getCategory() == null ? PostColumns.NO_CATEGORY : post.getCategory();
+        byCategory.computeIfAbsent(category, c -> new SortedLongSet()).add(key);
+        if (post.getPrice() != null) {
+            int price = sortablePrice(post.getPrice());
+            byPrice.add(priceKey(price, post.getId()));
+            priceCounts.computeIfAbsent(price >> PRICE_BUCKET_SHIFT, bucket -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Finds the posts that match a query, newest first
+     * @param query filters of the search
+     * @param limit maximum amount of posts to return
+     * @param postsById reads a post by id, returns null if it isn't visible yet
+     * @return the posts that match the query
+     */
+    public List<Post> search(Query query, int limit, IntFunction<Post> postsById) {
+        long fromKey = query.fromDay() == null ? Long.MIN_VALUE : PostRepositoryImpl.timeKey(query.fromDay(), 0);
+        long toKey = query.toDay() == null ? Long.MAX_VALUE : PostRepositoryImpl.timeKey(query.toDay(), -1);
+        if (fromKey > toKey) {
+            return new ArrayList<>();
+        }
+
+        // Date ordered indexes that apply, the most selective first. The promos of an author are a
+        // subset of the posts of the author, a search with both only needs the first.
+        List<DateIndex> indexes = new ArrayList<>(2);
+        if (query.userId() != null) {
+            DateIndex author = Boolean.TRUE.equals(query.hasPromo())
+                    ? promosByUser.apply(query.userId()) : postsByUser.apply(query.userId());
+            if (author == null) {
+                return new ArrayList<>();
+            }
+            indexes.add(author);
+        }
+        if (query.category() != null) {
+            SortedLongSet keys = byCategory.get(query.category());
+            if (keys == null) {
+                return new ArrayList<>();
+            }
+            indexes.add(dateIndex(keys));
+        }
+        indexes.sort(Comparator.comparingLong(DateIndex::count));
+        long dateEstimate = query.fromDay() == null && query.toDay() == null ? total.sum()
+                : sum(dayCounts.subMap(query.fromDay() == null ? Integer.MIN_VALUE : query.fromDay(), true,
+                        query.toDay() == null ? Integer.MAX_VALUE : query.toDay(), true));
+        long timeEstimate = Math.min(dateEstimate, indexes.isEmpty() ? Long.MAX_VALUE : indexes.get(0).count());
+        if (indexes.isEmpty()) {
+            indexes.add(allPosts());
+        }
+
+        if (query.minPrice() != null || query.maxPrice() != null) {
+            int fromPrice = query.minPrice() == null ? Integer.MIN_VALUE : sortablePrice(query.minPrice());
+            int toPrice = query.maxPrice() == null ? Integer.MAX_VALUE : sortablePrice(query.maxPrice());
+            if (fromPrice > toPrice) {
+                return new ArrayList<>();
+            }
+            long priceEstimate = priceEstimate(fromPrice, toPrice);
+            // The date walk stops at the limit: with the prices spread evenly over the dates, it visits
+            // about limit / (priceEstimate / total) posts, the price walk visits the whole range
+            double dateWalk = Math.min(timeEstimate, (double) limit * total.sum() / Math.max(priceEstimate, 1));
+            if (priceEstimate < dateWalk) {
+                return searchByPrice(query, limit, postsById, priceKey(fromPrice, 0), priceKey(toPrice, -1));
+            }
+        }
+        return searchByDate(query, limit, postsById, indexes, fromKey, toKey);
+    }
+
+    // Walks the date ordered indexes newest first, keeping the keys that are in all of them
+    private static List<Post> searchByDate(Query query, int limit, IntFunction<Post> postsById,
+                                           List<DateIndex> indexes, long fromKey, long toKey) {
+        DateIndex driver = indexes.get(0);
+        List<Post> posts = new ArrayList<>();
+        long candidate = driver.floor(toKey);
+        while (candidate != DateIndex.NONE && candidate >= fromKey && posts.size() < limit) {
+            long next = candidate;
+            for (int i = 1; i < indexes.size() && next == candidate; i++) {
+                next = indexes.get(i).floor(candidate);
+                if (next == DateIndex.NONE || next < fromKey) {
+                    return posts;
+                }
+            }
+            if (next == candidate) {
+                // In every index, only the filters without an index are left to check
+                Post post = postsById.apply((int) candidate);
+                if (post != null && query.matches(post)) {
+                    posts.add(post);
+                }
+                candidate = driver.floor(candidate - 1);
+            } else {
+                // Skips the keys of the driver after the next key of the other index
+                candidate = driver.floor(next);
+            }
+        }
+        return posts;
+    }
+
+    /**
+     * Every post, as the categories merged by date. The search reads it newest first, so the floor of
+     * each category is kept and only looked up again once the key goes below it: a step of the walk
+     * does one lookup in one category instead of one in each.
+     */
+    private DateIndex allPosts() {
+        List<SortedLongSet> categories = new ArrayList<>(byCategory.values());
+        long[] floors = new long[categories.size()];
+        long count = total.sum();
+        return new DateIndex() {
+            // Key of the last lookup, the floors are the ones of this key
+            long lastKey = Long.MAX_VALUE;
+            boolean started;
+
+            @Override
+            public long count() {
+                return count;
+            }
+
+            @Override
+            public long floor(long key) {
+                boolean reset = !started || key > lastKey;
+                started = true;
+                lastKey = key;
+                long floor = NONE;
+                for (int i = 0; i < floors.length; i++) {
+                    if (reset || floors[i] > key) {
+                        floors[i] = categories.get(i).floor(key);
+                    }
+                    floor = Math.max(floor, floors[i]);
+                }
+                return floor;
+            }
+        };
+    }
+
+    // Walks the price range, checks the other filters on each post and sorts the matches by date
+    private List<Post> searchByPrice(Query query, int limit, IntFunction<Post> postsById,
+                                     long fromKey, long toKey) {
+        List<Post> posts = new ArrayList<>();
+        byPrice.forEach(fromKey, toKey, key -> {
+            Post post = postsById.apply((int) key);
+            if (post != null && query.matches(post)) {
+                posts.add(post);
+            }
+        });
+        posts.sort(NEWEST_FIRST);
+        return posts.size() > limit ? new ArrayList<>(posts.subList(0, limit)) : posts;
+    }
+
+    // Posts in a price range, assuming the prices spread evenly inside each bucket of priceCounts
+    private long priceEstimate(int fromPrice, int toPrice) {
+        double amount = 0;
+        for (Map.Entry<Integer, LongAdder> bucket : priceCounts.subMap(fromPrice >> PRICE_BUCKET_SHIFT, true,
+                toPrice >> PRICE_BUCKET_SHIFT, true).entrySet()) {
+            long first = (long) bucket.getKey() << PRICE_BUCKET_SHIFT;
+            long last = first + (1L << PRICE_BUCKET_SHIFT) - 1;
+            long covered = Math.min(last, toPrice) - Math.max(first, fromPrice) + 1;
+            amount += bucket.getValue().sum() * (double) covered / (1L << PRICE_BUCKET_SHIFT);
+        }
+        return (long) Math.ceil(amount);
+    }
+
+    // Reads a category index as a DateIndex, SortedLongSet.NONE is DateIndex.NONE
+    private static DateIndex dateIndex(SortedLongSet keys) {
+        return new DateIndex() {
+            @Override
+            public long count() {
+                return keys.size();
+            }
+
+            @Override
+            public long floor(long key) {
+                return keys.floor(key);
+            }
+        };
+    }
+
+    private static long sum(Map<Integer, LongAdder> counters) {
+        long amount = 0;
+        for (LongAdder counter : counters.values()) {
+            amount += counter.sum();
+        }
+        return amount;
+    }
+
+    /**
+     * Maps a price to an int with the same order: the bits of the price as a float, with the magnitude
+     * of the negative prices flipped. Rounding to float keeps the order, so the posts of a price range
+     * are inside the range of the rounded bounds, and the exact bounds are checked on the posts.
+     */
+    private static int sortablePrice(double price) {
+        int bits = Float.floatToIntBits((float) price);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    // Key of a post in the price index: the sortable price in the high bits and the post id in the low bits
+    private static long priceKey(int sortablePrice, int postId) {
+        return ((long) sortablePrice << 32) | (postId & 0xFFFFFFFFL);
+    }
+}
@@ -1,33 +1,40 @@
 package com.example.sprint1.repository;
 
 import com.example.sprint1.model.Product;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.sprint1.util.JsonStreamLoader;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.ResourceUtils;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Repository
-public class ProductRepositoryImpl {
+public class ProductRepositoryImpl implements SmartInitializingSingleton {
 
     private static List<Product> listOfProducts;
 
-    public ProductRepositoryImpl() throws IOException {
-        loadDatabase();
-    }
-
-    private void loadDatabase() throws IOException {
-        File file;
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<Product> products;
-
-        file= ResourceUtils.getFile("classpath:products.json");
-        products = objectMapper.readValue(file,new TypeReference<List<Product>>(){});
+    // Load of the JSON file started by the constructor, it runs while the other beans are created
+    private final CompletableFuture<Void> loading;
 
+    public ProductRepositoryImpl() {
+        List<Product> products = new ArrayList<>();
         listOfProducts = products;
+        loading = JsonStreamLoader.loadAsync("products.json", Product.class, products::add);
+    }
+
+    /**
+     * Waits for the JSON file, loaded meanwhile with the other seed files
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            JsonStreamLoader.await(loading);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
@@ -0,0 +1,134 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import com.example.sprint1.util.PostingList;
+import com.example.sprint1.util.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Inverted index of the words of the products of the posts: name, type, brand, color and notes, split
+ * by TextTokenizer. Each post gets a document number in the order it is added, and each term keeps
+ * the compressed list of the documents that have it (see PostingList).
+ * A search with several terms intersects their lists, the shortest one first, and keeps the newest
+ * posts of the intersection in a heap of the requested size, reading only the day of each document.
+ */
+public class ProductTextIndex {
+
+    // Term -> documents with the term
+    private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+
+    // Document -> post id and epoch day, grown by the writer and published with docs
+    private volatile int[] postIds = new int[1024];
+    private volatile int[] epochDays = new int[1024];
+    private volatile int docs;
+
+    /**
+     * Adds the words of the product of a post, posts without a product are skipped
+     * @param post post to add, it must not be in the index yet
+     */
+    public synchronized void add(Post post) {
+        Product product = post.getProduct();
+        if (product == null) {
+            return;
+        }
+        int doc = docs;
+        if (doc == postIds.length) {
+            postIds = Arrays.copyOf(postIds, doc * 2);
+            epochDays = Arrays.copyOf(epochDays, doc * 2);
+        }
+        postIds[doc] = post.getId();
+        epochDays[doc] = post.getEpochDay();
+        Set<String> terms = TextTokenizer.tokenize(product.getProduct_name());
+        terms.addAll(TextTokenizer.tokenize(product.getType()));
+        terms.addAll(TextTokenizer.tokenize(product.getBrand()));
+        terms.addAll(TextTokenizer.tokenize(product.getColor()));
+        terms.addAll(TextTokenizer.tokenize(product.getNotes()));
+        for (String term : terms) {
+            postings.computeIfAbsent(term, key -> new PostingList()).add(doc);
+        }
+        docs = doc + 1;
+    }
+
+    /**
+     * Finds the newest posts whose product has every term of the text
+     * @param text words to look for, see TextTokenizer
+     * @param limit maximum amount of posts to return
+     * @param postsById reads a post by id, returns null if it isn't visible yet
+     * @return the posts that have every term, newest first, empty if the text has no terms
+     */
+    public List<Post> search(String text, int limit, IntFunction<Post> postsById) {
+        Set<String> terms = TextTokenizer.tokenize(text);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<PostingList> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return new ArrayList<>();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        PostingList.Cursor[] cursors = new PostingList.Cursor[lists.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = lists.get(i).cursor();
+        }
+
+        // Read after the cursors, so they have every document the cursors can return
+        int[] days = epochDays;
+        int[] ids = postIds;
+        // Oldest kept match at the head, it is the one evicted by a newer match
+        PriorityQueue<Long> newest = new PriorityQueue<>();
+        forEachMatch(cursors, doc -> {
+            long key = PostRepositoryImpl.timeKey(days[doc], ids[doc]);
+            if (newest.size() < limit) {
+                newest.add(key);
+            } else if (key > newest.peek()) {
+                newest.poll();
+                newest.add(key);
+            }
+        });
+
+        List<Post> posts = new ArrayList<>(newest.size());
+        while (!newest.isEmpty()) {
+            Post post = postsById.apply((int) (long) newest.poll());
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        Collections.reverse(posts);
+        return posts;
+    }
+
+    // Calls the consumer with every document that is in all the lists, the first (shortest) list drives
+    private static void forEachMatch(PostingList.Cursor[] cursors, IntConsumer consumer) {
+        int doc = cursors[0].next();
+        while (doc != PostingList.NO_MORE_DOCS) {
+            int match = doc;
+            for (int i = 1; i < cursors.length && match == doc; i++) {
+                match = cursors[i].advance(doc);
+            }
+            if (match == doc) {
+                consumer.accept(doc);
+                doc = cursors[0].next();
+            } else if (match == PostingList.NO_MORE_DOCS) {
+                return;
+            } else {
+                doc = cursors[0].advance(match);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.sprint1.repository;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Takes the snapshots of the users and the posts every socialmeli.snapshot.interval and on shutdown.
+ * The snapshot is taken while requests go on, without locking: the offset of the write-ahead log is
+ * read first, so every change before it is already in the data, and the changes made while the data is
+ * written are replayed again on startup, which skips the ones the snapshot already has.
+ * The log starts a new segment at that offset, and the older segments are deleted once both snapshots
+ * are written, so the log doesn't grow with the changes of every run.
+ */
+@Component
+@ConditionalOnProperty(name = "socialmeli.snapshot.dir")
+public class SnapshotScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotScheduler.class);
+
+    @Autowired
+    private SnapshotStore snapshotStore;
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Autowired
+    private IPostRepository postRepository;
+
+    // Without the log a snapshot still keeps the data of the last run, but not the changes after it
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
+
+    /**
+     * Writes a snapshot of the users and the posts
+     * @throws IOException if a snapshot can't be written, the previous one is kept
+     */
+    public synchronized void takeSnapshot() throws IOException {
+        long start = System.nanoTime();
+        long logOffset = writeAheadLog == null ? 0 : writeAheadLog.rotate();
+        snapshotStore.writeUsers(logOffset, userRepository.findAll());
+        snapshotStore.writePosts(logOffset, postRepository.findAll());
+        if (writeAheadLog != null) {
+            // Both snapshots have the records before the offset, the log doesn't need them anymore
+            writeAheadLog.truncate(logOffset);
+        }
+        log.info("Snapshot taken at log offset {} in {} ms", logOffset, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Scheduled(initialDelayString = "${socialmeli.snapshot.interval:PT5M}",
+            fixedDelayString = "${socialmeli.snapshot.interval:PT5M}")
+    public void scheduledSnapshot() {
+        try {
+            takeSnapshot();
+        } catch (IOException e) {
+            log.error("Snapshot failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        scheduledSnapshot();
+    }
+}
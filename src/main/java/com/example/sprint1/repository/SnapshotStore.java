@@ -0,0 +1,303 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import com.example.sprint1.model.User;
+import com.example.sprint1.util.IntSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads and writes compact binary snapshots of the users (with their follow edges) and of the posts.
+ * Each snapshot keeps the offset of the write-ahead log it was taken at, so on startup the
+ * repositories load the snapshot and only replay the records of the log after that offset.
+ * A snapshot is written to a temporary file and moved over the previous one, so a crash while
+ * writing it leaves the previous snapshot in place.
+ * Enabled by setting socialmeli.snapshot.dir.
+ */
+@Component
+@ConditionalOnProperty(name = "socialmeli.snapshot.dir")
+public class SnapshotStore {
+
+    private static final int USERS_MAGIC = 0x534D5553; // "SMUS"
+    private static final int POSTS_MAGIC = 0x534D5053; // "SMPS"
+    private static final int VERSION = 1;
+
+    /**
+     * Users of a snapshot and the offset of the write-ahead log it was taken at
+     */
+    public record UserSnapshot(long logOffset, List<User> users) {
+    }
+
+    /**
+     * Posts of a snapshot and the offset of the write-ahead log it was taken at
+     */
+    public record PostSnapshot(long logOffset, List<Post> posts) {
+    }
+
+    private final Path usersFile;
+    private final Path postsFile;
+
+    @Autowired
+    public SnapshotStore(@Value("${socialmeli.snapshot.dir}") String dir) throws IOException {
+        this(Path.of(dir));
+    }
+
+    public SnapshotStore(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        usersFile = dir.resolve("users.snap");
+        postsFile = dir.resolve("posts.snap");
+    }
+
+    /**
+     * Writes a snapshot of the users. Only the followed users are written, the followers are the same edges reversed.
+     * @param logOffset offset of the write-ahead log, every record before it is included in the users
+     * @param users users to write
+     */
+    public void writeUsers(long logOffset, Collection<User> users) throws IOException {
+        Path temp = usersFile.resolveSibling(usersFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(USERS_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(logOffset);
+            out.writeInt(users.size());
+            for (User user : users) {
+                out.writeInt(user.getId());
+                writeString(out, user.getUser_name());
+                writeIds(out, user.getFollowed());
+                writeIds(out, user.getPosts());
+            }
+        }
+        Files.move(temp, usersFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the last snapshot of the users
+     * @return the snapshot, or null if there is none
+     */
+    public UserSnapshot readUsers() throws IOException {
+        return readUsers(true);
+    }
+
+    /**
+     * Reads the last snapshot of the users
+     * @param withFollowers false to leave the followers of the users null, for a store that only needs the followed
+     * @return the snapshot, or null if there is none
+     */
+    public UserSnapshot readUsers(boolean withFollowers) throws IOException {
+        if (!Files.exists(usersFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(usersFile), 1 << 16))) {
+            long logOffset = readHeader(in, USERS_MAGIC);
+            int count = in.readInt();
+            List<User> users = new ArrayList<>(count);
+            int[][] followed = new int[count][];
+            for (int i = 0; i < count; i++) {
+                User user = new User();
+                user.setId(in.readInt());
+                user.setUser_name(readString(in));
+                followed[i] = readIds(in);
+                user.setFollowed(toIntSet(followed[i]));
+                user.setPosts(toIntSet(readIds(in)));
+                users.add(user);
+            }
+            if (withFollowers) {
+                setFollowers(users, followed);
+            }
+            return new UserSnapshot(logOffset, users);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the posts
+     * @param logOffset offset of the write-ahead log, every record before it is included in the posts
+     * @param posts posts to write
+     */
+    public void writePosts(long logOffset, Collection<Post> posts) throws IOException {
+        Path temp = postsFile.resolveSibling(postsFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(POSTS_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(logOffset);
+            out.writeInt(posts.size());
+            for (Post post : posts) {
+                out.writeInt(post.getId());
+                out.writeInt(post.getUser_id());
+                out.writeInt(post.getEpochDay());
+                writeInteger(out, post.getCategory());
+                writeDouble(out, post.getPrice());
+                out.writeBoolean(post.isHas_promo());
+                writeDouble(out, post.getDiscount());
+                Product product = post.getProduct();
+                out.writeBoolean(product != null);
+                if (product != null) {
+                    writeInteger(out, product.getId());
+                    writeString(out, product.getProduct_name());
+                    writeString(out, product.getType());
+                    writeString(out, product.getBrand());
+                    writeString(out, product.getColor());
+                    writeString(out, product.getNotes());
+                }
+            }
+        }
+        Files.move(temp, postsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the last snapshot of the posts
+     * @return the snapshot, or null if there is none
+     */
+    public PostSnapshot readPosts() throws IOException {
+        if (!Files.exists(postsFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(postsFile), 1 << 16))) {
+            long logOffset = readHeader(in, POSTS_MAGIC);
+            int count = in.readInt();
+            List<Post> posts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Post post = new Post();
+                post.setId(in.readInt());
+                post.setUser_id(in.readInt());
+                post.setEpochDay(in.readInt());
+                post.setCategory(readInteger(in));
+                post.setPrice(readDouble(in));
+                post.setHas_promo(in.readBoolean());
+                post.setDiscount(readDouble(in));
+                if (in.readBoolean()) {
+                    post.setProduct(new Product(readInteger(in), readString(in), readString(in), readString(in),
+                            readString(in), readString(in)));
+                }
+                posts.add(post);
+            }
+            return new PostSnapshot(logOffset, posts);
+        }
+    }
+
+    // Rebuilds the followers of the users from their followed users
+    private static void setFollowers(List<User> users, int[][] followed) {
+        int count = users.size();
+        // Id and position of each user, sorted by id, to find the position of an id without boxing
+        long[] positions = new long[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = ((long) users.get(i).getId() << 32) | i;
+        }
+        Arrays.sort(positions);
+        // Each edge is resolved once, then the sets are filled at their final size
+        int[][] followerPositions = new int[count][];
+        int[] degrees = new int[count];
+        for (int i = 0; i < count; i++) {
+            followerPositions[i] = new int[followed[i].length];
+            for (int j = 0; j < followed[i].length; j++) {
+                int position = positionOf(positions, followed[i][j]);
+                followerPositions[i][j] = position;
+                if (position >= 0) {
+                    degrees[position]++;
+                }
+            }
+        }
+        IntSet[] followers = new IntSet[count];
+        for (int i = 0; i < count; i++) {
+            followers[i] = new IntSet(degrees[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            int id = users.get(i).getId();
+            for (int position : followerPositions[i]) {
+                if (position >= 0) {
+                    followers[position].add(id);
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            users.get(i).setFollowers(followers[i]);
+        }
+    }
+
+    private static int positionOf(long[] positions, int id) {
+        int index = Arrays.binarySearch(positions, (long) id << 32);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < positions.length && (int) (positions[index] >> 32) == id ? (int) positions[index] : -1;
+    }
+
+    private static long readHeader(DataInputStream in, int magic) throws IOException {
+        if (in.readInt() != magic || in.readInt() != VERSION) {
+            throw new IOException("Unknown snapshot format");
+        }
+        return in.readLong();
+    }
+
+    private static void writeIds(DataOutputStream out, IntSet ids) throws IOException {
+        int[] values = ids == null ? new int[0] : ids.toIntArray();
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readIds(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static IntSet toIntSet(int[] values) {
+        IntSet set = new IntSet(values.length);
+        for (int value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.User;
+import com.example.sprint1.util.IntSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Followers and followed of every user as sorted int arrays, by id and by name, kept next to the hash
+ * sets of the users (which answer contains and size) so a page in either order is a binary search of
+ * the cursor and a copy of the page, instead of a copy and a sort of the whole set per request.
+ * The users are fixed once loaded, each one is a node: the position of its id in a sorted array.
+ * The name order is a rank per node (see User.BY_NAME, computed once as FollowGraph does), and the
+ * lists by name keep the ranks of the users, so they are sorted ints as well; nodeByRank maps them back.
+ * A list is one int array with its size in the first slot, null while it is empty, and grows by doubling,
+ * so a list costs 4 bytes per edge plus the free slots. A follow or unfollow moves the ids after the
+ * changed one, O(degree) with a single arraycopy.
+ * Not thread safe: changes are made under the stripes of both users and reads under the stripe of the
+ * user read (see UserRepositoryImpl).
+ */
+final class SortedFollows {
+
+    // Ids of the users, sorted, the node of a user is the position of its id
+    private final int[] nodeIds;
+    // Position of each node in the order of User.BY_NAME, and the node of each position
+    private final int[] nameRanks;
+    private final int[] nodeByRank;
+    // Followers and followed of each node sorted by id, see the class comment
+    private final int[][] followers;
+    private final int[][] followed;
+    // Name ranks of the followers and followed of each node, sorted
+    private final int[][] followersByName;
+    private final int[][] followedByName;
+
+    private SortedFollows(int[] nodeIds) {
+        this.nodeIds = nodeIds;
+        this.nameRanks = new int[nodeIds.length];
+        this.nodeByRank = new int[nodeIds.length];
+        this.followers = new int[nodeIds.length][];
+        this.followed = new int[nodeIds.length][];
+        this.followersByName = new int[nodeIds.length][];
+        this.followedByName = new int[nodeIds.length][];
+    }
+
+    /**
+     * Builds the lists from the follow sets of the users
+     * @param users every user, the follows of unknown users are dropped
+     * @return the lists
+     */
+    static SortedFollows build(Collection<User> users) {
+        int[] nodeIds = new int[users.size()];
+        int nodes = 0;
+        for (User user : users) {
+            nodeIds[nodes++] = user.getId();
+        }
+        Arrays.sort(nodeIds);
+        SortedFollows follows = new SortedFollows(nodeIds);
+        List<User> byName = new ArrayList<>(users);
+        byName.sort(User.BY_NAME);
+        for (int rank = 0; rank < byName.size(); rank++) {
+            int node = follows.nodeOf(byName.get(rank).getId());
+            follows.nameRanks[node] = rank;
+            follows.nodeByRank[rank] = node;
+        }
+        for (User user : users) {
+            int node = follows.nodeOf(user.getId());
+            follows.followers[node] = follows.sortedList(user.getFollowers(), false);
+            follows.followed[node] = follows.sortedList(user.getFollowed(), false);
+            follows.followersByName[node] = follows.sortedList(user.getFollowers(), true);
+            follows.followedByName[node] = follows.sortedList(user.getFollowed(), true);
+        }
+        return follows;
+    }
+
+    // List of the known ids of a set, or of their name ranks, null if there are none
+    private int[] sortedList(IntSet ids, boolean ranks) {
+        int[] list = new int[ids.size() + 1];
+        int size = 0;
+        for (int id : ids.toIntArray()) {
+            int node = nodeOf(id);
+            if (node >= 0) {
+                list[++size] = ranks ? nameRanks[node] : id;
+            }
+        }
+        if (size == 0) {
+            return null;
+        }
+        list[0] = size;
+        Arrays.sort(list, 1, size + 1);
+        return list;
+    }
+
+    private int nodeOf(int id) {
+        return Arrays.binarySearch(nodeIds, id);
+    }
+
+    /**
+     * Adds a follow, the stripes of both users must be held
+     */
+    void follow(int from, int to) {
+        int fromNode = nodeOf(from);
+        int toNode = nodeOf(to);
+        if (fromNode >= 0 && toNode >= 0) {
+            followed[fromNode] = insert(followed[fromNode], to);
+            followers[toNode] = insert(followers[toNode], from);
+            followedByName[fromNode] = insert(followedByName[fromNode], nameRanks[toNode]);
+            followersByName[toNode] = insert(followersByName[toNode], nameRanks[fromNode]);
+        }
+    }
+
+    /**
+     * Removes a follow, the stripes of both users must be held
+     */
+    void unfollow(int from, int to) {
+        int fromNode = nodeOf(from);
+        int toNode = nodeOf(to);
+        if (fromNode >= 0 && toNode >= 0) {
+            followed[fromNode] = remove(followed[fromNode], to);
+            followers[toNode] = remove(followers[toNode], from);
+            followedByName[fromNode] = remove(followedByName[fromNode], nameRanks[toNode]);
+            followersByName[toNode] = remove(followersByName[toNode], nameRanks[fromNode]);
+        }
+    }
+
+    /**
+     * Reads a page of the followers or followed of a user ordered by id, the stripe of the user must be held
+     * @param id id of the user
+     * @param ofFollowers true for the followers, false for the followed users
+     * @param afterId id of the last user of the previous page, null for the first page
+     * @param limit maximum amount of ids
+     * @return the ids of the page
+     */
+    int[] pageById(int id, boolean ofFollowers, Integer afterId, int limit) {
+        int node = nodeOf(id);
+        int[] list = node < 0 ? null : (ofFollowers ? followers : followed)[node];
+        if (list == null) {
+            return new int[0];
+        }
+        int from = 1;
+        if (afterId != null) {
+            int index = Arrays.binarySearch(list, 1, list[0] + 1, afterId);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        int to = (int) Math.min(list[0] + 1, (long) from + limit);
+        return Arrays.copyOfRange(list, from, to);
+    }
+
+    /**
+     * Reads a page of the followers or followed of a user sorted by name, the stripe of the user must be held
+     * @param id id of the user
+     * @param ofFollowers true for the followers, false for the followed users
+     * @param ascending true for name_asc, false for name_desc
+     * @param afterId id of the last user of the previous page, a known user, null for the first page
+     * @param limit maximum amount of ids
+     * @return the ids of the page, in the order of the page
+     */
+    int[] pageByName(int id, boolean ofFollowers, boolean ascending, Integer afterId, int limit) {
+        int node = nodeOf(id);
+        int[] list = node < 0 ? null : (ofFollowers ? followersByName : followedByName)[node];
+        if (list == null) {
+            return new int[0];
+        }
+        int size = list[0];
+        // Position of the cursor: the first rank after it (ascending) or the last one before it (descending)
+        int from = ascending ? 1 : size;
+        if (afterId != null) {
+            int index = Arrays.binarySearch(list, 1, size + 1, nameRanks[nodeOf(afterId)]);
+            if (ascending) {
+                from = index >= 0 ? index + 1 : -index - 1;
+            } else {
+                from = (index >= 0 ? index : -index - 1) - 1;
+            }
+        }
+        int count = (int) Math.max(0, Math.min(limit, ascending ? size + 1 - from : from));
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nodeIds[nodeByRank[list[ascending ? from + i : from - i]]];
+        }
+        return ids;
+    }
+
+    /**
+     * Checks if a user is known, the users of the lists never change once they are built
+     */
+    boolean contains(int id) {
+        return nodeOf(id) >= 0;
+    }
+
+    // Adds a value to a sorted list, growing it when it is full
+    private static int[] insert(int[] list, int value) {
+        if (list == null) {
+            list = new int[4];
+        }
+        int size = list[0];
+        int index = Arrays.binarySearch(list, 1, size + 1, value);
+        if (index >= 0) {
+            return list;
+        }
+        int at = -index - 1;
+        if (size + 1 == list.length) {
+            list = Arrays.copyOf(list, list.length * 2);
+        }
+        System.arraycopy(list, at, list, at + 1, size + 1 - at);
+        list[at] = value;
+        list[0] = size + 1;
+        return list;
+    }
+
+    // Removes a value from a sorted list, null once it is empty
+    private static int[] remove(int[] list, int value) {
+        if (list == null) {
+            return null;
+        }
+        int size = list[0];
+        int index = Arrays.binarySearch(list, 1, size + 1, value);
+        if (index < 0) {
+            return list;
+        }
+        System.arraycopy(list, index + 1, list, index, size - index);
+        list[0] = size - 1;
+        return size == 1 ? null : list;
+    }
+}
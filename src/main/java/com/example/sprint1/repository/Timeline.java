@@ -0,0 +1,156 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Home timeline of a user: the ids of the newest posts of the users it follows, bounded to a
+ * fixed capacity. Entries are kept ordered by date (same key as the posts by author index),
+ * so a feed page is read directly from it without merging or sorting.
+ * When the timeline is full the oldest entry is dropped, and the newest dropped day is kept
+ * to know from which day on the timeline is still complete.
+ */
+public class Timeline {
+
+    // Keys of the posts (see PostRepositoryImpl.timeKey) in ascending order
+    private final long[] keys;
+    // Author of each post, parallel to keys
+    private final int[] authors;
+    private int size;
+    // Newest day of a post that was dropped or didn't fit, posts of this day or older may be missing
+    private int truncatedDay = Integer.MIN_VALUE;
+
+    public Timeline(int capacity) {
+        this.keys = new long[capacity];
+        this.authors = new int[capacity];
+    }
+
+    /**
+     * Adds a post to the timeline, dropping the oldest entry if it is full
+     * @param post post to add
+     * @return false if the post is older than every entry of a full timeline and wasn't added
+     */
+    public synchronized boolean add(Post post) {
+        long key = PostRepositoryImpl.timeKey(post.getEpochDay(), post.getId());
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            return true; // Already in the timeline
+        }
+        int insertAt = -index - 1;
+        if (size == keys.length) {
+            if (insertAt == 0) {
+                truncatedDay = Math.max(truncatedDay, post.getEpochDay());
+                return false;
+            }
+            // Drops the oldest entry to make room
+            truncatedDay = Math.max(truncatedDay, dayOf(keys[0]));
+            System.arraycopy(keys, 1, keys, 0, insertAt - 1);
+            System.arraycopy(authors, 1, authors, 0, insertAt - 1);
+            insertAt--;
+        } else {
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+            System.arraycopy(authors, insertAt, authors, insertAt + 1, size - insertAt);
+            size++;
+        }
+        keys[insertAt] = key;
+        authors[insertAt] = post.getUser_id();
+        return true;
+    }
+
+    /**
+     * Adds posts sorted from newest to oldest, stopping at the first one that doesn't fit
+     * @param posts iterator over the posts, newest first
+     */
+    public synchronized void addAll(Iterator<Post> posts) {
+        while (posts.hasNext()) {
+            if (!add(posts.next())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes every entry of an author, used when the user stops following it
+     * @param authorId id of the author
+     */
+    public synchronized void removeAuthor(int authorId) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (authors[i] != authorId) {
+                keys[kept] = keys[i];
+                authors[kept] = authors[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Reads the ids of the posts from the given day on
+     * @param firstDay first epoch day of the window
+     * @param limit maximum amount of ids to return
+     * @param ascending true for oldest first, false for newest first
+     * @return the ids of the posts, or null if the timeline may be missing posts of the window
+     */
+    public List<Integer> readPostIds(int firstDay, int limit, boolean ascending) {
+        return readPostIds(firstDay, limit, ascending, Collections.emptySet(), null);
+    }
+
+    /**
+     * Reads the ids of the posts from the given day on, skipping the posts of some authors
+     * @param firstDay first epoch day of the window
+     * @param limit maximum amount of ids to return
+     * @param ascending true for oldest first, false for newest first
+     * @param excludedAuthors authors whose posts are not returned
+     * @param afterKey key of the last post already read, null to start from the beginning
+     * @return the ids of the posts, or null if the timeline may be missing posts of the window
+     */
+    public synchronized List<Integer> readPostIds(int firstDay, int limit, boolean ascending,
+                                                  Set<Integer> excludedAuthors, Long afterKey) {
+        if (firstDay <= truncatedDay) {
+            return null;
+        }
+        // Entries of the window (or of the page) are in [from, to)
+        int from = lowerBound(PostRepositoryImpl.timeKey(firstDay, 0));
+        int to = size;
+        if (afterKey != null) {
+            if (ascending) {
+                from = Math.max(from, lowerBound(afterKey + 1));
+            } else {
+                to = lowerBound(afterKey);
+            }
+        }
+        List<Integer> ids = new ArrayList<>(Math.max(0, Math.min(limit, to - from)));
+        for (int i = 0; i < to - from && ids.size() < limit; i++) {
+            int index = ascending ? from + i : to - 1 - i;
+            if (!excludedAuthors.contains(authors[index])) {
+                ids.add(idOf(keys[index]));
+            }
+        }
+        return ids;
+    }
+
+    // Index of the first entry with a key greater or equal to the given one
+    private int lowerBound(long key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static int dayOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int idOf(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Repository
+public class TimelineRepositoryImpl implements ITimelineRepository {
+
+    // Timelines by user id, only for the users that already read their feed
+    private final Map<Integer, Timeline> timelines = new ConcurrentHashMap<>();
+
+    // Sellers with too many followers to push their posts, their posts are pulled when the feed is read
+    private final Set<Integer> pullSellers = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> pullSellersView = Collections.unmodifiableSet(pullSellers);
+
+    // Sellers with more followers than this are pull sellers
+    @Value("${socialmeli.timeline.pull-threshold:10000}")
+    private int pullThreshold = 10000;
+
+    // Maximum amount of posts kept in each timeline
+    @Value("${socialmeli.timeline.capacity:500}")
+    private int capacity = 500;
+
+    // Days of posts loaded when a timeline is built, feeds with a bigger window are not served from timelines
+    @Value("${socialmeli.timeline.days:30}")
+    private int days = 30;
+
+    /**
+     * Returns the timeline of a user
+     * @param userId id of the user
+     * @return the timeline or null if it wasn't built yet
+     */
+    @Override
+    public Timeline findByUserId(Integer userId) {
+        return timelines.get(userId);
+    }
+
+    /**
+     * Saves the timeline of a user unless another one was saved before
+     * @param userId id of the user
+     * @param timeline timeline to save
+     * @return the timeline that was already saved, or null if the given one was saved
+     */
+    @Override
+    public Timeline saveIfAbsent(Integer userId, Timeline timeline) {
+        return timelines.putIfAbsent(userId, timeline);
+    }
+
+    /**
+     * Adds a new post to the timeline of a user, if the user has one
+     * @param userId id of the user
+     * @param post post to add
+     * @return the timeline of the user, or null if it wasn't built yet
+     */
+    @Override
+    public Timeline push(Integer userId, Post post) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline != null) {
+            timeline.add(post);
+        }
+        return timeline;
+    }
+
+    /**
+     * Checks if the posts of a seller are pulled when the feed is read instead of pushed to the timelines
+     * @param userId id of the seller
+     * @return true if the seller is a pull seller
+     */
+    @Override
+    public boolean isPullSeller(Integer userId) {
+        return pullSellers.contains(userId);
+    }
+
+    /**
+     * Returns the pull sellers, a read only view of the set
+     * @return the ids of the pull sellers
+     */
+    @Override
+    public Set<Integer> getPullSellers() {
+        return pullSellersView;
+    }
+
+    @Override
+    public void markPullSeller(Integer userId) {
+        pullSellers.add(userId);
+    }
+
+    @Override
+    public void unmarkPullSeller(Integer userId) {
+        pullSellers.remove(userId);
+    }
+
+    @Override
+    public int getPullThreshold() {
+        return pullThreshold;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getDays() {
+        return days;
+    }
+}
@@ -2,42 +2,112 @@ package com.example.sprint1.repository;
 
 import com.example.sprint1.dto.FollowerListDto;
 import com.example.sprint1.dto.FollowerUsersDto;
+import com.example.sprint1.exception.BadRequestException;
 import com.example.sprint1.exception.NotFoundException;
 import com.example.sprint1.model.User;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.sprint1.util.JsonStreamLoader;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.ResourceUtils;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+// Default user repository, see CsrUserRepositoryImpl for the alternative graph store
 @Repository
-public class UserRepositoryImpl implements IUserRepository{
+@ConditionalOnProperty(name = "socialmeli.users.graph", havingValue = "hash", matchIfMissing = true)
+public class UserRepositoryImpl implements IUserRepository, SmartInitializingSingleton {
 
     private static List<User> listOfUsers;
 
+    // Index of the users by id, every lookup by id is served from here instead of scanning listOfUsers
+    private static Map<Integer, User> usersById = new ConcurrentHashMap<>();
+
+    // Followers and followed of every user sorted by id, built once the users are loaded, see SortedFollows
+    private static SortedFollows sortedFollows;
+
+    // Locks of the follow edges, a user is guarded by one stripe (see stripeOf), a follow takes the
+    // stripes of both users so follows of unrelated users run in parallel
+    private static final ReentrantLock[] LOCK_STRIPES = new ReentrantLock[64];
+
+    static {
+        for (int i = 0; i < LOCK_STRIPES.length; i++) {
+            LOCK_STRIPES[i] = new ReentrantLock();
+        }
+    }
+
+    // Log of the follows and unfollows made after loading the JSON file, null when it is disabled
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
+
+    // Offset of the write-ahead log the loaded users already include, the replay starts there
+    private long replayFrom;
+
+    // Load of the JSON file started by the constructor, it runs while the other beans are created
+    private CompletableFuture<Void> loading = CompletableFuture.completedFuture(null);
+
     public UserRepositoryImpl() throws IOException {
-        loadDatabase();
+        this(Optional.empty());
+        finishLoading();
     }
 
     /**
-     * Method use to load listOfUsers
+     * Loads the users from the last snapshot when there is one, or else starts loading the JSON file
+     * in the background (see afterSingletonsInstantiated)
+     * @param snapshotStore store of the snapshots, empty when they are disabled
      * @throws IOException
      */
-    private void loadDatabase() throws IOException {
-        File file;
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<User> users;
+    @Autowired
+    public UserRepositoryImpl(Optional<SnapshotStore> snapshotStore) throws IOException {
+        SnapshotStore.UserSnapshot snapshot = snapshotStore.isPresent() ? snapshotStore.get().readUsers() : null;
+        // Starts from empty indexes so loading twice doesn't duplicate users
+        listOfUsers = new ArrayList<>();
+        usersById = new ConcurrentHashMap<>();
+        sortedFollows = null;
+        if (snapshot != null) {
+            snapshot.users().forEach(UserRepositoryImpl::insert);
+            replayFrom = snapshot.logOffset();
+        } else {
+            // Each user goes to the indexes as soon as it is parsed, the file is never held as a whole
+            loading = JsonStreamLoader.loadAsync("users.json", User.class, UserRepositoryImpl::insert);
+        }
+    }
 
-        file= ResourceUtils.getFile("classpath:users.json");
-        users = objectMapper.readValue(file,new TypeReference<List<User>>(){});
+    /**
+     * Waits for the JSON file, loaded meanwhile with the other seed files, and replays the write-ahead log.
+     * Runs once every bean was created and before the server takes requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            finishLoading();
+            replayLog();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Waits for the JSON file and sorts the follows of the users
+    private void finishLoading() throws IOException {
+        JsonStreamLoader.await(loading);
+        if (sortedFollows == null) {
+            sortedFollows = SortedFollows.build(listOfUsers);
+        }
+    }
 
-        listOfUsers = users;
+    // Adds a user to the list and the indexes
+    private static void insert(User user) {
+        listOfUsers.add(user);
+        usersById.put(user.getId(), user);
     }
 
     /**
@@ -56,30 +126,201 @@ public class UserRepositoryImpl implements IUserRepository{
      */
     @Override
     public User findUserById(Integer id) {
-        return listOfUsers.stream().filter(user -> user.getId().equals(id)).findFirst().orElse(null);
+        if (id == null) {
+            return null;
+        }
+        return usersById.get(id);
+    }
+
+    /**
+     * Applies the follows and unfollows of the write-ahead log, the ones made after the JSON file or the
+     * snapshot were loaded in previous runs. A snapshot is taken while users follow each other, so it may
+     * already have some changes after its offset; follow and unfollow skip those, the edge ends up as in
+     * the last record of the pair.
+     * @throws IOException If the log can't be read.
+     */
+    public void replayLog() throws IOException {
+        if (writeAheadLog == null) {
+            return;
+        }
+        writeAheadLog.replay(replayFrom, record -> {
+            User user = usersById.get(record.from());
+            User other = usersById.get(record.to());
+            if (record.type() == WriteAheadLog.RecordType.POST || user == null || other == null) {
+                return;
+            }
+            lockBoth(user.getId(), other.getId());
+            try {
+                if (record.type() == WriteAheadLog.RecordType.FOLLOW) {
+                    follow(user, other);
+                } else {
+                    unfollow(user, other);
+                }
+            } finally {
+                unlockBoth(user.getId(), other.getId());
+            }
+        });
     }
 
     /**
-     * Function that updates the followers of userToFollow and followed of user
+     * Function that updates the followers of userToFollow and followed of user.
+     * Both directions are updated while holding the locks of both users, so the check and the update
+     * are atomic and a concurrent follow of the same users can't be counted twice.
+     * When the write-ahead log is enabled, the follow is applied once its record is durable, so a follow
+     * that can't be logged is never seen (see WriteAheadLog); the log runs the changes of a pair one at a time.
      * @param user User who will follow
      * @param userToFollow User who will be followed
+     * @throws BadRequestException if user already follows userToFollow
      */
     @Override
     public void updateUserFollower(User user, User userToFollow) {
-        user.addFollowed(userToFollow.getId());
-        userToFollow.addFollower(user.getId());
+        if (writeAheadLog == null) {
+            changeFollow(user, userToFollow, true);
+            return;
+        }
+        writeAheadLog.logFollow(user.getId(), userToFollow.getId(),
+                () -> checkFollow(user, userToFollow, true), () -> changeFollow(user, userToFollow, true));
     }
 
     /**
-     * Updates the follower and followed by deleting
+     * Updates the follower and followed by deleting, atomically like updateUserFollower
      * @param user
      * @param userToFollow
-     * @return
+     * @throws BadRequestException if user doesn't follow userToFollow
      */
     @Override
     public void updateUserFollowerDelete(User user, User userToFollow){
-        user.deleteFollowed(userToFollow.getId());
+        if (writeAheadLog == null) {
+            changeFollow(user, userToFollow, false);
+            return;
+        }
+        writeAheadLog.logUnfollow(user.getId(), userToFollow.getId(),
+                () -> checkFollow(user, userToFollow, false), () -> changeFollow(user, userToFollow, false));
+    }
+
+    // Throws if the follow (add) or unfollow doesn't change the edge
+    private static void checkFollow(User user, User userToFollow, boolean add) {
+        lockBoth(user.getId(), userToFollow.getId());
+        try {
+            if (user.getFollowed().contains(userToFollow.getId().intValue()) == add) {
+                throw followError(userToFollow, add);
+            }
+        } finally {
+            unlockBoth(user.getId(), userToFollow.getId());
+        }
+    }
+
+    // Applies a follow (add) or unfollow under the locks of both users, or throws if it doesn't change the edge
+    private static void changeFollow(User user, User userToFollow, boolean add) {
+        lockBoth(user.getId(), userToFollow.getId());
+        try {
+            if (!(add ? follow(user, userToFollow) : unfollow(user, userToFollow))) {
+                throw followError(userToFollow, add);
+            }
+        } finally {
+            unlockBoth(user.getId(), userToFollow.getId());
+        }
+    }
+
+    private static BadRequestException followError(User userToFollow, boolean add) {
+        return new BadRequestException(add ? "User already followed"
+                : "You are not following this user: " + userToFollow.getId());
+    }
+
+    // Adds the follow in both directions, the stripes of both users must be held
+    private static boolean follow(User user, User userToFollow) {
+        if (!user.getFollowed().add(userToFollow.getId().intValue())) {
+            return false;
+        }
+        userToFollow.addFollower(user.getId());
+        if (sortedFollows != null) {
+            sortedFollows.follow(user.getId(), userToFollow.getId());
+        }
+        return true;
+    }
+
+    // Removes the follow in both directions, the stripes of both users must be held
+    private static boolean unfollow(User user, User userToFollow) {
+        if (!user.getFollowed().remove(userToFollow.getId().intValue())) {
+            return false;
+        }
         userToFollow.deleteFollower(user.getId());
+        if (sortedFollows != null) {
+            sortedFollows.unfollow(user.getId(), userToFollow.getId());
+        }
+        return true;
+    }
+
+    // Stripe of the locks that guards the follows of a user
+    private static int stripeOf(int userId) {
+        return (userId * 0x9E3779B9 >>> 16) & (LOCK_STRIPES.length - 1);
+    }
+
+    /**
+     * Locks the stripes of two users, lower stripe first, so two follows in opposite directions
+     * can't deadlock
+     */
+    private static void lockBoth(int firstId, int secondId) {
+        int first = stripeOf(firstId);
+        int second = stripeOf(secondId);
+        LOCK_STRIPES[Math.min(first, second)].lock();
+        if (first != second) {
+            LOCK_STRIPES[Math.max(first, second)].lock();
+        }
+    }
+
+    private static void unlockBoth(int firstId, int secondId) {
+        int first = stripeOf(firstId);
+        int second = stripeOf(secondId);
+        if (first != second) {
+            LOCK_STRIPES[Math.max(first, second)].unlock();
+        }
+        LOCK_STRIPES[Math.min(first, second)].unlock();
+    }
+
+    /**
+     * Returns the amount of followers of a user in constant time, the size kept by the follower set.
+     * The set only changes under the locks of the user, so the size is always the one of the edges.
+     * @param id id of the user
+     * @return the amount of followers, 0 if the user is unknown
+     */
+    @Override
+    public int countFollowers(Integer id) {
+        User user = findUserById(id);
+        return user == null ? 0 : user.getFollowers().size();
+    }
+
+    /**
+     * Returns the amount of users followed by a user in constant time
+     * @param id id of the user
+     * @return the amount of followed users, 0 if the user is unknown
+     */
+    @Override
+    public int countFollowed(Integer id) {
+        User user = findUserById(id);
+        return user == null ? 0 : user.getFollowed().size();
+    }
+
+    /**
+     * Checks if a user follows another one, under the stripe of the follower, so the answer is the
+     * last follow or unfollow of the pair
+     * @param id id of the follower
+     * @param followedId id of the followed user
+     * @return true if the edge exists, false if it doesn't or the follower is unknown
+     */
+    @Override
+    public boolean isFollowing(Integer id, Integer followedId) {
+        User user = findUserById(id);
+        if (user == null) {
+            return false;
+        }
+        ReentrantLock stripe = LOCK_STRIPES[stripeOf(id)];
+        stripe.lock();
+        try {
+            return user.getFollowed().contains(followedId.intValue());
+        } finally {
+            stripe.unlock();
+        }
     }
 
     /**
@@ -89,9 +330,7 @@ public class UserRepositoryImpl implements IUserRepository{
      */
     @Override
     public Optional<User> getUserById(int id) {
-        return listOfUsers.stream()
-                .filter(user -> user.getId().equals(id))
-                .findFirst();
+        return Optional.ofNullable(usersById.get(id));
     }
 
     /**
@@ -119,14 +358,16 @@ public class UserRepositoryImpl implements IUserRepository{
         User principalUser = optionalUser.orElseThrow(
                 () -> new NotFoundException("No se encontró el usuario con el ID proporcionado"));
 
-        List<User> followersList = new ArrayList();
-
         Set<Integer> followers = principalUser.getFollowers();
 
-        // Iterate over the followers and add them to the list in DTO format
+        List<User> followersList = new ArrayList<>(followers.size());
+
+        // Iterate over the followers and resolve each one from the index
         for (Integer miniId : followers) {
-            optionalUser = getUserById(miniId);
-            optionalUser.ifPresent(user -> followersList.add(user));
+            User user = usersById.get(miniId);
+            if (user != null) {
+                followersList.add(user);
+            }
         }
         return followersList;
     }
@@ -139,16 +380,123 @@ public class UserRepositoryImpl implements IUserRepository{
         User principalUser = optionalUser.orElseThrow(
                 () -> new NotFoundException("No se encontró el usuario con el ID proporcionado"));
 
-        List<User> followedList = new ArrayList();
-
         Set<Integer> followed = principalUser.getFollowed();
 
-        // Iterate over the followers and add them to the list in DTO format
+        List<User> followedList = new ArrayList<>(followed.size());
+
+        // Iterate over the followed and resolve each one from the index
         for (Integer miniId : followed) {
-            optionalUser = getUserById(miniId);
-            optionalUser.ifPresent(user -> followedList.add(user));
+            User user = usersById.get(miniId);
+            if (user != null) {
+                followedList.add(user);
+            }
         }
         return followedList;
     }
 
+    /**
+     * Returns a page of the followers of a user, ordered by id
+     * @param id id of the user
+     * @param afterId id of the last follower of the previous page, null for the first page
+     * @param limit maximum amount of followers
+     * @return the followers of the page
+     * @throws NotFoundException if the user doesn't exist
+     */
+    @Override
+    public List<User> getFollowersPage(Integer id, Integer afterId, int limit) {
+        return readPage(id, true, afterId, limit);
+    }
+
+    /**
+     * Returns a page of the users followed by a user, ordered by id
+     * @param id id of the user
+     * @param afterId id of the last followed user of the previous page, null for the first page
+     * @param limit maximum amount of followed users
+     * @return the followed users of the page
+     * @throws NotFoundException if the user doesn't exist
+     */
+    @Override
+    public List<User> getFollowedPage(Integer id, Integer afterId, int limit) {
+        return readPage(id, false, afterId, limit);
+    }
+
+    /**
+     * Returns a page of the followers of a user sorted by name, see readPageByName
+     * @param id id of the user
+     * @param ascending true for name_asc, false for name_desc
+     * @param afterId id of the last follower of the previous page, null for the first page
+     * @param limit maximum amount of followers
+     * @return the followers of the page
+     * @throws NotFoundException if the user doesn't exist
+     * @throws BadRequestException if the user of afterId doesn't exist
+     */
+    @Override
+    public List<User> getFollowersByName(Integer id, boolean ascending, Integer afterId, int limit) {
+        return readPageByName(id, true, ascending, afterId, limit);
+    }
+
+    /**
+     * Returns a page of the users followed by a user sorted by name, see getFollowersByName
+     */
+    @Override
+    public List<User> getFollowedByName(Integer id, boolean ascending, Integer afterId, int limit) {
+        return readPageByName(id, false, ascending, afterId, limit);
+    }
+
+    /**
+     * Reads a page of the followers or followed of a user sorted by name, in either direction: the cursor
+     * is searched in the name sorted list of the user (see SortedFollows), so a page costs O(log n + limit)
+     * and the whole list (limit Integer.MAX_VALUE) is a copy without a sort
+     */
+    private List<User> readPageByName(Integer id, boolean followers, boolean ascending, Integer afterId, int limit) {
+        checkUser(id);
+        if (afterId != null && !usersById.containsKey(afterId)) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        int[] ids;
+        ReentrantLock stripe = LOCK_STRIPES[stripeOf(id)];
+        stripe.lock();
+        try {
+            ids = sortedFollows.pageByName(id, followers, ascending, afterId, limit);
+        } finally {
+            stripe.unlock();
+        }
+        return resolve(ids);
+    }
+
+    private void checkUser(Integer id) {
+        if (!usersById.containsKey(id)) {
+            throw new NotFoundException("No se encontró el usuario con el ID proporcionado");
+        }
+    }
+
+    // Users of the given ids, in the same order
+    private List<User> resolve(int[] ids) {
+        List<User> users = new ArrayList<>(ids.length);
+        for (int userId : ids) {
+            User user = usersById.get(userId);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Reads a page of the followers or followed of a user ordered by id: the cursor is searched in the
+     * sorted list of the user (see SortedFollows) and only the ids of the page are copied and resolved
+     */
+    private List<User> readPage(Integer id, boolean followers, Integer afterId, int limit) {
+        checkUser(id);
+        int[] ids;
+        ReentrantLock stripe = LOCK_STRIPES[stripeOf(id)];
+        stripe.lock();
+        try {
+            ids = sortedFollows.pageById(id, followers, afterId, limit);
+        } finally {
+            stripe.unlock();
+        }
+        return resolve(ids);
+    }
+
 }
@@ -0,0 +1,612 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of the follows, unfollows and posts saved after the JSON files were loaded,
+ * replayed by the repositories on startup so those changes survive a restart.
+ * Each record is [length][type][payload][crc32]; a torn record at the end (a crash in the middle of a
+ * write) is detected by its length or checksum and cut off when the log is opened.
+ * Records are written by a single writer thread, which takes every record queued meanwhile and
+ * writes them with one fsync (group commit). The durability mode decides when a caller continues:
+ * SYNC - after its own fsync, one per record;
+ * BATCH - after the fsync of the group that contains its record;
+ * ASYNC - right away, the writer syncs at most once per second.
+ * The repositories change their data only once the record of the change is durable (see logFollow,
+ * logUnfollow and logPost with an apply action), so a change whose record fails is never seen and the
+ * request fails with nothing to undo. Changes of the same edge or post id are logged one at a time, so
+ * the check of a change still holds when it is applied. In ASYNC mode a change is applied right away and
+ * a failed write can't undo it, as a crash can't either.
+ * The offsets are never reused: the bytes of a failed group are overwritten by a padding record that the
+ * replay skips, so an offset read by a snapshot before the failure still points after the same records.
+ * The log is a list of segments: the first one is the file at socialmeli.wal.path and the next ones are
+ * named after it with the offset of their first byte (wal.log.1048576). A snapshot starts a new segment
+ * (rotate) and deletes the ones before it once it is written (truncate), so the log only keeps the
+ * records after the last snapshot. A segment is synced before the next one starts, so only the last one
+ * can end in a torn record and opening the log checks that one only.
+ * Enabled by setting socialmeli.wal.path.
+ */
+@Component
+@ConditionalOnProperty(name = "socialmeli.wal.path")
+public class WriteAheadLog {
+
+    public enum Durability { SYNC, BATCH, ASYNC }
+
+    // PADDING fills the bytes of a failed group and is never returned by replay
+    public enum RecordType { FOLLOW, UNFOLLOW, POST, PADDING }
+
+    /**
+     * A record read from the log. FOLLOW and UNFOLLOW have from and to, POST has post.
+     */
+    public record LogRecord(RecordType type, int from, int to, Post post) {
+    }
+
+    // Upper bound of the length of a record, a bigger length can only come from a torn write
+    private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+    // Records written together at most
+    private static final int MAX_BATCH = 1024;
+    private static final long ASYNC_SYNC_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // A record waiting for the writer, or the start of a segment at an offset when buffer is null
+    private record Pending(ByteBuffer buffer, long segment, CompletableFuture<Void> durable) {
+    }
+
+    private final Path path;
+    private final Durability durability;
+    // Segments by the offset of their first byte, see segmentPath
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    // Last segment, written by the writer thread only once the log is open
+    private FileChannel channel;
+    // Offset after the valid records found when the log was opened, the ones replayed
+    private final long replayEnd;
+    // Offset right after the last record queued and offset of the last segment queued, guarded by the queue
+    private long endOffset;
+    private long segmentOffset;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile boolean closed;
+    // Changes of an edge (follower and followed) or of a post id between their check and their apply
+    private final Map<Long, CompletableFuture<Void>> pendingEdges = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Void>> pendingPosts = new ConcurrentHashMap<>();
+    // Held shared from the record of a change until it is applied, and exclusively by endOffset
+    private final ReadWriteLock applying = new ReentrantReadWriteLock(true);
+
+    @Autowired
+    public WriteAheadLog(@Value("${socialmeli.wal.path}") String path,
+                         @Value("${socialmeli.wal.durability:batch}") String durability) throws IOException {
+        this(Path.of(path), Durability.valueOf(durability.toUpperCase()));
+    }
+
+    public WriteAheadLog(Path path, Durability durability) throws IOException {
+        this.path = path;
+        this.durability = durability;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        findSegments();
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        channel = FileChannel.open(last.getValue(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        long valid = scan(last.getValue(), 0, Long.MAX_VALUE, null);
+        // Drops a torn record left by a crash, new records are appended after the last valid one
+        channel.truncate(valid);
+        channel.position(valid);
+        segmentOffset = last.getKey();
+        replayEnd = segmentOffset + valid;
+        endOffset = replayEnd;
+        writer = new Thread(() -> writeLoop(valid), "write-ahead-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Finds the segments left by the previous runs, a new log is a single empty segment at offset 0
+    private void findSegments() throws IOException {
+        if (Files.exists(path)) {
+            segments.put(0L, path);
+        }
+        String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path.toAbsolutePath().getParent(),
+                file -> file.getFileName().toString().startsWith(prefix))) {
+            for (Path file : files) {
+                String offset = file.getFileName().toString().substring(prefix.length());
+                if (offset.matches("[0-9]+")) {
+                    segments.put(Long.parseLong(offset), file);
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, path);
+        }
+    }
+
+    // File of the segment that starts at an offset
+    private Path segmentPath(long offset) {
+        return offset == 0 ? path : path.resolveSibling(path.getFileName() + "." + offset);
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Queues a follow
+     * @return a future completed once the record is durable, see await
+     */
+    public CompletableFuture<Void> logFollow(int from, int to) {
+        return append(RecordType.FOLLOW, ByteBuffer.allocate(8).putInt(from).putInt(to).array());
+    }
+
+    /**
+     * Queues an unfollow
+     * @return a future completed once the record is durable, see await
+     */
+    public CompletableFuture<Void> logUnfollow(int from, int to) {
+        return append(RecordType.UNFOLLOW, ByteBuffer.allocate(8).putInt(from).putInt(to).array());
+    }
+
+    /**
+     * Queues a new post
+     * @return a future completed once the record is durable, see await
+     */
+    public CompletableFuture<Void> logPost(Post post) {
+        try {
+            return append(RecordType.POST, objectMapper.writeValueAsBytes(post));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Logs a follow and applies it once it is durable
+     * @param check throws if the follow is not valid, runs before logging while no other change of the edge runs
+     * @param apply changes the data, runs only if the record was written
+     * @throws UncheckedIOException if the record couldn't be written, the follow is not applied
+     */
+    public void logFollow(int from, int to, Runnable check, Runnable apply) {
+        logAndApply(pendingEdges, edgeKey(from, to), check, () -> logFollow(from, to), apply);
+    }
+
+    /**
+     * Logs an unfollow and applies it once it is durable, see logFollow
+     */
+    public void logUnfollow(int from, int to, Runnable check, Runnable apply) {
+        logAndApply(pendingEdges, edgeKey(from, to), check, () -> logUnfollow(from, to), apply);
+    }
+
+    /**
+     * Logs a new post and applies it once it is durable, see logFollow
+     */
+    public void logPost(Post post, Runnable check, Runnable apply) {
+        logAndApply(pendingPosts, post.getId(), check, () -> logPost(post), apply);
+    }
+
+    private void logAndApply(Map<Long, CompletableFuture<Void>> pending, long key, Runnable check,
+                             Supplier<CompletableFuture<Void>> log, Runnable apply) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> previous;
+        while ((previous = pending.putIfAbsent(key, done)) != null) {
+            previous.join();
+        }
+        try {
+            check.run();
+            applying.readLock().lock();
+            try {
+                await(log.get());
+                apply.run();
+            } finally {
+                applying.readLock().unlock();
+            }
+        } finally {
+            pending.remove(key);
+            done.complete(null);
+        }
+    }
+
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Waits until a record is durable as required by the durability mode.
+     * Called after releasing the locks held to queue the record, so other records can join its group.
+     * @param durable the future returned when the record was queued
+     * @throws UncheckedIOException if the record couldn't be written
+     */
+    public void await(CompletableFuture<Void> durable) {
+        if (durability == Durability.ASYNC) {
+            return;
+        }
+        try {
+            durable.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-ahead log", e);
+        } catch (Exception e) {
+            throw new UncheckedIOException(new IOException("Write-ahead log failed", e.getCause()));
+        }
+    }
+
+    private CompletableFuture<Void> append(RecordType type, byte[] payload) {
+        int length = 1 + payload.length;
+        CRC32 crc = new CRC32();
+        crc.update(type.ordinal());
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length + 4)
+                .putInt(length).put((byte) type.ordinal()).put(payload).putInt((int) crc.getValue());
+        buffer.flip();
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        // Checked under the same lock as close, so the writer doesn't stop with records in the queue
+        synchronized (queue) {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            // Added before queueing, the writer may drain the buffer as soon as it is in the queue
+            endOffset += buffer.remaining();
+            queue.add(new Pending(buffer, -1, durable));
+        }
+        return durable;
+    }
+
+    /**
+     * Returns the offset right after the last record queued. Every record queued before the call is
+     * below it and already applied (the call waits for the changes between their record and their apply),
+     * so a snapshot of the data taken after the call only needs the records from this offset.
+     * @return the offset in bytes from the start of the log
+     */
+    public long endOffset() {
+        applying.writeLock().lock();
+        try {
+            synchronized (queue) {
+                return endOffset;
+            }
+        } finally {
+            applying.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts a new segment at the end of the log, so the segments before it can be deleted once a snapshot
+     * has every record in them (see truncate). The segment is started by the writer after the records
+     * queued before the call.
+     * @return the offset of the new segment, with the same guarantees as endOffset
+     */
+    public long rotate() {
+        applying.writeLock().lock();
+        try {
+            synchronized (queue) {
+                if (endOffset != segmentOffset) {
+                    startSegment(endOffset);
+                }
+                return endOffset;
+            }
+        } finally {
+            applying.writeLock().unlock();
+        }
+    }
+
+    // Queues the start of a segment, the queue must be locked
+    private void startSegment(long offset) {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        queue.add(new Pending(null, offset, new CompletableFuture<>()));
+        segmentOffset = offset;
+        endOffset = offset;
+    }
+
+    /**
+     * Deletes the segments whose records are all before an offset, the oldest first. The last segment
+     * is kept, and so is a segment the writer hasn't started yet: its records are in the one before it.
+     * @param offset offset returned by rotate, every record before it is in a snapshot
+     */
+    public void truncate(long offset) throws IOException {
+        for (Map.Entry<Long, Path> segment : segments.headMap(offset).entrySet()) {
+            Long next = segments.higherKey(segment.getKey());
+            if (next == null || next > offset) {
+                break;
+            }
+            Files.deleteIfExists(segment.getValue());
+            segments.remove(segment.getKey());
+        }
+    }
+
+    /**
+     * Reads the records written before the log was opened, in order
+     * @param consumer receives each record
+     */
+    public void replay(Consumer<LogRecord> consumer) throws IOException {
+        replay(0, consumer);
+    }
+
+    /**
+     * Reads the records written before the log was opened, starting at an offset returned by endOffset
+     * or rotate. The segments before the one of the offset are not read.
+     * @param fromOffset offset of the first record to read, records before it are skipped without decoding
+     * @param consumer receives each record
+     */
+    public void replay(long fromOffset, Consumer<LogRecord> consumer) throws IOException {
+        if (fromOffset < 0) {
+            throw new IllegalArgumentException("Invalid offset: " + fromOffset);
+        }
+        if (fromOffset > replayEnd) {
+            // A snapshot newer than the log, whose last records were lost in a crash (ASYNC): the next
+            // records go to a segment at the offset of the snapshot, so the next replay doesn't skip them
+            synchronized (queue) {
+                if (fromOffset > endOffset) {
+                    startSegment(fromOffset);
+                }
+            }
+            return;
+        }
+        for (Map.Entry<Long, Path> segment : segments.headMap(replayEnd).entrySet()) {
+            Long next = segments.higherKey(segment.getKey());
+            long end = next == null || next > replayEnd ? replayEnd : next;
+            if (end > fromOffset) {
+                scan(segment.getValue(), Math.max(0, fromOffset - segment.getKey()), end - segment.getKey(), consumer);
+            }
+        }
+    }
+
+    /**
+     * Reads the valid records of a segment
+     * @param from position of the first record in the file
+     * @param limit position where the reading stops
+     * @param consumer receives each record, null to only check them
+     * @return the position after the last valid record read
+     */
+    private long scan(Path file, long from, long limit, Consumer<LogRecord> consumer) throws IOException {
+        limit = Math.min(limit, Files.size(file));
+        if (from >= limit) {
+            return from;
+        }
+        long valid = from;
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            in.skipNBytes(from);
+            while (valid < limit) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 1 || length > MAX_RECORD_LENGTH) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                int crcValue;
+                try {
+                    in.readFully(body);
+                    crcValue = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != crcValue || body[0] < 0 || body[0] >= RecordType.values().length) {
+                    break;
+                }
+                if (consumer != null && body[0] != RecordType.PADDING.ordinal()) {
+                    consumer.accept(decode(body));
+                }
+                valid += 4 + length + 4;
+            }
+        }
+        return valid;
+    }
+
+    private LogRecord decode(byte[] body) throws IOException {
+        RecordType type = RecordType.values()[body[0]];
+        if (type == RecordType.POST) {
+            Post post = objectMapper.readValue(body, 1, body.length - 1, Post.class);
+            return new LogRecord(type, 0, 0, post);
+        }
+        ByteBuffer payload = ByteBuffer.wrap(body, 1, body.length - 1);
+        return new LogRecord(type, payload.getInt(), payload.getInt(), null);
+    }
+
+    /**
+     * Writes the queued records, one fsync per group (per record in SYNC mode)
+     * @param position position of the end of the last segment when the log was opened
+     */
+    private void writeLoop(long position) {
+        long lastSync = System.nanoTime();
+        // Records written and not synced yet, only in ASYNC mode
+        boolean unsynced = false;
+        // Position in the last segment after the last group written completely, a failed group is padded from it
+        long goodPosition = position;
+        // Set when a failed group couldn't be padded, the next records would follow a torn one
+        IOException broken = null;
+        List<Pending> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            // Records of the batch completed, the ones after them fail if the batch fails
+            int completed = 0;
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // An idle tail is synced too, so ASYNC loses at most one interval of records
+                    if (unsynced && System.nanoTime() - lastSync >= ASYNC_SYNC_INTERVAL_NANOS) {
+                        unsynced = false;
+                        channel.force(false);
+                        lastSync = System.nanoTime();
+                    }
+                    continue;
+                }
+                batch.add(first);
+                if (durability != Durability.SYNC) {
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                }
+                if (broken != null) {
+                    throw broken;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    Pending pending = batch.get(i);
+                    if (pending.buffer() != null) {
+                        write(pending.buffer());
+                        continue;
+                    }
+                    // The records before a new segment are synced in the old one
+                    channel.force(false);
+                    lastSync = System.nanoTime();
+                    unsynced = false;
+                    for (; completed < i; completed++) {
+                        batch.get(completed).durable().complete(null);
+                    }
+                    openSegment(pending.segment());
+                    goodPosition = 0;
+                    pending.durable().complete(null);
+                    completed++;
+                }
+                if (durability != Durability.ASYNC || System.nanoTime() - lastSync >= ASYNC_SYNC_INTERVAL_NANOS) {
+                    channel.force(false);
+                    lastSync = System.nanoTime();
+                    unsynced = false;
+                } else {
+                    unsynced = true;
+                }
+                goodPosition = channel.position();
+                batch.subList(completed, batch.size()).forEach(pending -> pending.durable().complete(null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                List<Pending> failed = batch.subList(completed, batch.size());
+                if (broken == null && !failed.isEmpty()) {
+                    long padded = pad(goodPosition, failed);
+                    if (padded < 0) {
+                        broken = e;
+                    } else {
+                        goodPosition = padded;
+                    }
+                }
+                failed.forEach(pending -> pending.durable().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Writes a record to the file, overridden by the tests to make a write fail
+    void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Syncs the last segment and continues the log in a new one, run by the writer
+    private void openSegment(long offset) throws IOException {
+        Path file = segmentPath(offset);
+        FileChannel previous = channel;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        segments.put(offset, file);
+        try {
+            previous.close();
+        } catch (IOException e) {
+            // The previous segment is synced already, nothing is lost
+        }
+    }
+
+    /**
+     * Overwrites the bytes of a failed group with padding records and syncs them, so the next records
+     * are written at the offsets given to them when they were queued and the replay reads past the group.
+     * The segments started in the group are started as well.
+     * @return the position in the last segment after the padding, or -1 if it couldn't be written
+     */
+    private long pad(long goodPosition, List<Pending> failed) {
+        try {
+            channel.position(goodPosition);
+            long remaining = 0;
+            for (Pending pending : failed) {
+                if (pending.buffer() != null) {
+                    remaining += pending.buffer().limit();
+                    continue;
+                }
+                writePadding(remaining);
+                remaining = 0;
+                channel.force(false);
+                openSegment(pending.segment());
+                pending.durable().complete(null);
+            }
+            writePadding(remaining);
+            channel.force(false);
+            return channel.position();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Writes padding records of the given length in total
+    private void writePadding(long remaining) throws IOException {
+        // Every record has more than the 4 + 1 + 4 bytes of an empty padding record, and a long
+        // group is split so no padding record is longer than a record can be
+        while (remaining > 0) {
+            long bytes = remaining;
+            if (bytes > MAX_RECORD_LENGTH) {
+                bytes = remaining - MAX_RECORD_LENGTH < 9 ? MAX_RECORD_LENGTH - 9 : MAX_RECORD_LENGTH;
+            }
+            byte[] body = new byte[(int) bytes - 8];
+            body[0] = (byte) RecordType.PADDING.ordinal();
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            ByteBuffer padding = ByteBuffer.allocate((int) bytes)
+                    .putInt(body.length).put(body).putInt((int) crc.getValue());
+            padding.flip();
+            while (padding.hasRemaining()) {
+                channel.write(padding);
+            }
+            remaining -= bytes;
+        }
+    }
+
+    /**
+     * Writes the records still queued, syncs and closes the file
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (queue) {
+            closed = true;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.force(false);
+        channel.close();
+    }
+}
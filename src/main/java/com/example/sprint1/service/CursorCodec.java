@@ -0,0 +1,45 @@
+package com.example.sprint1.service;
+
+import com.example.sprint1.exception.BadRequestException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Encodes the position of the last item of a page into the opaque cursor returned to the client.
+ * The position is a keyset value (the key of the last post, or the id of the last user),
+ * so the next page starts right after it no matter what was added or removed meanwhile.
+ */
+public final class CursorCodec {
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Encodes a position into a cursor
+     * @param position the position of the last item of the page
+     * @return the cursor
+     */
+    public static String encode(long position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(position).array());
+    }
+
+    /**
+     * Decodes a cursor returned by encode
+     * @param cursor the cursor
+     * @return the position of the last item of the previous page
+     * @throws BadRequestException if the cursor is not valid
+     */
+    public static long decode(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+}
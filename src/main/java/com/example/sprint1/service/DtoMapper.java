@@ -0,0 +1,103 @@
+package com.example.sprint1.service;
+
+import com.example.sprint1.dto.FollowerUsersDto;
+import com.example.sprint1.dto.PostDto;
+import com.example.sprint1.dto.PostForListDto;
+import com.example.sprint1.dto.PostPromoDto;
+import com.example.sprint1.dto.ProductDto;
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import com.example.sprint1.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Converters between the entities and the DTOs of the API, used by every service.
+ * Each converter copies the fields with plain getters and setters: no reflection and no round trip
+ * through a JSON token buffer as ObjectMapper.convertValue does, and only the DTO itself is allocated.
+ * The products of the posts are immutable once saved, so the list DTOs share them instead of copying.
+ */
+public final class DtoMapper {
+
+    private DtoMapper() {
+    }
+
+    /**
+     * Converts a post received from the API to the entity to save. The date is parsed here, only once,
+     * and kept in the entity as an epoch day. A PostPromoDto keeps its promo and discount, any other
+     * post has no promo.
+     * @param postDto the post received
+     * @return the entity
+     * @throws IllegalArgumentException if the date doesn't have the dd-MM-yyyy format
+     */
+    public static Post toPost(PostDto postDto) {
+        Post post = new Post();
+        post.setId(postDto.getId());
+        post.setUser_id(postDto.getUser_id());
+        try {
+            post.setDate(postDto.getDate());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Date format is invalid, should be 'dd-MM-yyyy'");
+        }
+        post.setCategory(postDto.getCategory());
+        post.setPrice(postDto.getPrice());
+        post.setProduct(postDto.getProduct() == null ? null : toProduct(postDto.getProduct()));
+        if (postDto instanceof PostPromoDto promoDto) {
+            post.setHas_promo(Boolean.TRUE.equals(promoDto.getHas_promo()));
+            post.setDiscount(promoDto.getDiscount());
+        } else {
+            // Promociones y descuentos se manejan por separado
+            post.setHas_promo(false);
+            post.setDiscount(0.0);
+        }
+        return post;
+    }
+
+    public static Product toProduct(ProductDto productDto) {
+        return new Product(productDto.getId(), productDto.getProduct_name(), productDto.getType(),
+                productDto.getBrand(), productDto.getColor(), productDto.getNotes());
+    }
+
+    public static ProductDto toProductDto(Product product) {
+        return new ProductDto(product.getId(), product.getProduct_name(), product.getType(),
+                product.getBrand(), product.getColor(), product.getNotes());
+    }
+
+    public static PostForListDto toPostForListDto(Post post) {
+        return new PostForListDto(post.getId(), post.getUser_id(), post.getDate(), post.getCategory(),
+                post.getPrice(), post.getProduct());
+    }
+
+    public static PostPromoDto toPostPromoDto(Post post) {
+        PostPromoDto postDto = new PostPromoDto();
+        postDto.setId(post.getId());
+        postDto.setUser_id(post.getUser_id());
+        postDto.setDate(post.getDate());
+        postDto.setCategory(post.getCategory());
+        postDto.setPrice(post.getPrice());
+        postDto.setProduct(post.getProduct() == null ? null : toProductDto(post.getProduct()));
+        postDto.setHas_promo(post.isHas_promo());
+        postDto.setDiscount(post.getDiscount());
+        return postDto;
+    }
+
+    public static FollowerUsersDto toFollowerUsersDto(User user) {
+        return new FollowerUsersDto(user.getId(), user.getUser_name());
+    }
+
+    /**
+     * Converts every element of a list, in order, into a list of the exact size
+     * @param values the elements to convert
+     * @param converter one of the converters of this class
+     * @return the converted elements
+     */
+    public static <T, R> List<R> mapAll(List<T> values, Function<? super T, ? extends R> converter) {
+        List<R> mapped = new ArrayList<>(values.size());
+        for (T value : values) {
+            mapped.add(converter.apply(value));
+        }
+        return mapped;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.sprint1.service;
+
+import com.example.sprint1.model.Post;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Builds a feed from several sources of posts that are already sorted in the same order.
+ * It is a k-way merge over a heap that holds the head of each source, so getting the first
+ * limit posts costs O(limit * log k) and the rest of every source is never visited.
+ */
+public final class FeedMerger {
+
+    private FeedMerger() {
+    }
+
+    /**
+     * Merges the given sources into a single list sorted by the given order.
+     * @param sources - Iterators over posts, each one sorted by order.
+     * @param order - The order of the sources and of the result.
+     * @param limit - The maximum amount of posts to return.
+     * @return List<Post> - Up to limit posts from all the sources, sorted by order.
+     */
+    public static List<Post> merge(List<Iterator<Post>> sources, Comparator<Post> order, int limit) {
+        PriorityQueue<Head> heap = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> order.compare(a.post, b.post));
+        for (Iterator<Post> source : sources) {
+            if (source.hasNext()) {
+                heap.add(new Head(source.next(), source));
+            }
+        }
+
+        List<Post> merged = new ArrayList<>(Math.min(limit, 64));
+        while (merged.size() < limit && !heap.isEmpty()) {
+            Head head = heap.poll();
+            merged.add(head.post);
+            // Reuses the node of the heap for the next post of the same source
+            if (head.source.hasNext()) {
+                head.post = head.source.next();
+                heap.add(head);
+            }
+        }
+        return merged;
+    }
+
+    // Current post of a source inside the heap
+    private static final class Head {
+        private Post post;
+        private final Iterator<Post> source;
+
+        private Head(Post post, Iterator<Post> source) {
+            this.post = post;
+            this.source = source;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.sprint1.service;
 
+import com.example.sprint1.dto.FollowedPostListDto;
 import com.example.sprint1.dto.PostDto;
 import com.example.sprint1.dto.PostForListDto;
+import com.example.sprint1.dto.PostPromoDto;
+import com.example.sprint1.dto.PostStatsDto;
+import com.example.sprint1.dto.PromoPostDto;
+import com.example.sprint1.dto.PromoPostListDto;
 import com.example.sprint1.model.Post;
 import java.util.List;
 
@@ -14,9 +19,20 @@ public interface IPostService {
 
     List<PostForListDto> selectIfOrderFollowedList(Integer userId , String order);
 
-    Object postPromo(PostDto postDto);
+    List<PostForListDto> selectIfOrderFollowedList(Integer userId , String order, Integer days, Integer limit);
 
-    Object quantityPromo(Integer user_id);
+    FollowedPostListDto getFollowedPostPage(Integer userId, String order, Integer days, Integer limit, String cursor);
 
-    Object getPromo(Integer user_id);
+    PostPromoDto postPromo(PostPromoDto postDto);
+
+    PromoPostDto quantityPromo(Integer user_id);
+
+    PromoPostListDto getPromo(Integer user_id);
+
+    PostStatsDto getPostStats(Integer userId, Integer category, Integer days);
+
+    List<Post> searchPosts(Integer userId, String dateFrom, String dateTo, Integer category,
+                           Double priceMin, Double priceMax, Boolean hasPromo, Integer limit);
+
+    List<Post> searchPostsByText(String text, Integer limit);
 }
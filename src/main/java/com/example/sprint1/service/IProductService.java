@@ -1,6 +1,7 @@
 package com.example.sprint1.service;
 
 import com.example.sprint1.dto.PostDto;
+import com.example.sprint1.dto.PostPromoDto;
 
 public interface IProductService {
     Object addPost(PostDto postDto);
@@ -9,7 +10,7 @@ public interface IProductService {
 
     Object followedList(Integer userId);
 
-    Object postPromo(PostDto postDto);
+    Object postPromo(PostPromoDto postDto);
 
     Object quantityPromo(Integer user_id);
 
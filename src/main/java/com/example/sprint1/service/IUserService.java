@@ -18,6 +18,10 @@ public interface IUserService {
 
     FollowListDto getFollowedList(Integer userId, String order);
 
+    FollowListDto getFollowerList(Integer userId, String order, Integer limit, String cursor);
+
+    FollowListDto getFollowedList(Integer userId, String order, Integer limit, String cursor);
+
     void setUnfollow(Integer userId, Integer userIdToUnfollow);
 
     List<User> getUsers();
@@ -0,0 +1,26 @@
+package com.example.sprint1.service;
+
+import com.example.sprint1.dto.PostForListDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Writes the posts of the feeds and lists in the responses with the JSON cached by PostJsonCache,
+ * instead of serializing each post field by field in every response that has it
+ */
+@JsonComponent
+public class PostForListDtoSerializer extends JsonSerializer<PostForListDto> {
+
+    @Autowired
+    PostJsonCache postJsonCache;
+
+    @Override
+    public void serialize(PostForListDto post, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeRawValue(postJsonCache.get(post));
+    }
+}
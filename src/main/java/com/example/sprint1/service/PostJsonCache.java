@@ -0,0 +1,150 @@
+package com.example.sprint1.service;
+
+import com.example.sprint1.dto.PostForListDto;
+import com.example.sprint1.util.JsonFragment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JSON of the posts in the lists (PostForListDto) serialized once, as UTF-8 bytes, and written as is
+ * in every feed and list that has the post (see PostForListDtoSerializer).
+ * A post is cached when it is created and, after an eviction or a restart, the first time it is listed.
+ * Each entry keeps the fields it was serialized from and a read only uses it when the post being
+ * written has the same fields, otherwise the post is serialized again and replaces the entry, so a
+ * changed post, or another one with the same id, is never written with a stale JSON. The check
+ * doesn't decode the product: Product compares its dictionary codes and its encoded notes, and the
+ * heap store shares the same Product, so there it is a comparison of references. The mapped store
+ * builds a new Product per read, so a hit compares the bytes of the notes once.
+ * The memory is bounded by the bytes of the JSON plus a fixed overhead per post. Past the limit the
+ * posts are evicted with the clock algorithm: a read only marks the post as used, and the eviction
+ * walks the posts in insertion order, gives the used ones a second chance and drops the first unused
+ * one. Reads don't lock, only the eviction does.
+ */
+@Component
+public class PostJsonCache {
+
+    // Map entry, queue node, the fragment and the copy of the post, approximately
+    static final int ENTRY_OVERHEAD = 192;
+
+    // Plain mapper, the one of the responses writes the posts with this cache
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Maximum bytes of the cached posts, 0 disables the cache
+    @Value("${socialmeli.posts.json-cache.max-bytes:16777216}")
+    private long maxBytes = 16L << 20;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    // Clock order of the entries, it may have entries already replaced
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytes = new AtomicLong();
+
+    private static final class Entry {
+        final Integer postId;
+        // Fields the JSON was serialized from
+        final PostForListDto post;
+        final JsonFragment json;
+        volatile boolean used;
+
+        Entry(PostForListDto post, JsonFragment json) {
+            this.postId = post.getId();
+            this.post = new PostForListDto(post.getId(), post.getUser_id(), post.getDate(), post.getCategory(),
+                    post.getPrice(), post.getProduct());
+            this.json = json;
+        }
+
+        long weight() {
+            return json.byteLength() + ENTRY_OVERHEAD;
+        }
+    }
+
+    public PostJsonCache() {
+    }
+
+    PostJsonCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the JSON of a post, serializing and caching it if it isn't cached or the cached one was
+     * serialized from different fields
+     * @param post the post
+     * @return the JSON of the post
+     */
+    public JsonFragment get(PostForListDto post) {
+        Entry entry = post.getId() == null ? null : entries.get(post.getId());
+        if (entry == null || !entry.post.equals(post)) {
+            return put(post);
+        }
+        if (!entry.used) {
+            entry.used = true;
+        }
+        return entry.json;
+    }
+
+    /**
+     * Serializes a post and caches its JSON, replacing the one cached for the same id
+     * @param post the post, built from the saved post
+     * @return the JSON of the post
+     */
+    public JsonFragment put(PostForListDto post) {
+        JsonFragment json = serialize(post);
+        if (post.getId() == null || json.byteLength() + ENTRY_OVERHEAD > maxBytes) {
+            return json;
+        }
+        Entry entry = new Entry(post, json);
+        Entry previous = entries.put(entry.postId, entry);
+        if (previous != null) {
+            bytes.addAndGet(-previous.weight());
+        }
+        clock.add(entry);
+        if (bytes.addAndGet(entry.weight()) > maxBytes) {
+            evict();
+        }
+        return json;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long sizeInBytes() {
+        return bytes.get();
+    }
+
+    // Moves the clock hand until the cached posts fit in the limit
+    private synchronized void evict() {
+        while (bytes.get() > maxBytes) {
+            Entry entry = clock.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entries.get(entry.postId) != entry) {
+                // Replaced, its bytes were already subtracted
+                continue;
+            }
+            if (entry.used) {
+                entry.used = false;
+                clock.add(entry);
+            } else if (entries.remove(entry.postId, entry)) {
+                bytes.addAndGet(-entry.weight());
+            }
+        }
+    }
+
+    private static JsonFragment serialize(PostForListDto post) {
+        try {
+            return new JsonFragment(MAPPER.writeValueAsBytes(post));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
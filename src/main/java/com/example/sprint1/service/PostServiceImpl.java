@@ -1,6 +1,11 @@
 package com.example.sprint1.service;
 
+import com.example.sprint1.dto.FollowedPostListDto;
 import com.example.sprint1.dto.PostDto;
+import com.example.sprint1.dto.PostPromoDto;
+import com.example.sprint1.dto.PostStatsDto;
+import com.example.sprint1.dto.PromoPostDto;
+import com.example.sprint1.dto.PromoPostListDto;
 import com.example.sprint1.dto.ProductDto;
 import com.example.sprint1.exception.AlreadyInUseException;
 import com.example.sprint1.model.Post;
@@ -10,13 +15,19 @@ import com.example.sprint1.repository.IPostRepository;
 import com.example.sprint1.dto.PostForListDto;
 import com.example.sprint1.exception.BadRequestException;
 import com.example.sprint1.exception.NotFoundException;
+import com.example.sprint1.repository.ITimelineRepository;
 import com.example.sprint1.repository.IUserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.sprint1.repository.PostColumns;
+import com.example.sprint1.repository.PostRepositoryImpl;
+import com.example.sprint1.repository.PostSearchIndex;
+import com.example.sprint1.repository.Timeline;
+import com.example.sprint1.util.IntSet;
+import com.example.sprint1.util.TextTokenizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -25,6 +36,12 @@ public class PostServiceImpl implements IPostService {
 
     private static List<Post> posts = new ArrayList<>();
 
+    // Size of a page of the followed list when the client doesn't send one
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    // Order of the posts in the repository by author: by date and then by id, oldest first
+    private static final Comparator<Post> BY_DATE = Comparator.comparingInt(Post::getEpochDay).thenComparingInt(Post::getId);
+
     @Autowired
     private IPostRepository postRepository;
 
@@ -34,6 +51,12 @@ public class PostServiceImpl implements IPostService {
     @Autowired
     private IUserService userService;
 
+    @Autowired
+    private ITimelineRepository timelineRepository;
+
+    @Autowired
+    private PostJsonCache postJsonCache;
+
     /**
      * US 0005 - Adds a new post to the repository
      * @param postDto - The DTO containing all necessary data to create a post.
@@ -42,14 +65,42 @@ public class PostServiceImpl implements IPostService {
     @Override
     public PostDto addPost(PostDto postDto) {
         validatePostDto(postDto);
-        Post post = convertDtoToEntity(postDto);
+        Post post = DtoMapper.toPost(postDto);
         if (postRepository.findById(post.getId()) != null) {
             throw new AlreadyInUseException("A post with this ID already exists.");
         }
         postRepository.save(post);
+        postJsonCache.put(DtoMapper.toPostForListDto(post));
+        pushToFollowers(post);
         return postDto;
     }
 
+    /**
+     * Fan-out on write: adds a new post to the timelines of the followers of its author.
+     * Followers that haven't built their timeline yet are skipped, it will be built on their first read.
+     * Authors with more followers than the pull threshold are marked as pull sellers instead,
+     * and their posts are read when the feed is read.
+     * A follower may unfollow the author after its followers were read and purge its timeline before the
+     * push, so the edge is checked again after the push and the posts of the author are removed if it's gone.
+     * @param post - The post that was saved.
+     */
+    private void pushToFollowers(Post post) {
+        User author = userRepository.findUserById(post.getUser_id());
+        if (author == null) {
+            return;
+        }
+        if (author.getCountFollowers() > timelineRepository.getPullThreshold()) {
+            timelineRepository.markPullSeller(author.getId());
+            return;
+        }
+        for (Integer followerId : author.getFollowers()) {
+            Timeline timeline = timelineRepository.push(followerId, post);
+            if (timeline != null && !userRepository.isFollowing(followerId, author.getId())) {
+                timeline.removeAuthor(author.getId());
+            }
+        }
+    }
+
     @Override
     public List<Post> findAll() {
         return postRepository.findAll();
@@ -64,77 +115,60 @@ public class PostServiceImpl implements IPostService {
      * This method is used internally by the addPost method to ensure all required data is valid
      * before proceeding with post creation.
      * @param postDto - The PostDto object containing the data to validate.
-     * @throws IllegalArgumentException - If any validation fails.
+     * @throws BadRequestException - If the post has no id.
+     * @throws IllegalArgumentException - If any other validation fails.
      */
     private void validatePostDto(PostDto postDto) {
+        if (postDto.getId() == null) {
+            throw new BadRequestException("Post ID must not be null");
+        }
         if (postDto.getUser_id() == null || postDto.getProduct() == null) {
             throw new IllegalArgumentException("User ID and Product must not be null");
         }
         if (postDto.getPrice() < 0) {
             throw new IllegalArgumentException("Price must be positive");
         }
-        try {
-            LocalDate.parse(postDto.getDate(), DateTimeFormatter.ofPattern("dd-MM-yyyy"));
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Date format is invalid, should be 'dd-MM-yyyy'");
-        }
     }
 
     /**
-     * This method is used internally by the addPost method to convert the DTO received from the API
-     * into the entity model for the database.
-     * Converts a PostDto to a Post entity. This includes mapping all necessary fields from the DTO to the entity.
-     * @param postDto - The PostDto to be converted.
-     * @return Post - The Post entity ready to be saved to the repository.
+     * Req. US0006 - US0009
+     * This method is used to check which metod is called by the controller.
+     * It calls the followedList method or selectIforderFollowedList to obtain the list of followed posts and then sorts if required it by date.
+     * @param userId, order - The userId of the user and the order of the list.
+     * @return List<PostForListDto> - The list of posts sorted by date.
      */
-    private Post convertDtoToEntity(PostDto postDto) {
-        Post post = new Post();
-        post.setId(postDto.getId());
-        post.setUser_id(postDto.getUser_id());
-        System.out.println("ID: " + postDto.getId() + ", Tipo de dato: " + postDto.getId().getClass());
-        System.out.println("User ID: " + postDto.getUser_id() + ", Tipo de dato: " + postDto.getUser_id().getClass());
-        post.setDate(postDto.getDate());
-        System.out.println("Fecha: " + postDto.getDate() + ", Tipo de dato: " + postDto.getDate().getClass());
-        post.setCategory(postDto.getCategory());
-        System.out.println("Categoría: " + postDto.getCategory() + ", Tipo de dato: " + postDto.getCategory().getClass());
-        post.setPrice(postDto.getPrice());
-        System.out.println("Precio: " + postDto.getPrice() + ", Tipo de dato: " + postDto.getPrice().getClass());
-
-        post.setProduct(convertProductDtoToEntity(postDto.getProduct()));
-        System.out.println("Producto: " + postDto.getProduct() + ", Tipo de dato: " + postDto.getProduct().getClass());
-        post.setHas_promo(false);  // Promociones y descuentos se manejan por separado
-        System.out.println("Tiene promoción: " + post.isHas_promo() + ", Tipo de dato: " + Boolean.TYPE);
-        post.setDiscount(0.0);
-        return post;
-    }
-
-    private Product convertProductDtoToEntity(ProductDto productDto) {
-        Product product = new Product();
-        product.setId(productDto.getId());
-        product.setProduct_name(productDto.getProduct_name());
-        product.setType(productDto.getType());
-        product.setBrand(productDto.getBrand());
-        product.setColor(productDto.getColor());
-        product.setNotes(productDto.getNotes());
-
-        return product;
+    @Override
+    public List<PostForListDto> selectIfOrderFollowedList(Integer userId , String order){
+        return selectIfOrderFollowedList(userId, order, null, null);
     }
 
-
     /**
      * Req. US0006 - US0009
-     * This method is used to check which metod is called by the controller.
-     * It calls the followedList method or selectIforderFollowedList to obtain the list of followed posts and then sorts if required it by date.
+     * Same as selectIfOrderFollowedList(userId, order) but with a configurable window of days and a maximum size.
      * @param userId, order - The userId of the user and the order of the list.
+     * @param days - Size of the window in days, two weeks if null.
+     * @param limit - Maximum amount of posts to return, all the posts of the window if null.
      * @return List<PostForListDto> - The list of posts sorted by date.
      */
     @Override
-    public List<PostForListDto> selectIfOrderFollowedList(Integer userId , String order){
+    public List<PostForListDto> selectIfOrderFollowedList(Integer userId , String order, Integer days, Integer limit){
+        // Check the value of the 'days' parameter.
+        if(days==null){
+            days = PostRepositoryImpl.RECENT_POSTS_DAYS;
+        }else if(days<=0){
+            throw new BadRequestException("Invalid days: " + days);
+        }
+        // Check the value of the 'limit' parameter.
+        if(limit==null){
+            limit = Integer.MAX_VALUE;
+        }else if(limit<=0){
+            throw new BadRequestException("Invalid limit: " + limit);
+        }
         // Check the value of the 'order' parameter.
         if(order==null){
-            return followedList(userId);
+            return followedList(userId, days, limit);
         }else if(order.equals("date_asc")||order.equals("date_desc")){
-            return followedListSortedByDate(userId, order);
+            return followedListSortedByDate(userId, order, days, limit);
         }else{
             // If 'order' is neither "date_desc" nor "date_asc", it's an invalid value.
             throw new BadRequestException("Invalid sorting order: " + order);
@@ -150,9 +184,99 @@ public class PostServiceImpl implements IPostService {
     // Method to obtain the list of followed posts of a user, sorted by date. REQ. US0006
 
     public List<PostForListDto> followedList(Integer userId) {
+        return followedList(userId, PostRepositoryImpl.RECENT_POSTS_DAYS, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Req. US0006
+     * Obtains the first posts of the followed users in the last given days, sorted by date in descending order.
+     * @param userId - The userId of the user.
+     * @param days - Size of the window in days.
+     * @param limit - Maximum amount of posts to return.
+     * @return List<PostForListDto> - The list of posts sorted by date.
+     */
+    public List<PostForListDto> followedList(Integer userId, int days, int limit) {
+        // Merge the posts by date in descending order.
+        return toPostForListDto(followedPosts(userId, days, limit, false, null));
+    }
+
+    /**
+     * REQ. US0009
+     * This method is used to sort the list of followed posts of a user by date.
+     * It calls the followedList method to obtain the list of followed posts and then sorts it by date.
+     * @param userId, order - The userId of the user and the order of the list.
+     * @return List<PostForListDto> - The list of posts sorted by date.
+     */
+    public List<PostForListDto> followedListSortedByDate(Integer userId , String order) {
+        return followedListSortedByDate(userId, order, PostRepositoryImpl.RECENT_POSTS_DAYS, Integer.MAX_VALUE);
+    }
+
+    /**
+     * REQ. US0009
+     * Obtains the first posts of the followed users in the last given days, sorted by date in the given order.
+     * @param userId, order - The userId of the user and the order of the list.
+     * @param days - Size of the window in days.
+     * @param limit - Maximum amount of posts to return.
+     * @return List<PostForListDto> - The list of posts sorted by date.
+     */
+    public List<PostForListDto> followedListSortedByDate(Integer userId , String order, int days, int limit) {
+        // Merge the posts by date in the specified order.
+        return toPostForListDto(followedPosts(userId, days, limit, order.equals("date_asc"), null));
+    }
+
+    /**
+     * Req. US0006 - US0009
+     * Reads a page of the followed list. The cursor is the key (date and id) of the last post of the
+     * previous page, so each page starts right after it without skipping or repeating posts when new
+     * posts are added in between.
+     * @param userId, order - The userId of the user and the order of the list.
+     * @param days - Size of the window in days, two weeks if null.
+     * @param limit - Size of the page, 20 if null.
+     * @param cursor - The next_cursor of the previous page, null for the first page.
+     * @return FollowedPostListDto - The posts of the page and the cursor of the next one, if any.
+     */
+    @Override
+    public FollowedPostListDto getFollowedPostPage(Integer userId, String order, Integer days, Integer limit,
+                                                   String cursor) {
+        if(days==null){
+            days = PostRepositoryImpl.RECENT_POSTS_DAYS;
+        }else if(days<=0){
+            throw new BadRequestException("Invalid days: " + days);
+        }
+        if(limit==null){
+            limit = DEFAULT_PAGE_SIZE;
+        }else if(limit<=0){
+            throw new BadRequestException("Invalid limit: " + limit);
+        }
+        if(order!=null && !order.equals("date_asc") && !order.equals("date_desc")){
+            throw new BadRequestException("Invalid sorting order: " + order);
+        }
+        Long afterKey = cursor == null ? null : CursorCodec.decode(cursor);
+        // One more post than the page, to know if there is a next page.
+        List<Post> posts = followedPosts(userId, days, limit + 1, "date_asc".equals(order), afterKey);
+        String nextCursor = null;
+        if(posts.size() > limit){
+            posts = posts.subList(0, limit);
+            Post last = posts.get(limit - 1);
+            nextCursor = CursorCodec.encode(PostRepositoryImpl.timeKey(last.getEpochDay(), last.getId()));
+        }
+        return new FollowedPostListDto(userId, toPostForListDto(posts), nextCursor);
+    }
+
+    /**
+     * Builds the feed of a user.
+     * The feed is read from the timeline of the user when the timeline has every post of the window,
+     * otherwise it is a k-way merge of the recent posts of every followed user.
+     * @param userId - The userId of the user.
+     * @param days - Size of the window in days.
+     * @param limit - Maximum amount of posts to return.
+     * @param ascending - true for oldest first, false for newest first.
+     * @param afterKey - Key of the last post of the previous page (see PostRepositoryImpl.timeKey), null for the first page.
+     * @return List<Post> - The posts of the followed users inside the window, sorted by date.
+     */
+    private List<Post> followedPosts(Integer userId, int days, int limit, boolean ascending, Long afterKey) {
         // Validations:
         // If the obtained list is empty (No existing user or No pub)
-        // Check the value of the 'order' parameter.
         Optional<User> user = userRepository.getUserById(userId);
         if(user.isEmpty()){
             throw new NotFoundException("No se encontró al usuario");
@@ -162,61 +286,241 @@ public class PostServiceImpl implements IPostService {
         if(followedList.size()==0){
             throw new NotFoundException("Sin publicaciones recientes");
         }
-        List<Post> sortedList = new ArrayList<>();
+        // Read from the timeline when the window is inside the days kept by timelines.
+        if(days <= timelineRepository.getDays()){
+            Timeline timeline = timelineRepository.findByUserId(userId);
+            if(timeline == null){
+                timeline = buildTimeline(userId, followedList);
+            }
+            // Posts of pull sellers are skipped in the timeline and read from the repository.
+            // There are few pull sellers, so each one is looked up in the followed users instead of the other way around.
+            IntSet pullSellers = new IntSet();
+            for(Integer seller: timelineRepository.getPullSellers()){
+                if(followedList.contains(seller)){
+                    pullSellers.add(seller.intValue());
+                }
+            }
+            int firstDay = (int) LocalDate.now().minusDays(days).toEpochDay() + 1;
+            List<Integer> postIds = timeline.readPostIds(firstDay, limit, ascending, pullSellers, afterKey);
+            if(postIds != null){
+                List<Post> pushedPosts = postRepository.findAllById(postIds);
+                if(pullSellers.isEmpty()){
+                    return pushedPosts;
+                }
+                List<Iterator<Post>> sources = new ArrayList<>(pullSellers.size() + 1);
+                sources.add(pushedPosts.iterator());
+                for(Integer i: pullSellers){
+                    sources.add(postRepository.getResentPostIterator(i, days, ascending, afterKey));
+                }
+                return FeedMerger.merge(sources, ascending ? BY_DATE : BY_DATE.reversed(), limit);
+            }
+        }
+        return mergeFollowedPosts(followedList, days, limit, ascending, afterKey);
+    }
+
+    /**
+     * K-way merge of the recent posts of every followed user.
+     * The posts of each followed user come already sorted from the repository, so only
+     * the posts that end up in the result (plus one per followed user) are read.
+     * @param followedList - The ids of the followed users.
+     * @param days - Size of the window in days.
+     * @param limit - Maximum amount of posts to return.
+     * @param ascending - true for oldest first, false for newest first.
+     * @param afterKey - Key of the last post of the previous page, null for the first page.
+     * @return List<Post> - The posts of the followed users inside the window, sorted by date.
+     */
+    private List<Post> mergeFollowedPosts(Set<Integer> followedList, int days, int limit, boolean ascending,
+                                          Long afterKey) {
+        // One sorted source of recent posts per followed user.
+        List<Iterator<Post>> sources = new ArrayList<>(followedList.size());
         for(Integer i: followedList){
-            List<Post> followerdPosts = postRepository.getResentPost(i);
-            sortedList.addAll(followerdPosts);
+            sources.add(postRepository.getResentPostIterator(i, days, ascending, afterKey));
         }
-        // Retrieve the list of recent posts (Last two weeks) from the repository for the given user.
+        return FeedMerger.merge(sources, ascending ? BY_DATE : BY_DATE.reversed(), limit);
+    }
 
-        List<Post> orderList;
-        ObjectMapper mapper = new ObjectMapper();
-        //Auxiliary to give the format necessary to sort functions
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    /**
+     * Builds the timeline of a user the first time its feed is read, from the newest posts of the followed users.
+     * The timeline is saved before being filled, so posts created meanwhile are pushed to it as well.
+     * @param userId - The userId of the user.
+     * @param followedList - The ids of the followed users.
+     * @return Timeline - The timeline of the user.
+     */
+    private Timeline buildTimeline(Integer userId, Set<Integer> followedList) {
+        Timeline timeline = new Timeline(timelineRepository.getCapacity());
+        synchronized (timeline) {
+            Timeline existing = timelineRepository.saveIfAbsent(userId, timeline);
+            if (existing != null) {
+                return existing;
+            }
+            // Only the posts of push sellers, the posts of pull sellers are read with the feed.
+            Set<Integer> pushSellers = followedList.stream()
+                    .filter(id -> !timelineRepository.isPullSeller(id))
+                    .collect(Collectors.toSet());
+            // One more post than the capacity, so the timeline knows if older posts were left out.
+            timeline.addAll(mergeFollowedPosts(pushSellers, timelineRepository.getDays(),
+                    timelineRepository.getCapacity() + 1, false, null).iterator());
+        }
+        return timeline;
+    }
 
-        // Sort the list by date in descending order.
-        orderList = sortedList.stream()
-                .sorted(Comparator.comparing(post -> LocalDate.parse(((Post) post).getDate(),formatter)).reversed())
-                .toList();
+    /**
+     * Maps a list of posts to the DTO used in the followed list.
+     * @param posts - The posts to map.
+     * @return List<PostForListDto> - The mapped posts in the same order.
+     */
+    private List<PostForListDto> toPostForListDto(List<Post> posts) {
+        return DtoMapper.mapAll(posts, DtoMapper::toPostForListDto);
+    }
 
-        return orderList.stream().map(post -> mapper.convertValue(post, PostForListDto.class)).collect(Collectors.toList());
+    /**
+     * US 0010 - Adds a new post with a promo to the repository
+     * @param postDto - The DTO of the post, with has_promo and the discount.
+     * @return postDto - Returns the PostPromoDto after the post has been successfully added to the repository.
+     * @throws BadRequestException - If has_promo is not true.
+     * @throws AlreadyInUseException - If a post with the same id already exists.
+     */
+    @Override
+    public PostPromoDto postPromo(PostPromoDto postDto) {
+        validatePostDto(postDto);
+        if (!Boolean.TRUE.equals(postDto.getHas_promo())) {
+            throw new BadRequestException("A promo post must have has_promo set to true");
+        }
+        Post post = DtoMapper.toPost(postDto);
+        if (postRepository.findById(post.getId()) != null) {
+            throw new AlreadyInUseException("A post with this ID already exists.");
+        }
+        postRepository.save(post);
+        postJsonCache.put(DtoMapper.toPostForListDto(post));
+        pushToFollowers(post);
+        return postDto;
     }
 
     /**
-     * REQ. US0009
-     * This method is used to sort the list of followed posts of a user by date.
-     * It calls the followedList method to obtain the list of followed posts and then sorts it by date.
-     * @param userId, order - The userId of the user and the order of the list.
-     * @return List<PostForListDto> - The list of posts sorted by date.
+     * US 0011 - Returns the amount of promo posts of a seller, kept up to date by the repository
+     * @param user_id - Id of the seller.
+     * @return PromoPostDto - The seller and the amount of promo posts.
+     * @throws NotFoundException - If the seller doesn't exist.
      */
-    public List<PostForListDto> followedListSortedByDate(Integer userId , String order) {
-        // Call the followedList method to obtain the list of followed posts.
-        List<PostForListDto> sortedList = followedList(userId);
-        //Auxiliary to give the format necessary to sort functions
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        // Sort the list by date in the specified order.
-        if(order.equals("date_asc")){
-            // Sort the list by date in ascending order.
-            return sortedList.stream()
-                    .sorted(Comparator.comparing(post -> LocalDate.parse(post.getDate(),formatter))).toList();
-        }else{
-            // Sort the list by date in descending order.
-            return followedList(userId);
+    @Override
+    public PromoPostDto quantityPromo(Integer user_id) {
+        User user = userRepository.findUserById(user_id);
+        if (user == null) {
+            throw new NotFoundException("User not found");
         }
+        return new PromoPostDto(user.getId(), user.getUser_name(), postRepository.countPromoPosts(user_id));
     }
 
+    /**
+     * US 0012 - Returns the promo posts of a seller, newest first, read from the promo index of the repository
+     * @param user_id - Id of the seller.
+     * @return PromoPostListDto - The seller and the promo posts.
+     * @throws NotFoundException - If the seller doesn't exist.
+     */
     @Override
-    public Object postPromo(PostDto postDto) {
-        return null;
+    public PromoPostListDto getPromo(Integer user_id) {
+        User user = userRepository.findUserById(user_id);
+        if (user == null) {
+            throw new NotFoundException("User not found");
+        }
+        List<PostPromoDto> promos = DtoMapper.mapAll(postRepository.findPromoPosts(user_id), DtoMapper::toPostPromoDto);
+        return new PromoPostListDto(user.getId(), user.getUser_name(), promos);
     }
 
+    /**
+     * Aggregates the posts that match the filters: amount of posts and of promo posts, average price and discount.
+     * Read from the column store of the repository, without visiting the posts.
+     * @param userId - Id of the seller, null for every seller.
+     * @param category - Category of the posts, null for every category.
+     * @param days - Only the posts of the last days, null for every post.
+     * @return PostStatsDto - The aggregated values, the averages are null when no post has the value.
+     * @throws NotFoundException - If the seller doesn't exist.
+     * @throws BadRequestException - If days is not positive.
+     */
     @Override
-    public Object quantityPromo(Integer user_id) {
-        return null;
+    public PostStatsDto getPostStats(Integer userId, Integer category, Integer days) {
+        if (userId != null && userRepository.findUserById(userId) == null) {
+            throw new NotFoundException("User not found");
+        }
+        if (days != null && days <= 0) {
+            throw new BadRequestException("Invalid days: " + days);
+        }
+        Integer firstDay = days == null ? null : (int) (LocalDate.now().minusDays(days).toEpochDay() + 1);
+        PostColumns.Stats stats = postRepository.getStats(userId, category, firstDay);
+        return new PostStatsDto(stats.count(), stats.promoCount(),
+                Double.isNaN(stats.averagePrice()) ? null : stats.averagePrice(),
+                Double.isNaN(stats.averageDiscount()) ? null : stats.averageDiscount());
     }
 
+    /**
+     * Finds the posts that match every given filter, newest first.
+     * The repository plans the search over its secondary indexes, see PostSearchIndex.
+     * @param userId - Id of the seller, null for every seller.
+     * @param dateFrom - First date of the posts in the dd-MM-yyyy format, null for no limit.
+     * @param dateTo - Last date of the posts in the dd-MM-yyyy format, null for no limit.
+     * @param category - Category of the posts, null for every category.
+     * @param priceMin - Minimum price, null for no limit.
+     * @param priceMax - Maximum price, null for no limit.
+     * @param hasPromo - Only the posts with or without a promo, null for both.
+     * @param limit - Maximum amount of posts to return, every match if null.
+     * @return List<Post> - The posts that match the filters, sorted by date in descending order.
+     * @throws NotFoundException - If the seller doesn't exist.
+     * @throws BadRequestException - If a date can't be parsed, a range is empty or the limit is not positive.
+     */
     @Override
-    public Object getPromo(Integer user_id) {
-        return null;
+    public List<Post> searchPosts(Integer userId, String dateFrom, String dateTo, Integer category,
+                                  Double priceMin, Double priceMax, Boolean hasPromo, Integer limit) {
+        if (userId != null && userRepository.findUserById(userId) == null) {
+            throw new NotFoundException("User not found");
+        }
+        Integer fromDay = parseEpochDay(dateFrom);
+        Integer toDay = parseEpochDay(dateTo);
+        if (fromDay != null && toDay != null && fromDay > toDay) {
+            throw new BadRequestException("Invalid date range: " + dateFrom + " - " + dateTo);
+        }
+        if (priceMin != null && priceMax != null && priceMin > priceMax) {
+            throw new BadRequestException("Invalid price range: " + priceMin + " - " + priceMax);
+        }
+        if (limit == null) {
+            limit = Integer.MAX_VALUE;
+        } else if (limit <= 0) {
+            throw new BadRequestException("Invalid limit: " + limit);
+        }
+        PostSearchIndex.Query query = new PostSearchIndex.Query(userId, fromDay, toDay, category,
+                priceMin, priceMax, hasPromo);
+        return postRepository.search(query, limit);
+    }
+
+    /**
+     * Finds the newest posts whose product has every word of the text in its name, type, brand, color or notes.
+     * The words are matched without case and accents, see TextTokenizer.
+     * @param text - The words to look for.
+     * @param limit - Maximum amount of posts to return, DEFAULT_PAGE_SIZE if null.
+     * @return List<Post> - The posts that have every word, sorted by date in descending order.
+     * @throws BadRequestException - If the text has no words or the limit is not positive.
+     */
+    @Override
+    public List<Post> searchPostsByText(String text, Integer limit) {
+        if (TextTokenizer.tokenize(text).isEmpty()) {
+            throw new BadRequestException("Invalid search text: " + text);
+        }
+        if (limit == null) {
+            limit = DEFAULT_PAGE_SIZE;
+        } else if (limit <= 0) {
+            throw new BadRequestException("Invalid limit: " + limit);
+        }
+        return postRepository.searchText(text, limit);
+    }
+
+    // Parses a date of the API to its epoch day, null stays null
+    private static Integer parseEpochDay(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return (int) LocalDate.parse(date, Post.DATE_FORMATTER).toEpochDay();
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid date: " + date);
+        }
     }
 }
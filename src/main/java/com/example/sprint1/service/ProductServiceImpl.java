@@ -1,44 +1,45 @@
 package com.example.sprint1.service;
 
 import com.example.sprint1.dto.PostDto;
-import com.example.sprint1.repository.IPostRepository;
+import com.example.sprint1.dto.PostPromoDto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+// Product operations, implemented by the post service
 @Service
 public class ProductServiceImpl implements IProductService{
 
     @Autowired
-    IPostRepository postRepository;
+    IPostService postService;
 
 
     @Override
     public Object addPost(PostDto postDto) {
-        return null;
+        return postService.addPost(postDto);
     }
 
     @Override
     public Object followedList(Integer userId, String order) {
-        return null;
+        return postService.selectIfOrderFollowedList(userId, order);
     }
 
     @Override
     public Object followedList(Integer userId) {
-        return null;
+        return postService.selectIfOrderFollowedList(userId, null);
     }
 
     @Override
-    public Object postPromo(PostDto postDto) {
-        return null;
+    public Object postPromo(PostPromoDto postDto) {
+        return postService.postPromo(postDto);
     }
 
     @Override
     public Object quantityPromo(Integer user_id) {
-        return null;
+        return postService.quantityPromo(user_id);
     }
 
     @Override
     public Object getPromo(Integer user_id) {
-        return null;
+        return postService.getPromo(user_id);
     }
-}
\ No newline at end of file
+}
@@ -8,21 +8,32 @@ import com.example.sprint1.dto.FollowListDto;
 import com.example.sprint1.dto.FollowdUserDto;
 import com.example.sprint1.exception.NotFoundException;
 import com.example.sprint1.model.User;
+import com.example.sprint1.repository.IPostRepository;
+import com.example.sprint1.repository.ITimelineRepository;
 import com.example.sprint1.repository.IUserRepository;
+import com.example.sprint1.repository.Timeline;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Optional;
 import java.util.Set;
 
 @Service
 public class UserServiceImpl implements IUserService{
 
+    // Size of a page of followers or followed when the client doesn't send one
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     @Autowired
     IUserRepository userRepository;
 
+    @Autowired
+    IPostRepository postRepository;
+
+    @Autowired
+    ITimelineRepository timelineRepository;
+
     /**
     * Adds a follower to the set of follower and a followed to the set of followed
     * @param userID Id of the user who will follow
@@ -43,12 +54,14 @@ public class UserServiceImpl implements IUserService{
                             if (userID.equals(userIdToFollow)) {
                                 throw new BadRequestException("Can't follow yourself");
                             }
-                            //We check if user is already followed
+                            //We check if user is already followed, the repository checks it again atomically with the update
                             if (userAux.getFollowed().contains(userToFollow.getId()) || userToFollow.getFollowers().contains(userAux.getId())) {
                                 throw new BadRequestException("User already followed");
                             }
                             //None of the cases creates conflict, we simply update the followers and followed
                             userRepository.updateUserFollower(userAux, userToFollow);
+                            reclassifySeller(userToFollow);
+                            backfillTimeline(userID, userIdToFollow);
                         },
                         () -> {
                             throw new BadRequestException("User to follow not found");
@@ -62,39 +75,21 @@ public class UserServiceImpl implements IUserService{
 
     /**
      * Method to retrieve the follower count for a given user. REQ US0002
+     * The count is read from the counters kept by the repository, without visiting the other users.
      * @param userId
      * @return
      */
     @Override
     public CountFollowersUserDto getFollowerCount(Integer userId) {
-        // Retrieve all users from the repository.
-        List<User> userList = userRepository.findAll();
-
-        // Initialize variables to store follower count and username.
-        Integer followerCount = 0;
-        String name = "";
-
-        // Validate in all users if the user is followed
-        for (User u : userList) {
-            // Check if the current user matches the given userId.
-            if(u.getId().equals(userId)){
-                // If matched, store the username.
-                name = u.getUser_name();
-            }
-            // Check if the current user's followers list contains the given userId.
-            if (u.getFollowers().contains(userId)) {
-                // If yes, increment the follower count.
-                followerCount++;
-            }
-        }
+        User user = userRepository.findUserById(userId);
 
         // If no user is found with the given userId, throw a NotFoundException.
-        if(name==""){
+        if(user==null){
             throw new NotFoundException("No se encontró al vendedor");
         }
 
         // Return a CountFollowersUserDto object containing userId, username, and follower count.
-        return new CountFollowersUserDto(userId,name,followerCount);
+        return new CountFollowersUserDto(userId,user.getUser_name(),userRepository.countFollowers(userId));
     }
 
 
@@ -112,25 +107,25 @@ public class UserServiceImpl implements IUserService{
         Optional<User> optionalUser = userRepository.getUserById(userId);
         optionalUser.orElseThrow(() -> new NotFoundException("No se encontró el usuario con el ID proporcionado"));
 
-        //Call to service
-        List<User> followerList = userRepository.getFollowersById(userId);
+        List<User> followerList;
 
         //Set default value of order if null
         if (order == null){
             order = "default";
         }
 
-        //Sorting by alphanumerical name
+        //Sorting by alphanumerical name, the repository keeps the followers sorted by name
         switch (order){
             case "name_asc":
-                followerList = followerList.stream().sorted(Comparator.comparing(User::getUser_name)).toList();
+                followerList = userRepository.getFollowersByName(userId, true, null, Integer.MAX_VALUE);
                 break;
 
             case "name_desc":
-                followerList = followerList.stream().sorted(Comparator.comparing(User::getUser_name).reversed()).toList();
+                followerList = userRepository.getFollowersByName(userId, false, null, Integer.MAX_VALUE);
                 break;
 
             case "default":
+                followerList = userRepository.getFollowersById(userId);
                 break;
 
             default:
@@ -139,7 +134,7 @@ public class UserServiceImpl implements IUserService{
         }
 
         //DTOAssembly
-        List<FollowerUsersDto> followerUsersDto = followerList.stream().map(user -> new FollowerUsersDto(user.getId(), user.getUser_name())).toList();
+        List<FollowerUsersDto> followerUsersDto = DtoMapper.mapAll(followerList, DtoMapper::toFollowerUsersDto);
         FollowListDto followerListDto = new FollowListDto(optionalUser.get().getId(), optionalUser.get().getUser_name(), followerUsersDto);
 
         return followerListDto;
@@ -159,25 +154,25 @@ public class UserServiceImpl implements IUserService{
         Optional<User> optionalUser = userRepository.getUserById(userId);
         optionalUser.orElseThrow(() -> new NotFoundException("No se encontró el usuario con el ID proporcionado"));
 
-        //Call to service
-        List<User> followedList = userRepository.getFollowedById(userId);
+        List<User> followedList;
 
         //Set default value of order if null
         if (order == null){
             order = "default";
         }
 
-        //Sorting by alphanumerical name
+        //Sorting by alphanumerical name, the repository keeps the followed users sorted by name
         switch (order){
             case "name_asc":
-                followedList = followedList.stream().sorted(Comparator.comparing(User::getUser_name)).toList();
+                followedList = userRepository.getFollowedByName(userId, true, null, Integer.MAX_VALUE);
                 break;
 
             case "name_desc":
-                followedList = followedList.stream().sorted(Comparator.comparing(User::getUser_name).reversed()).toList();
+                followedList = userRepository.getFollowedByName(userId, false, null, Integer.MAX_VALUE);
                 break;
 
             case "default":
+                followedList = userRepository.getFollowedById(userId);
                 break;
 
             default:
@@ -186,12 +181,110 @@ public class UserServiceImpl implements IUserService{
         }
 
         //DTOAssembly
-        List<FollowerUsersDto> followedUsersDto = followedList.stream().map(user -> new FollowerUsersDto(user.getId(), user.getUser_name())).toList();
+        List<FollowerUsersDto> followedUsersDto = DtoMapper.mapAll(followedList, DtoMapper::toFollowerUsersDto);
         FollowListDto followedListDto = new FollowListDto(optionalUser.get().getId(), optionalUser.get().getUser_name(), followedUsersDto);
 
         return followedListDto;
     }
 
+    /**
+     * Retrieves a page of the followers of a given user.
+     * The followers are read by id or by name straight from the repository, only visiting the users of the page.
+     * If limit and cursor are null the whole list is returned as in getFollowerList(userId, order).
+     *@param userId The ID of the user whose followers are to be retrieved.
+     *@param order The order of the followers, null, "name_asc" or "name_desc"
+     *@param limit The maximum amount of followers of the page, 20 if null
+     *@param cursor The cursor returned with the previous page, null for the first page
+     */
+    @Override
+    public FollowListDto getFollowerList(Integer userId, String order, Integer limit, String cursor) {
+        if (limit == null && cursor == null) {
+            return getFollowerList(userId, order);
+        }
+        User user = userRepository.getUserById(userId)
+                .orElseThrow(() -> new NotFoundException("No se encontró el usuario con el ID proporcionado"));
+        int pageSize = checkPageSize(limit);
+        Integer afterId = cursor == null ? null : (int) CursorCodec.decode(cursor);
+
+        List<User> page = order == null
+                ? userRepository.getFollowersPage(userId, afterId, pageSize + 1)
+                : userRepository.getFollowersByName(userId, isAscending(order), afterId, pageSize + 1);
+        return toFollowListDto(user, page, pageSize);
+    }
+
+    /**
+     * Retrieves a page of the users followed by a given user.
+     * The followed users are read by id or by name straight from the repository, only visiting the users of the page.
+     * If limit and cursor are null the whole list is returned as in getFollowedList(userId, order).
+     *@param userId The ID of the user whose followed users are to be retrieved.
+     *@param order The order of the followed users, null, "name_asc" or "name_desc"
+     *@param limit The maximum amount of followed users of the page, 20 if null
+     *@param cursor The cursor returned with the previous page, null for the first page
+     */
+    @Override
+    public FollowListDto getFollowedList(Integer userId, String order, Integer limit, String cursor) {
+        if (limit == null && cursor == null) {
+            return getFollowedList(userId, order);
+        }
+        User user = userRepository.getUserById(userId)
+                .orElseThrow(() -> new NotFoundException("No se encontró el usuario con el ID proporcionado"));
+        int pageSize = checkPageSize(limit);
+        Integer afterId = cursor == null ? null : (int) CursorCodec.decode(cursor);
+
+        List<User> page = order == null
+                ? userRepository.getFollowedPage(userId, afterId, pageSize + 1)
+                : userRepository.getFollowedByName(userId, isAscending(order), afterId, pageSize + 1);
+        return toFollowListDto(user, page, pageSize);
+    }
+
+    /**
+     * Validates the size of a page
+     * @param limit size requested by the client, null for the default one
+     * @return the size of the page
+     */
+    private int checkPageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit <= 0) {
+            throw new BadRequestException("Invalid limit: " + limit);
+        }
+        return limit;
+    }
+
+    /**
+     * Validates the order of a page sorted by name
+     * @param order "name_asc" or "name_desc"
+     * @return true for name_asc, false for name_desc
+     */
+    private boolean isAscending(String order) {
+        switch (order) {
+            case "name_asc":
+                return true;
+            case "name_desc":
+                return false;
+            default:
+                throw new BadRequestException("query param must exist");
+        }
+    }
+
+    /**
+     * Builds the DTO of a page. The page has one more user than the page size when there is a next page.
+     * @param user the user whose list was requested
+     * @param page the users read, up to pageSize + 1
+     * @param pageSize the size of the page
+     * @return the DTO with the users of the page and the cursor of the next one
+     */
+    private FollowListDto toFollowListDto(User user, List<User> page, int pageSize) {
+        String nextCursor = null;
+        if (page.size() > pageSize) {
+            page = page.subList(0, pageSize);
+            nextCursor = CursorCodec.encode(page.get(pageSize - 1).getId());
+        }
+        List<FollowerUsersDto> users = DtoMapper.mapAll(page, DtoMapper::toFollowerUsersDto);
+        return new FollowListDto(user.getId(), user.getUser_name(), users, nextCursor);
+    }
+
     /**
      * US 0007 - Unfollows a user from another user's follower list
      * @param userId - The ID of the user initiating the unfollow request
@@ -210,10 +303,75 @@ public class UserServiceImpl implements IUserService{
                 .orElseThrow(() -> new NotFoundException("User not found: " + userId));
         User userToUnfollow = userRepository.getUserById(userIdToUnfollow)
                 .orElseThrow(() -> new NotFoundException("User to unfollow not found: " + userIdToUnfollow));
+        // Checked again by the repository, atomically with the update
         if (!user.getFollowed().contains(userIdToUnfollow)) {
             throw new BadRequestException("You are not following this user: " + userIdToUnfollow);
         }
         userRepository.updateUserFollowerDelete(user, userToUnfollow);
+        purgeTimeline(userId, userIdToUnfollow);
+        reclassifySeller(userToUnfollow);
+    }
+
+    /**
+     * Updates if the posts of a seller are pushed to the timelines of its followers or pulled when the feed is read.
+     * A seller becomes a pull seller above the pull threshold, and goes back to push a 10% below it,
+     * so a seller around the threshold doesn't switch on every follow.
+     * When it goes back to push, its recent posts are added to the timelines of its followers.
+     * @param seller The seller whose followers changed
+     */
+    private void reclassifySeller(User seller) {
+        int threshold = timelineRepository.getPullThreshold();
+        int followers = seller.getCountFollowers();
+        if (followers > threshold) {
+            timelineRepository.markPullSeller(seller.getId());
+        } else if (followers < threshold - threshold / 10 && timelineRepository.isPullSeller(seller.getId())) {
+            // Fills the timelines before unmarking, until then the feed keeps reading the posts from the repository
+            for (Integer followerId : seller.getFollowers()) {
+                addToTimeline(followerId, seller.getId());
+            }
+            timelineRepository.unmarkPullSeller(seller.getId());
+        }
+    }
+
+    /**
+     * Adds the recent posts of a newly followed user to the timeline of the follower, if it has one
+     * and the followed user is not a pull seller
+     * @param userId Id of the follower
+     * @param userIdToFollow Id of the followed user
+     */
+    private void backfillTimeline(Integer userId, Integer userIdToFollow) {
+        if (!timelineRepository.isPullSeller(userIdToFollow)) {
+            addToTimeline(userId, userIdToFollow);
+        }
+    }
+
+    /**
+     * Adds the recent posts of a seller to the timeline of a user, if it has one.
+     * The user may unfollow the seller meanwhile and purge the timeline before the posts are added, so the
+     * edge is checked again afterwards, as the push of a new post does.
+     * @param userId Id of the user
+     * @param sellerId Id of the seller
+     */
+    private void addToTimeline(Integer userId, Integer sellerId) {
+        Timeline timeline = timelineRepository.findByUserId(userId);
+        if (timeline != null) {
+            timeline.addAll(postRepository.getResentPostIterator(sellerId, timelineRepository.getDays(), false));
+            if (!userRepository.isFollowing(userId, sellerId)) {
+                timeline.removeAuthor(sellerId);
+            }
+        }
+    }
+
+    /**
+     * Removes the posts of an unfollowed user from the timeline of the follower, if it has one
+     * @param userId Id of the follower
+     * @param userIdToUnfollow Id of the unfollowed user
+     */
+    private void purgeTimeline(Integer userId, Integer userIdToUnfollow) {
+        Timeline timeline = timelineRepository.findByUserId(userId);
+        if (timeline != null) {
+            timeline.removeAuthor(userIdToUnfollow);
+        }
     }
 
 
@@ -224,7 +382,7 @@ public class UserServiceImpl implements IUserService{
      */
     @Override
     public FollowerUsersDto convertToFollowUserDto(User user) {
-        return new FollowerUsersDto(user.getId(), user.getUser_name());
+        return DtoMapper.toFollowerUsersDto(user);
     }
 
     /**
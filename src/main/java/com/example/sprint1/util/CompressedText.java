@@ -0,0 +1,108 @@
+package com.example.sprint1.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact encoding of free text fields, like the notes of the products.
+ * The text is kept as UTF-8 bytes, deflated when that makes it smaller (long texts), and the first
+ * byte tells which one it is. Decoding creates a new String, so it is meant to be done only when the
+ * text is read, for example when it is serialized.
+ */
+public final class CompressedText {
+
+    private static final byte RAW = 0;
+    private static final byte DEFLATED = 1;
+    // Shorter texts are kept raw without trying, deflate doesn't make them smaller
+    private static final int MIN_DEFLATE_LENGTH = 64;
+
+    private CompressedText() {
+    }
+
+    /**
+     * Encodes a text
+     * @param text text to encode, may be null
+     * @return the encoded bytes, null for null
+     */
+    public static byte[] encode(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = raw.length < MIN_DEFLATE_LENGTH ? raw : deflate(raw);
+        byte[] encoded;
+        if (deflated.length < raw.length) {
+            encoded = new byte[deflated.length + 1];
+            encoded[0] = DEFLATED;
+            System.arraycopy(deflated, 0, encoded, 1, deflated.length);
+        } else {
+            encoded = new byte[raw.length + 1];
+            encoded[0] = RAW;
+            System.arraycopy(raw, 0, encoded, 1, raw.length);
+        }
+        return encoded;
+    }
+
+    /**
+     * Decodes a text encoded by encode
+     * @param encoded encoded bytes, may be null
+     * @return the text, null for null
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static String decode(byte[] encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        if (encoded.length == 0 || (encoded[0] != RAW && encoded[0] != DEFLATED)) {
+            throw new IllegalArgumentException("Invalid compressed text");
+        }
+        if (encoded[0] == RAW) {
+            return new String(encoded, 1, encoded.length - 1, StandardCharsets.UTF_8);
+        }
+        return new String(inflate(encoded), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[raw.length + 16];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] encoded) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(encoded, 1, encoded.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length * 3);
+            byte[] buffer = new byte[256];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Invalid compressed text");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.sprint1.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Set of ints stored in a single int[] with open addressing (linear probing), used for the
+ * followers, followed and posts of a user. Each value takes 4 bytes of the table, between
+ * 5 and 11 bytes with the free slots, instead of the 40+ bytes of a boxed HashSet entry.
+ * It is a Set<Integer> so it can be used as before, but the int methods don't box.
+ * Two values are reserved as slot markers: Integer.MIN_VALUE and Integer.MIN_VALUE + 1.
+ * Writers must be serialized by the caller (the user repository holds the locks of both users of a
+ * follow), but readers may run at the same time: a value only moves to a new table when the table
+ * grows, and the new table is published once it is complete, so readers see a weakly consistent
+ * view, like the iterators of ConcurrentHashMap, and never fail.
+ */
+@JsonSerialize(using = IntSet.Serializer.class)
+@JsonDeserialize(using = IntSet.Deserializer.class)
+public class IntSet extends AbstractSet<Integer> {
+
+    // Slot that was never used, a lookup stops here
+    private static final int FREE = Integer.MIN_VALUE;
+    // Slot whose value was removed, a lookup goes on after it
+    private static final int REMOVED = Integer.MIN_VALUE + 1;
+    private static final int MIN_CAPACITY = 4;
+
+    // Table of values, its length is a power of two
+    private volatile int[] slots;
+    private volatile int size;
+    // Slots that are not FREE (values and removed ones), a lookup always finds a FREE slot
+    private int used;
+
+    public IntSet() {
+        this(0);
+    }
+
+    /**
+     * Creates a set with room for the given amount of values without growing
+     * @param expectedSize amount of values expected
+     */
+    public IntSet(int expectedSize) {
+        slots = newSlots(capacityFor(expectedSize));
+    }
+
+    /**
+     * Creates a set with the given values
+     * @param values values to copy
+     * @return a new set
+     */
+    public static IntSet copyOf(Collection<Integer> values) {
+        // Subclasses may not keep their values in the table
+        if (values instanceof IntSet intSet && intSet.getClass() == IntSet.class) {
+            IntSet copy = new IntSet(0);
+            copy.slots = intSet.slots.clone();
+            copy.size = intSet.size;
+            copy.used = intSet.used;
+            return copy;
+        }
+        IntSet set = new IntSet(values.size());
+        for (Integer value : values) {
+            set.add(value.intValue());
+        }
+        return set;
+    }
+
+    /**
+     * Adds a value to the set
+     * @param value value to add
+     * @return true if the value wasn't in the set
+     * @throws IllegalArgumentException if the value is one of the reserved ones
+     */
+    public boolean add(int value) {
+        checkValue(value);
+        if (used + 1 > maxUsed(slots.length)) {
+            rehash(capacityFor(size + 1));
+        }
+        int[] slots = this.slots;
+        int mask = slots.length - 1;
+        int firstRemoved = -1;
+        for (int index = hash(value) & mask; ; index = (index + 1) & mask) {
+            int slot = slots[index];
+            if (slot == value) {
+                return false;
+            }
+            if (slot == REMOVED && firstRemoved < 0) {
+                firstRemoved = index;
+            } else if (slot == FREE) {
+                // Reuses a removed slot of the same probe sequence if there is one
+                if (firstRemoved >= 0) {
+                    slots[firstRemoved] = value;
+                } else {
+                    slots[index] = value;
+                    used++;
+                }
+                size++;
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add(value.intValue());
+    }
+
+    /**
+     * Checks if a value is in the set
+     * @param value value to look for
+     * @return true if the value is in the set
+     */
+    public boolean contains(int value) {
+        return indexOf(slots, value) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer value && contains(value.intValue());
+    }
+
+    /**
+     * Removes a value from the set
+     * @param value value to remove
+     * @return true if the value was in the set
+     */
+    public boolean remove(int value) {
+        int[] slots = this.slots;
+        int index = indexOf(slots, value);
+        if (index < 0) {
+            return false;
+        }
+        slots[index] = REMOVED;
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer value && remove(value.intValue());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        used = 0;
+        size = 0;
+        slots = newSlots(MIN_CAPACITY);
+    }
+
+    /**
+     * Returns the values of the set in no particular order
+     * @return a new array with the values
+     */
+    public int[] toIntArray() {
+        int[] values = new int[size];
+        int count = 0;
+        for (int slot : slots) {
+            if (slot != FREE && slot != REMOVED) {
+                if (count == values.length) {
+                    // A value was added meanwhile
+                    values = Arrays.copyOf(values, count * 2 + 1);
+                }
+                values[count++] = slot;
+            }
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Returns an iterator over the table at the time of the call, it doesn't fail if the set changes
+     * @return an iterator over the values
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        int[] table = slots;
+        return new PrimitiveIterator.OfInt() {
+            private int next = advance(0);
+            private int last = FREE;
+
+            private int advance(int from) {
+                while (from < table.length && (table[from] == FREE || table[from] == REMOVED)) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < table.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = table[next];
+                next = advance(next + 1);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == FREE) {
+                    throw new IllegalStateException();
+                }
+                // By value, the table may have been replaced since the iterator was created
+                IntSet.this.remove(last);
+                last = FREE;
+            }
+        };
+    }
+
+    // Index of the slot of a value, -1 if it isn't in the set
+    private static int indexOf(int[] slots, int value) {
+        if (value == FREE || value == REMOVED) {
+            return -1;
+        }
+        int mask = slots.length - 1;
+        for (int index = hash(value) & mask; ; index = (index + 1) & mask) {
+            int slot = slots[index];
+            if (slot == value) {
+                return index;
+            }
+            if (slot == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    // Moves the values to a new table, dropping the removed slots
+    private void rehash(int capacity) {
+        int[] table = newSlots(capacity);
+        int mask = capacity - 1;
+        for (int value : slots) {
+            if (value != FREE && value != REMOVED) {
+                int index = hash(value) & mask;
+                while (table[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+        used = size;
+        // Published only once it is complete
+        slots = table;
+    }
+
+    private static void checkValue(int value) {
+        if (value == FREE || value == REMOVED) {
+            throw new IllegalArgumentException("Value not supported by IntSet: " + value);
+        }
+    }
+
+    // Spreads consecutive ids over the table, they are the usual values
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Up to three quarters of the slots can be used
+    private static int maxUsed(int capacity) {
+        return capacity - (capacity >>> 2);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (maxUsed(capacity) < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+        return slots;
+    }
+
+    /**
+     * Writes the set as a JSON array of numbers, without boxing the values
+     */
+    public static class Serializer extends StdSerializer<IntSet> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(IntSet.class);
+        }
+
+        @Override
+        public void serialize(IntSet value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int[] values = value.toIntArray();
+            gen.writeArray(values, 0, values.length);
+        }
+    }
+
+    /**
+     * Reads the set from a JSON array of numbers, without boxing the values
+     */
+    public static class Deserializer extends StdDeserializer<IntSet> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Deserializer() {
+            super(IntSet.class);
+        }
+
+        @Override
+        public IntSet deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartArrayToken()) {
+                return (IntSet) ctxt.handleUnexpectedToken(IntSet.class, p);
+            }
+            IntSet set = new IntSet();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                set.add(_parseIntPrimitive(p, ctxt));
+            }
+            return set;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.sprint1.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Loads the seed files (a JSON array of records) one record at a time.
+ * The file is read as a stream of tokens and each record is handed to the caller as soon as it is
+ * parsed, so only one record is in memory besides the data the caller keeps, whatever the size of
+ * the file. The files are read from the classpath as streams, so they also load from a packaged jar.
+ */
+public final class JsonStreamLoader {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // Loads the seed files in parallel, one thread per file
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "seed-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private JsonStreamLoader() {
+    }
+
+    /**
+     * Reads the records of a classpath resource in order
+     * @param resource path of the resource in the classpath, like users.json
+     * @param type class of the records
+     * @param consumer receives each record
+     * @throws IOException if the resource can't be read or isn't a JSON array of records
+     */
+    public static <T> void load(String resource, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        ObjectReader reader = OBJECT_MAPPER.readerFor(type);
+        try (InputStream in = new ClassPathResource(resource).getInputStream();
+             JsonParser parser = OBJECT_MAPPER.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array in " + resource);
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(reader.readValue(parser));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IOException("Expected a JSON object in " + resource + " at " + parser.currentLocation());
+            }
+        }
+    }
+
+    /**
+     * Reads the records of a classpath resource in order in a background thread, see load
+     * @return a future completed once every record was consumed, see await
+     */
+    public static <T> CompletableFuture<Void> loadAsync(String resource, Class<T> type, Consumer<? super T> consumer) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                load(resource, type, consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * Waits until a load started by loadAsync finishes
+     * @param loading the future returned by loadAsync
+     * @throws IOException if the resource couldn't be read
+     */
+    public static void await(CompletableFuture<Void> loading) throws IOException {
+        try {
+            loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.sprint1.util;
+
+import java.util.Arrays;
+
+/**
+ * Compressed list of increasing document numbers, the posting list of a term of the full-text index.
+ * Each number is stored as the difference with the previous one in a variable length encoding
+ * (7 bits per byte, the high bit marks that more bytes follow), so the dense lists of the common
+ * terms take one or two bytes per document instead of the 16+ of a boxed set entry.
+ * Every SKIP_INTERVAL documents a skip entry keeps the byte offset and the previous document, so a
+ * cursor can jump ahead without decoding the documents in between, which is what the intersection
+ * of a long list with a short one needs.
+ * Appends must be serialized by the caller. Readers don't lock: they only read the documents below
+ * the published size, and the arrays are replaced, complete, before the size grows past them.
+ */
+public class PostingList {
+
+    // Returned by a cursor past the last document
+    public static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    // Documents between skip entries, a power of two
+    private static final int SKIP_INTERVAL = 64;
+
+    private volatile byte[] bytes = new byte[8];
+    // Skip entry k points to the document k * SKIP_INTERVAL, k >= 1. Null until the first entry,
+    // most terms of an index never have more than SKIP_INTERVAL documents
+    private volatile int[] skipOffsets;
+    private volatile int[] skipPrevious;
+    // Amount of documents published, written after the bytes of the last one
+    private volatile int size;
+    // Only used by the writer
+    private int length;
+    private int last = -1;
+
+    /**
+     * Appends a document, it must be greater than the last one
+     * @param doc document number, not negative
+     * @throws IllegalArgumentException if the document is not greater than the last one
+     */
+    public void add(int doc) {
+        if (doc <= last) {
+            throw new IllegalArgumentException("Document " + doc + " is not greater than " + last);
+        }
+        int count = size;
+        if (count > 0 && count % SKIP_INTERVAL == 0) {
+            int skip = count / SKIP_INTERVAL;
+            if (skipOffsets == null) {
+                skipOffsets = new int[4];
+                skipPrevious = new int[4];
+            } else if (skip == skipOffsets.length) {
+                skipOffsets = Arrays.copyOf(skipOffsets, skip * 2);
+                skipPrevious = Arrays.copyOf(skipPrevious, skip * 2);
+            }
+            skipOffsets[skip] = length;
+            skipPrevious[skip] = last;
+        }
+        byte[] buffer = bytes;
+        if (buffer.length - length < 5) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            bytes = buffer;
+        }
+        int delta = doc - last;
+        while ((delta & ~0x7F) != 0) {
+            buffer[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        buffer[length++] = (byte) delta;
+        last = doc;
+        size = count + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a cursor over the documents published so far
+     * @return a cursor before the first document
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Reads the documents in increasing order
+     */
+    public final class Cursor {
+
+        // Read once, the cursor only sees the documents published when it was created
+        private final int count = size;
+        private final byte[] buffer = bytes;
+        private final int[] offsets = skipOffsets;
+        private final int[] previous = skipPrevious;
+        private int index;
+        private int offset;
+        private int doc = -1;
+
+        /**
+         * Moves to the next document
+         * @return the document, or NO_MORE_DOCS past the last one
+         */
+        public int next() {
+            if (index >= count) {
+                return doc = NO_MORE_DOCS;
+            }
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[offset++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            index++;
+            return doc += delta;
+        }
+
+        /**
+         * Moves to the first document greater than or equal to the target, jumping with the skip entries
+         * @param target document to look for
+         * @return the document, or NO_MORE_DOCS if there is none
+         */
+        public int advance(int target) {
+            if (doc >= target) {
+                return doc;
+            }
+            // The documents before skip entry k are all lower than the target when its previous one is
+            int skip = index / SKIP_INTERVAL + 1;
+            int skips = (count - 1) / SKIP_INTERVAL;
+            while (skip <= skips && previous[skip] < target) {
+                skip++;
+            }
+            skip--;
+            if (skip * SKIP_INTERVAL > index) {
+                index = skip * SKIP_INTERVAL;
+                offset = offsets[skip];
+                doc = previous[skip];
+            }
+            while (doc < target) {
+                next();
+            }
+            return doc;
+        }
+    }
+}
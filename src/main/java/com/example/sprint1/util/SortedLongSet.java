@@ -0,0 +1,128 @@
+package com.example.sprint1.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Sorted set of longs kept in two sorted primitive runs: a large main run and a small pending run that
+ * takes the new values. Once the pending run is full it is merged into the main run, so adding N values
+ * in any order costs O(N / PENDING_LIMIT) merges instead of a copy per value, and the set takes 8 bytes
+ * per value plus the spare capacity of the main run, instead of the 40+ of a boxed skip list node.
+ * Values greater than every value of the main run, the usual case for keys that start with a date,
+ * are appended past its end without copying it.
+ * Adds must be serialized by the caller. Readers don't lock: they read the runs published as a whole,
+ * and a main run is only written past the size published with it.
+ */
+public class SortedLongSet {
+
+    // Returned by floor when there is no value
+    public static final long NONE = Long.MIN_VALUE;
+
+    // Values of the pending run that start a merge
+    private static final int PENDING_LIMIT = 512;
+
+    private static final long[] EMPTY = new long[0];
+
+    // The main run is the first mainSize values of main, the pending run is the whole array
+    private record Runs(long[] main, int mainSize, long[] pending) {
+    }
+
+    private volatile Runs runs = new Runs(EMPTY, 0, EMPTY);
+
+    /**
+     * Adds a value, nothing changes if it is in the set already
+     * @param value value to add
+     */
+    public void add(long value) {
+        Runs current = runs;
+        if (Arrays.binarySearch(current.main(), 0, current.mainSize(), value) >= 0) {
+            return;
+        }
+        long[] pending = current.pending();
+        int index = Arrays.binarySearch(pending, value);
+        if (index >= 0) {
+            return;
+        }
+        int at = -index - 1;
+        long[] grown = new long[pending.length + 1];
+        System.arraycopy(pending, 0, grown, 0, at);
+        grown[at] = value;
+        System.arraycopy(pending, at, grown, at + 1, pending.length - at);
+        runs = grown.length < PENDING_LIMIT ? new Runs(current.main(), current.mainSize(), grown) : merge(current, grown);
+    }
+
+    // Runs with the pending values moved to the main run
+    private static Runs merge(Runs current, long[] pending) {
+        long[] main = current.main();
+        int size = current.mainSize();
+        int merged = size + pending.length;
+        if (size == 0 || pending[0] > main[size - 1]) {
+            if (merged > main.length) {
+                main = Arrays.copyOf(main, Math.max(merged, main.length * 2));
+            }
+            // Past the end of every published run of this array
+            System.arraycopy(pending, 0, main, size, pending.length);
+            return new Runs(main, merged, EMPTY);
+        }
+        long[] next = new long[merged + merged / 8];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged; k++) {
+            next[k] = j == pending.length || (i < size && main[i] < pending[j]) ? main[i++] : pending[j++];
+        }
+        return new Runs(next, merged, EMPTY);
+    }
+
+    public long size() {
+        Runs current = runs;
+        return current.mainSize() + current.pending().length;
+    }
+
+    /**
+     * @param value value to look for
+     * @return the greatest value lower than or equal to the given one, NONE if there is none
+     */
+    public long floor(long value) {
+        Runs current = runs;
+        return Math.max(floor(current.main(), current.mainSize(), value),
+                floor(current.pending(), current.pending().length, value));
+    }
+
+    private static long floor(long[] values, int size, long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return values[index];
+        }
+        int before = -index - 2;
+        return before < 0 ? NONE : values[before];
+    }
+
+    /**
+     * Calls the consumer with the values of a range in increasing order
+     * @param from first value of the range, inclusive
+     * @param to last value of the range, inclusive
+     * @param consumer receives each value
+     */
+    public void forEach(long from, long to, LongConsumer consumer) {
+        Runs current = runs;
+        long[] main = current.main();
+        int size = current.mainSize();
+        long[] pending = current.pending();
+        int i = lowerBound(main, size, from);
+        int j = lowerBound(pending, pending.length, from);
+        while (true) {
+            boolean inMain = i < size && main[i] <= to;
+            boolean inPending = j < pending.length && pending[j] <= to;
+            if (!inMain && !inPending) {
+                return;
+            }
+            consumer.accept(inMain && (!inPending || main[i] < pending[j]) ? main[i++] : pending[j++]);
+        }
+    }
+
+    // First position whose value is not lower than the given one
+    private static int lowerBound(long[] values, int size, long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        return index >= 0 ? index : -index - 1;
+    }
+}
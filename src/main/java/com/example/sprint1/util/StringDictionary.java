@@ -0,0 +1,76 @@
+package com.example.sprint1.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of strings shared by many objects, each distinct string is kept once and the objects
+ * keep its int code. Meant for fields with few distinct values, like the brands of the products.
+ * Codes are never reused or removed. Lookups of known strings and decoding don't lock.
+ */
+public class StringDictionary {
+
+    // Code of null
+    public static final int NULL = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // Strings by code, replaced by a bigger copy when it is full
+    private volatile String[] values = new String[16];
+    private volatile int size;
+
+    /**
+     * Returns the code of a string, adding it to the dictionary if it is new
+     * @param value string to encode, may be null
+     * @return the code of the string, NULL for null
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int next = size;
+        String[] table = values;
+        if (next == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[next] = value;
+        values = table;
+        // Published after the string, so a reader that sees the code finds the string
+        size = next + 1;
+        codes.put(value, next);
+        return next;
+    }
+
+    /**
+     * Returns the string of a code
+     * @param code code returned by encode
+     * @return the string, null for NULL
+     * @throws IllegalArgumentException if the code isn't in the dictionary
+     */
+    public String decode(int code) {
+        if (code == NULL) {
+            return null;
+        }
+        if (code < 0 || code >= size) {
+            throw new IllegalArgumentException("Unknown dictionary code: " + code);
+        }
+        return values[code];
+    }
+
+    /**
+     * Returns the amount of distinct strings
+     * @return the size of the dictionary
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.sprint1.util;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits a text in the terms of the full-text search: runs of letters and digits, in lower case and
+ * without accents, so "Camión", "camion" and "CAMIÓN" are the same term. The ñ and the ü are folded
+ * to n and u as well, people often type them without the mark.
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * Returns the distinct terms of a text, in the order they first appear
+     * @param text text to split, may be null
+     * @return the terms, empty if the text has no letters or digits
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    // Lower case without the accents, the texts that are already plain ASCII skip the normalization
+    private static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7F) {
+                // Splits each accented letter in the letter and its marks, and drops the marks
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            }
+        }
+        return lower;
+    }
+}
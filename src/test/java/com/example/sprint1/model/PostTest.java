@@ -0,0 +1,28 @@
+package com.example.sprint1.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostTest {
+
+    /**
+     * Verify that the date written by hand is the one of DATE_FORMATTER, and that it is read back
+     */
+    @Test
+    @DisplayName("Test getDate and setDate")
+    public void testDate() {
+        Post post = new Post();
+        for (LocalDate date = LocalDate.of(1999, 12, 1); date.isBefore(LocalDate.of(2031, 1, 1)); date = date.plusDays(1)) {
+            post.setEpochDay((int) date.toEpochDay());
+            assertEquals(date.format(Post.DATE_FORMATTER), post.getDate());
+        }
+        post.setDate("07-03-0999");
+        assertEquals("07-03-0999", post.getDate());
+        post.setEpochDay((int) LocalDate.of(12_000, 1, 1).toEpochDay());
+        assertEquals(LocalDate.of(12_000, 1, 1).format(Post.DATE_FORMATTER), post.getDate());
+    }
+}
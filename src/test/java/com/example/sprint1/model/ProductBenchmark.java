@@ -0,0 +1,72 @@
+package com.example.sprint1.model;
+
+import com.example.sprint1.dto.ProductDto;
+import com.example.sprint1.util.Bench;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ProductBenchmark {
+
+    private static final int PRODUCTS = 200_000;
+
+    private static final String[] NOTES = {
+            "Producto nuevo con garantía oficial de doce meses, envío gratis a todo el país y devolución sin cargo.",
+            "Unidad reacondicionada, probada por el vendedor, con seis meses de garantía y factura A o B.",
+            "Edición especial, incluye caja original, manual de uso y accesorios; consultar stock antes de comprar."
+    };
+
+    // The strings of a product, each one a new instance as the JSON parser creates them
+    private static String[] fields(int i) {
+        return new String[]{"Product " + i, new String("Type " + i % 20), new String("Brand " + i % 50),
+                new String("Color " + i % 10), NOTES[i % NOTES.length] + " Lote " + i % 100 + "."};
+    }
+
+    /**
+     * Compares the heap of products with dictionary-encoded type, brand and color and compressed notes
+     * with the same products as plain strings, and the cost of decoding them in the getters
+     */
+    @Test
+    @DisplayName("Benchmark the memory of the encoded products")
+    public void benchmarkMemory() {
+        Bench.retainedBytes("user-018 Product (encoded), 200k products", () -> {
+            Product[] products = new Product[PRODUCTS];
+            for (int i = 0; i < PRODUCTS; i++) {
+                String[] fields = fields(i);
+                products[i] = new Product(i, fields[0], fields[1], fields[2], fields[3], fields[4]);
+            }
+            return products;
+        });
+        Bench.retainedBytes("user-018 plain strings (ProductDto), 200k products", () -> {
+            ProductDto[] products = new ProductDto[PRODUCTS];
+            for (int i = 0; i < PRODUCTS; i++) {
+                String[] fields = fields(i);
+                products[i] = new ProductDto(i, fields[0], fields[1], fields[2], fields[3], fields[4]);
+            }
+            return products;
+        });
+
+        Product[] products = new Product[1_000];
+        ProductDto[] plain = new ProductDto[products.length];
+        for (int i = 0; i < products.length; i++) {
+            String[] fields = fields(i);
+            products[i] = new Product(i, fields[0], fields[1], fields[2], fields[3], fields[4]);
+            plain[i] = new ProductDto(i, fields[0], fields[1], fields[2], fields[3], fields[4]);
+        }
+        Bench.time("user-018 Product getters (decode)", products.length, () -> {
+            long length = 0;
+            for (Product product : products) {
+                length += product.getType().length() + product.getBrand().length() + product.getColor().length()
+                        + product.getNotes().length();
+            }
+            return length;
+        });
+        Bench.time("user-018 ProductDto getters (plain)", plain.length, () -> {
+            long length = 0;
+            for (ProductDto product : plain) {
+                length += product.getType().length() + product.getBrand().length() + product.getColor().length()
+                        + product.getNotes().length();
+            }
+            return length;
+        });
+    }
+}
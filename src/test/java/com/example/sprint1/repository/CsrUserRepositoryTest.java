@@ -0,0 +1,182 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.exception.BadRequestException;
+import com.example.sprint1.exception.NotFoundException;
+import com.example.sprint1.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsrUserRepositoryTest {
+
+    CsrUserRepositoryImpl csrRepository;
+    UserRepositoryImpl hashRepository;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        csrRepository = new CsrUserRepositoryImpl();
+        hashRepository = new UserRepositoryImpl();
+    }
+
+    private Set<Integer> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toSet());
+    }
+
+    /**
+     * Verify that the graph loaded in CSR form has the same followers and followed as the users file
+     */
+    @Test
+    @DisplayName("Test CSR graph matches the loaded users")
+    public void testLoadedGraph() {
+        for (User user : hashRepository.findAll()) {
+            User view = csrRepository.findUserById(user.getId());
+            assertEquals(user.getFollowers(), view.getFollowers());
+            assertEquals(user.getFollowed(), view.getFollowed());
+            assertEquals(user.getFollowers().size(), csrRepository.countFollowers(user.getId()));
+            assertEquals(ids(hashRepository.getFollowersById(user.getId())), ids(csrRepository.getFollowersById(user.getId())));
+        }
+        assertNull(csrRepository.findUserById(0));
+        assertThrows(NotFoundException.class, () -> csrRepository.getFollowedById(0));
+    }
+
+    /**
+     * Verify that follows and unfollows are read from the delta log and kept after a compaction
+     */
+    @Test
+    @DisplayName("Test CSR follow, unfollow and compaction")
+    public void testFollowUnfollowAndCompact() {
+        User seller = csrRepository.findAll().stream()
+                .filter(u -> !u.getId().equals(3) && !u.getFollowers().contains(3))
+                .findFirst().orElseThrow();
+        User unfollowed = csrRepository.findUserById(csrRepository.findUserById(3).getFollowed().iterator().next());
+        int followers = csrRepository.countFollowers(seller.getId());
+
+        csrRepository.updateUserFollower(csrRepository.findUserById(3), seller);
+        assertThrows(BadRequestException.class, () -> csrRepository.updateUserFollower(csrRepository.findUserById(3), seller));
+        csrRepository.updateUserFollowerDelete(csrRepository.findUserById(3), unfollowed);
+
+        assertTrue(csrRepository.findUserById(seller.getId()).getFollowers().contains(3));
+        assertFalse(csrRepository.findUserById(3).getFollowed().contains(unfollowed.getId()));
+        assertEquals(followers + 1, csrRepository.countFollowers(seller.getId()));
+
+        User before = csrRepository.findUserById(3);
+        csrRepository.compact();
+        User after = csrRepository.findUserById(3);
+
+        assertEquals(before.getFollowed(), after.getFollowed());
+        assertTrue(csrRepository.findUserById(seller.getId()).getFollowers().contains(3));
+        assertEquals(followers + 1, csrRepository.countFollowers(seller.getId()));
+        List<Integer> page = csrRepository.getFollowedPage(3, null, 100).stream().map(User::getId).toList();
+        assertEquals(after.getFollowed().stream().sorted().toList(), page);
+    }
+
+    /**
+     * Verify that the name sorted slices match the hash repository, with the delta log applied and after a compaction
+     */
+    @Test
+    @DisplayName("Test CSR lists sorted by name")
+    public void testByName() {
+        User seller = csrRepository.findAll().stream()
+                .filter(u -> !u.getId().equals(3) && !u.getFollowers().contains(3))
+                .findFirst().orElseThrow();
+        User unfollowed = csrRepository.findUserById(csrRepository.findUserById(3).getFollowed().iterator().next());
+        csrRepository.updateUserFollower(csrRepository.findUserById(3), seller);
+        csrRepository.updateUserFollowerDelete(csrRepository.findUserById(3), unfollowed);
+        hashRepository.updateUserFollower(hashRepository.findUserById(3), hashRepository.findUserById(seller.getId()));
+        hashRepository.updateUserFollowerDelete(hashRepository.findUserById(3), hashRepository.findUserById(unfollowed.getId()));
+
+        for (int round = 0; round < 2; round++) {
+            for (User user : hashRepository.findAll()) {
+                assertEquals(idList(hashRepository.getFollowersByName(user.getId(), true, null, Integer.MAX_VALUE)),
+                        idList(csrRepository.getFollowersByName(user.getId(), true, null, Integer.MAX_VALUE)));
+                assertEquals(idList(hashRepository.getFollowedByName(user.getId(), false, null, Integer.MAX_VALUE)),
+                        idList(csrRepository.getFollowedByName(user.getId(), false, null, Integer.MAX_VALUE)));
+            }
+            List<Integer> followed = idList(hashRepository.getFollowedByName(3, true, null, Integer.MAX_VALUE));
+            assertEquals(followed.subList(1, followed.size()),
+                    idList(csrRepository.getFollowedByName(3, true, followed.get(0), Integer.MAX_VALUE)));
+            List<Integer> reversed = new ArrayList<>(followed.subList(0, followed.size() - 1));
+            Collections.reverse(reversed);
+            assertEquals(reversed,
+                    idList(csrRepository.getFollowedByName(3, false, followed.get(followed.size() - 1), Integer.MAX_VALUE)));
+            csrRepository.compact();
+        }
+        assertThrows(BadRequestException.class, () -> csrRepository.getFollowedByName(3, true, 0, 1));
+    }
+
+    /**
+     * Verify that a compaction of many follows and unfollows of the same users gives the same graph as the
+     * hash repository, and that views read the graph when used and keep their own changes
+     */
+    @Test
+    @DisplayName("Test CSR compaction of a long delta log and user views")
+    public void testCompactManyAndViews() {
+        List<Integer> ids = hashRepository.findAll().stream().map(User::getId).toList();
+        User view = csrRepository.findUserById(ids.get(0));
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            int from = ids.get(random.nextInt(ids.size()));
+            int to = ids.get(random.nextInt(ids.size()));
+            if (from == to) {
+                continue;
+            }
+            boolean follows = hashRepository.findUserById(from).getFollowed().contains(to);
+            if (follows) {
+                hashRepository.updateUserFollowerDelete(hashRepository.findUserById(from), hashRepository.findUserById(to));
+                csrRepository.updateUserFollowerDelete(csrRepository.findUserById(from), csrRepository.findUserById(to));
+            } else {
+                hashRepository.updateUserFollower(hashRepository.findUserById(from), hashRepository.findUserById(to));
+                csrRepository.updateUserFollower(csrRepository.findUserById(from), csrRepository.findUserById(to));
+            }
+        }
+        assertEquals(hashRepository.findUserById(ids.get(0)).getFollowed(), view.getFollowed());
+        csrRepository.compact();
+        for (User user : hashRepository.findAll()) {
+            User compacted = csrRepository.findUserById(user.getId());
+            assertEquals(user.getFollowers(), compacted.getFollowers());
+            assertEquals(user.getFollowed(), compacted.getFollowed());
+            assertEquals(user.getFollowed().size(), compacted.getFollowed().size());
+        }
+
+        int unknown = Collections.max(ids) + 1;
+        assertTrue(view.getFollowed().add(unknown));
+        assertTrue(view.getFollowed().contains(unknown));
+        assertFalse(csrRepository.findUserById(ids.get(0)).getFollowed().contains(unknown));
+    }
+
+    private List<Integer> idList(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+
+    /**
+     * Verify that the graph is loaded from the users snapshot when there is one, instead of the users file
+     */
+    @Test
+    @DisplayName("Test CSR graph loaded from a snapshot")
+    public void testLoadSnapshot(@TempDir Path directory) throws IOException {
+        SnapshotStore store = new SnapshotStore(directory);
+        store.writeUsers(42, List.of(new User(1, "Seller", Set.of(2, 3), Set.of(), Set.of(10)),
+                new User(2, "Buyer", Set.of(), Set.of(1), Set.of()),
+                new User(3, "Other", Set.of(), Set.of(1), Set.of())));
+
+        CsrUserRepositoryImpl repository = new CsrUserRepositoryImpl(Optional.of(store));
+
+        assertEquals(3, repository.findAll().size());
+        assertEquals(Set.of(2, 3), ids(repository.getFollowersById(1)));
+        assertEquals(Set.of(1), ids(repository.getFollowedById(2)));
+        assertEquals(Set.of(10), repository.findUserById(1).getPosts());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.User;
+import com.example.sprint1.util.Bench;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class FollowContentionBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int THREADS = 4;
+    // Follows and unfollows of each thread per round
+    private static final int OPERATIONS = 200_000;
+
+    @TempDir
+    Path directory;
+
+    private interface FollowStep {
+        void run(User user, User userToFollow);
+    }
+
+    /**
+     * Compares follows and unfollows of unrelated users from several threads with the striped locks of
+     * the repository and with one lock around every follow, as a global lock would do
+     */
+    @Test
+    @DisplayName("Benchmark follows of several threads with striped and global locks")
+    public void benchmarkFollows() throws IOException {
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new User(i, "user" + i, Set.of(), Set.of(), Set.of()));
+        }
+        SnapshotStore snapshotStore = new SnapshotStore(directory);
+        snapshotStore.writeUsers(0, users);
+        UserRepositoryImpl userRepository = new UserRepositoryImpl(Optional.of(snapshotStore));
+        userRepository.afterSingletonsInstantiated();
+        Object globalLock = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int threads : new int[]{1, THREADS}) {
+                Bench.time("user-012 striped locks, " + threads + " threads", threads * OPERATIONS,
+                        () -> followAll(executor, userRepository, threads, (user, userToFollow) -> {
+                            userRepository.updateUserFollower(user, userToFollow);
+                            userRepository.updateUserFollowerDelete(user, userToFollow);
+                        }));
+                Bench.time("user-012 global lock, " + threads + " threads", threads * OPERATIONS,
+                        () -> followAll(executor, userRepository, threads, (user, userToFollow) -> {
+                            synchronized (globalLock) {
+                                userRepository.updateUserFollower(user, userToFollow);
+                                userRepository.updateUserFollowerDelete(user, userToFollow);
+                            }
+                        }));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Bench.report("user-012 available processors", String.valueOf(Runtime.getRuntime().availableProcessors()));
+    }
+
+    // Each thread follows and unfollows users of its own range, so the threads never share an edge
+    private static int followAll(ExecutorService executor, UserRepositoryImpl userRepository, int threads,
+                                 FollowStep step) {
+        List<Future<?>> futures = new ArrayList<>();
+        int range = USERS / threads;
+        for (int thread = 0; thread < threads; thread++) {
+            int first = 1 + thread * range;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < OPERATIONS / 2; i++) {
+                    User user = userRepository.findUserById(first + i % range);
+                    User userToFollow = userRepository.findUserById(first + (i * 7 + 1) % range);
+                    if (user != userToFollow) {
+                        step.run(user, userToFollow);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return futures.size();
+    }
+}
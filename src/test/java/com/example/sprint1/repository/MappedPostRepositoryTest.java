@@ -0,0 +1,135 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedPostRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    MappedPostRepositoryImpl mappedRepository;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mappedRepository = new MappedPostRepositoryImpl(directory);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        mappedRepository.close();
+    }
+
+    private Post newPost(Integer id, Integer userId, LocalDate date) {
+        Product product = new Product(id, "Product " + id, "Type", null, "Colór", "Notes");
+        return new Post(id, userId, date.format(Post.DATE_FORMATTER), 1, 10.0, product, true, 0.5);
+    }
+
+    /**
+     * Verify that the posts of the JSON file are read back as in the heap repository
+     */
+    @Test
+    @DisplayName("Test load from the JSON file")
+    public void testLoad() throws IOException {
+        assertEquals(new PostRepositoryImpl().findAll(), mappedRepository.findAll());
+    }
+
+    /**
+     * Verify that a saved post is read back with every field, and that duplicated ids are rejected
+     */
+    @Test
+    @DisplayName("Test save and findById")
+    public void testSaveAndFindById() {
+        Post post = newPost(1000, 1, LocalDate.now());
+        Post bare = new Post(1001, 1, LocalDate.now().format(Post.DATE_FORMATTER), null, null, null, false, null);
+
+        mappedRepository.save(post);
+        mappedRepository.save(bare);
+
+        assertEquals(post, mappedRepository.findById(1000));
+        assertEquals(bare, mappedRepository.findById(1001));
+        assertNull(mappedRepository.findById(1002));
+        assertThrows(IllegalArgumentException.class, () -> mappedRepository.save(newPost(1000, 2, LocalDate.now())));
+        assertEquals(List.of(post, bare), mappedRepository.findAllById(List.of(1000, 1002, 1001)));
+    }
+
+    /**
+     * Verify that the window of getResentPost is ordered by date and that the iterator pages after a key in both orders
+     */
+    @Test
+    @DisplayName("Test getResentPost and iterator")
+    public void testGetResentPost() {
+        mappedRepository.save(newPost(1000, 1, LocalDate.now().minusDays(3)));
+        mappedRepository.save(newPost(1001, 1, LocalDate.now().minusDays(20)));
+        mappedRepository.save(newPost(1002, 1, LocalDate.now().minusDays(7)));
+        mappedRepository.save(newPost(1003, 2, LocalDate.now()));
+
+        assertEquals(List.of(1000), mappedRepository.getResentPost(1, 7).stream().map(Post::getId).toList());
+        assertEquals(List.of(1001, 1002, 1000), mappedRepository.getResentPost(1, 30).stream().map(Post::getId).toList());
+        assertTrue(mappedRepository.getResentPost(99).isEmpty());
+
+        long afterKey = PostRepositoryImpl.timeKey(LocalDate.now().minusDays(7).toEpochDay(), 1002);
+        List<Integer> ascending = new ArrayList<>();
+        mappedRepository.getResentPostIterator(1, 30, true, afterKey).forEachRemaining(p -> ascending.add(p.getId()));
+        List<Integer> descending = new ArrayList<>();
+        mappedRepository.getResentPostIterator(1, 30, false, afterKey).forEachRemaining(p -> descending.add(p.getId()));
+        assertEquals(List.of(1000), ascending);
+        assertEquals(List.of(1001), descending);
+    }
+
+    /**
+     * Verify the author index when it grows past its arrays, with posts in date order and older posts in between
+     */
+    @Test
+    @DisplayName("Test author index with many posts")
+    public void testManyPostsOfAnAuthor() {
+        List<Post> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            // Every tenth post is older than the ones before it
+            int daysAgo = i % 10 == 0 ? 299 - i / 2 : 299 - i;
+            Post post = newPost(2000 + i, 99, LocalDate.now().minusDays(daysAgo));
+            mappedRepository.save(post);
+            expected.add(post);
+        }
+        expected.sort((a, b) -> Long.compare(PostRepositoryImpl.timeKey(a.getEpochDay(), a.getId()),
+                PostRepositoryImpl.timeKey(b.getEpochDay(), b.getId())));
+
+        assertEquals(expected, mappedRepository.getResentPost(99, 400));
+        assertEquals(300, mappedRepository.countPromoPosts(99));
+        assertEquals(expected.get(expected.size() - 1), mappedRepository.findPromoPosts(99).get(0));
+        // The search reads the same index, newest first
+        List<Post> newestFirst = new ArrayList<>(expected);
+        Collections.reverse(newestFirst);
+        assertEquals(newestFirst.subList(0, 20),
+                mappedRepository.search(new PostSearchIndex.Query(99, null, null, null, null, null, true), 20));
+    }
+
+    /**
+     * Verify that the promo index gives the same counts and posts as the heap repository
+     */
+    @Test
+    @DisplayName("Test promo index")
+    public void testPromoIndex() throws IOException {
+        PostRepositoryImpl heapRepository = new PostRepositoryImpl();
+        mappedRepository.save(newPost(1000, 3, LocalDate.now()));
+        heapRepository.save(newPost(1000, 3, LocalDate.now()));
+
+        assertEquals(heapRepository.countPromoPosts(3), mappedRepository.countPromoPosts(3));
+        assertEquals(heapRepository.findPromoPosts(3), mappedRepository.findPromoPosts(3));
+        assertEquals(1000, mappedRepository.findPromoPosts(3).get(0).getId());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostColumnsTest {
+
+    private Post newPost(int id, int userId, LocalDate date, Integer category, Double price, boolean promo, Double discount) {
+        return new Post(id, userId, date.format(Post.DATE_FORMATTER), category, price, null, promo, discount);
+    }
+
+    /**
+     * Verify the promo counts of the aggregations by author, category and day, over more than one chunk
+     */
+    @Test
+    @DisplayName("Test promo count and aggregate")
+    public void testAggregate() {
+        PostColumns columns = new PostColumns();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 10_000; i++) {
+            columns.append(newPost(i, i % 10, today, 1, 10.0, i % 4 == 0, 0.5));
+        }
+        columns.append(newPost(10_000, 3, today.minusDays(30), 2, 30.0, true, null));
+        columns.append(newPost(10_001, 3, today, 2, null, false, 0.1));
+
+        assertEquals(10_002, columns.size());
+        // Ids 0, 20, 40... of author 0 have a promo
+        assertEquals(500, columns.aggregate(0, null, null).promoCount());
+        assertEquals(1, columns.aggregate(3, null, null).promoCount());
+        assertEquals(0, columns.aggregate(99, null, null).promoCount());
+
+        PostColumns.Stats category = columns.aggregate(3, 2, null);
+        assertEquals(2, category.count());
+        assertEquals(1, category.promoCount());
+        assertEquals(30.0, category.averagePrice());
+        assertEquals(0.1, category.averageDiscount());
+
+        PostColumns.Stats recent = columns.aggregate(3, 2, (int) today.minusDays(7).toEpochDay());
+        assertEquals(1, recent.count());
+        assertTrue(Double.isNaN(recent.averagePrice()));
+
+        PostColumns.Stats all = columns.aggregate(null, null, null);
+        assertEquals(10_002, all.count());
+        assertEquals(2_501, all.promoCount());
+        assertEquals(0, columns.aggregate(null, 99, null).count());
+    }
+}
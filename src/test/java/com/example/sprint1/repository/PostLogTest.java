@@ -0,0 +1,64 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostLogTest {
+
+    private Post newPost(int id) {
+        Post post = new Post();
+        post.setId(id);
+        return post;
+    }
+
+    /**
+     * Verify that the posts are kept in order across chunks and that a snapshot doesn't see later appends
+     */
+    @Test
+    @DisplayName("Test append and snapshot")
+    public void testAppendAndSnapshot() {
+        PostLog log = new PostLog();
+        for (int i = 0; i < 5000; i++) {
+            log.append(newPost(i));
+        }
+
+        List<Post> snapshot = log.snapshot();
+        log.append(newPost(5000));
+
+        assertEquals(5000, snapshot.size());
+        assertEquals(5001, log.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertEquals(i, snapshot.get(i).getId());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(5000));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(newPost(1)));
+    }
+
+    /**
+     * Verify that readers only see complete posts while another thread appends
+     */
+    @Test
+    @DisplayName("Test snapshots while appending")
+    public void testConcurrentAppend() throws InterruptedException {
+        PostLog log = new PostLog();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                log.append(newPost(i));
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<Post> snapshot = log.snapshot();
+            for (int i = 0; i < snapshot.size(); i++) {
+                assertEquals(i, snapshot.get(i).getId());
+            }
+        }
+        writer.join();
+        assertEquals(20000, log.snapshot().size());
+    }
+}
@@ -1,4 +1,98 @@
 package com.example.sprint1.repository;
 
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class PostRepositoryTest {
+
+    PostRepositoryImpl postRepository;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        postRepository = new PostRepositoryImpl();
+    }
+
+    private Post newPost(Integer id, Integer userId, LocalDate date) {
+        Product product = new Product(id, "Product " + id, "Type", "Brand", "Color", "Notes");
+        return new Post(id, userId, date.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")), 1, 10.0, product, false, 0.0);
+    }
+
+    /**
+     * Verify that saved posts are found by id and that duplicated ids are rejected
+     */
+    @Test
+    @DisplayName("Test save and findById")
+    public void testSaveAndFindById() {
+        Post post = newPost(1000, 1, LocalDate.now());
+
+        postRepository.save(post);
+
+        assertSame(post, postRepository.findById(1000));
+        assertNull(postRepository.findById(1001));
+        assertThrows(IllegalArgumentException.class, () -> postRepository.save(newPost(1000, 2, LocalDate.now())));
+        assertEquals(1, postRepository.findAll().stream().filter(p -> p.getId().equals(1000)).count());
+    }
+
+    /**
+     * Verify that getResentPost only returns the posts of the author inside the two weeks window
+     */
+    @Test
+    @DisplayName("Test getResentPost by author")
+    public void testGetResentPost() {
+        postRepository.save(newPost(1000, 1, LocalDate.now()));
+        postRepository.save(newPost(1001, 1, LocalDate.now().minusDays(20)));
+        postRepository.save(newPost(1002, 2, LocalDate.now()));
+
+        List<Post> recent = postRepository.getResentPost(1);
+
+        assertEquals(1, recent.size());
+        assertEquals(1000, recent.get(0).getId());
+        assertTrue(postRepository.getResentPost(99).isEmpty());
+    }
+
+    /**
+     * Verify that the window of getResentPost can be configured and returns the posts oldest first
+     */
+    @Test
+    @DisplayName("Test getResentPost with a custom window")
+    public void testGetResentPostWithDays() {
+        postRepository.save(newPost(1000, 1, LocalDate.now().minusDays(3)));
+        postRepository.save(newPost(1001, 1, LocalDate.now().minusDays(20)));
+        postRepository.save(newPost(1002, 1, LocalDate.now().minusDays(7)));
+
+        assertEquals(List.of(1000), postRepository.getResentPost(1, 7).stream().map(Post::getId).toList());
+        assertEquals(List.of(1001, 1002, 1000), postRepository.getResentPost(1, 30).stream().map(Post::getId).toList());
+    }
+
+    /**
+     * Verify that the promo index counts and lists only the promo posts of the author, newest first
+     */
+    @Test
+    @DisplayName("Test promo index")
+    public void testPromoIndex() {
+        int before = postRepository.countPromoPosts(1);
+        Post promo = newPost(1000, 1, LocalDate.now().minusDays(1));
+        promo.setHas_promo(true);
+        Post newerPromo = newPost(1001, 1, LocalDate.now());
+        newerPromo.setHas_promo(true);
+
+        postRepository.save(promo);
+        postRepository.save(newPost(1002, 1, LocalDate.now()));
+        postRepository.save(newerPromo);
+
+        assertEquals(before + 2, postRepository.countPromoPosts(1));
+        assertEquals(List.of(1001, 1000), postRepository.findPromoPosts(1).stream().map(Post::getId).limit(2).toList());
+        assertEquals(0, postRepository.countPromoPosts(99));
+        assertTrue(postRepository.findPromoPosts(99).isEmpty());
+    }
 }
@@ -0,0 +1,87 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.util.Bench;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostSearchBenchmark {
+
+    private static final int POSTS = 500_000;
+    private static final int USERS = 10_000;
+    private static final int LIMIT = 20;
+
+    /**
+     * Compares the planned search with a scan of every post for filters of different selectivity
+     */
+    @Test
+    @DisplayName("Benchmark the search against a full scan")
+    public void benchmarkSearch() {
+        LocalDate today = LocalDate.now();
+        Random random = new Random(42);
+        Post[] postsById = new Post[POSTS];
+        Map<Integer, NavigableSet<Long>> postsByUser = new HashMap<>();
+        Map<Integer, NavigableSet<Long>> promosByUser = new HashMap<>();
+        PostSearchIndex index = new PostSearchIndex(
+                userId -> postsByUser.containsKey(userId)
+                        ? PostSearchIndex.DateIndex.of(postsByUser.get(userId), postsByUser.get(userId).size()) : null,
+                userId -> promosByUser.containsKey(userId)
+                        ? PostSearchIndex.DateIndex.of(promosByUser.get(userId), promosByUser.get(userId).size()) : null);
+        for (int i = 0; i < POSTS; i++) {
+            Post post = new Post(i, random.nextInt(USERS), today.minusDays(random.nextInt(730)).format(Post.DATE_FORMATTER),
+                    random.nextInt(20), (double) random.nextInt(100_000) / 100, null, random.nextInt(10) == 0, 0.0);
+            postsById[i] = post;
+            long key = PostRepositoryImpl.timeKey(post.getEpochDay(), post.getId());
+            postsByUser.computeIfAbsent(post.getUser_id(), userId -> new TreeSet<>()).add(key);
+            if (post.isHas_promo()) {
+                promosByUser.computeIfAbsent(post.getUser_id(), userId -> new TreeSet<>()).add(key);
+            }
+            index.add(post);
+        }
+        int lastMonth = (int) today.minusDays(30).toEpochDay();
+        Map<String, PostSearchIndex.Query> queries = new LinkedHashMap<>();
+        queries.put("date only", new PostSearchIndex.Query(null, null, null, null, null, null, null));
+        queries.put("author + promo", new PostSearchIndex.Query(7, null, null, null, null, null, true));
+        queries.put("category + last month", new PostSearchIndex.Query(null, lastMonth, null, 3, null, null, null));
+        queries.put("narrow price", new PostSearchIndex.Query(null, null, null, null, 500.0, 500.5, null));
+        queries.put("category + promo + price", new PostSearchIndex.Query(null, null, null, 5, 100.0, 200.0, true));
+        queries.put("wide price", new PostSearchIndex.Query(null, null, null, null, 100.0, 200.0, null));
+
+        Comparator<Post> newestFirst = Comparator.comparingInt(Post::getEpochDay).thenComparingInt(Post::getId).reversed();
+        for (Map.Entry<String, PostSearchIndex.Query> entry : queries.entrySet()) {
+            PostSearchIndex.Query query = entry.getValue();
+            List<Post> expected = scan(postsById, query, newestFirst);
+            assertEquals(expected, index.search(query, LIMIT, id -> postsById[id]), entry.getKey());
+            double indexed = Bench.time("user-021 search, " + entry.getKey() + ", 500k posts", 1,
+                    () -> index.search(query, LIMIT, id -> postsById[id]));
+            double scanned = Bench.time("user-021 full scan, " + entry.getKey() + ", 500k posts", 1,
+                    () -> scan(postsById, query, newestFirst));
+            Bench.report("user-021 speed-up, " + entry.getKey(), String.format("%,.0fx", scanned / indexed));
+        }
+    }
+
+    // The newest LIMIT posts that match, checking every post
+    private static List<Post> scan(Post[] posts, PostSearchIndex.Query query, Comparator<Post> newestFirst) {
+        List<Post> matches = new ArrayList<>();
+        for (Post post : posts) {
+            if (query.matches(post)) {
+                matches.add(post);
+            }
+        }
+        matches.sort(newestFirst);
+        return new ArrayList<>(matches.subList(0, Math.min(LIMIT, matches.size())));
+    }
+}
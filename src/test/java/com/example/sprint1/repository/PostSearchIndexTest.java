@@ -0,0 +1,108 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostSearchIndexTest {
+
+    private final LocalDate today = LocalDate.now();
+    private final Map<Integer, Post> postsById = new HashMap<>();
+    // Author and promo indexes, kept by the repositories
+    private final Map<Integer, NavigableSet<Long>> postsByUser = new HashMap<>();
+    private final Map<Integer, NavigableSet<Long>> promosByUser = new HashMap<>();
+    private PostSearchIndex index;
+
+    private Post newPost(int id, int userId, LocalDate date, Integer category, Double price, boolean promo) {
+        return new Post(id, userId, date.format(Post.DATE_FORMATTER), category, price, null, promo, null);
+    }
+
+    // Ids of the posts that match the filter, newest first, computed without the indexes
+    private List<Integer> expected(Predicate<Post> filter) {
+        return postsById.values().stream().filter(filter)
+                .sorted((a, b) -> a.getEpochDay() != b.getEpochDay()
+                        ? Integer.compare(b.getEpochDay(), a.getEpochDay()) : Integer.compare(b.getId(), a.getId()))
+                .map(Post::getId).collect(Collectors.toList());
+    }
+
+    private List<Integer> search(PostSearchIndex.Query query, int limit) {
+        return index.search(query, limit, postsById::get).stream().map(Post::getId).collect(Collectors.toList());
+    }
+
+    private void add(Post post) {
+        long key = PostRepositoryImpl.timeKey(post.getEpochDay(), post.getId());
+        postsById.put(post.getId(), post);
+        postsByUser.computeIfAbsent(post.getUser_id(), userId -> new TreeSet<>()).add(key);
+        if (post.isHas_promo()) {
+            promosByUser.computeIfAbsent(post.getUser_id(), userId -> new TreeSet<>()).add(key);
+        }
+        index.add(post);
+    }
+
+    private static PostSearchIndex.DateIndex dateIndex(NavigableSet<Long> keys) {
+        return keys == null ? null : PostSearchIndex.DateIndex.of(keys, keys.size());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        index = new PostSearchIndex(userId -> dateIndex(postsByUser.get(userId)),
+                userId -> dateIndex(promosByUser.get(userId)));
+        for (int i = 0; i < 2_000; i++) {
+            add(newPost(i, i % 20, today.minusDays(i % 60), i % 5, (double) (i % 100), i % 7 == 0));
+        }
+        add(newPost(5_000, 1, today, null, null, true));
+    }
+
+    /**
+     * Verify that every combination of filters returns the same posts as a full scan, newest first
+     */
+    @Test
+    @DisplayName("Test search with combined filters")
+    public void testSearch() {
+        List<PostSearchIndex.Query> queries = List.of(
+                new PostSearchIndex.Query(null, null, null, null, null, null, null),
+                new PostSearchIndex.Query(3, null, null, null, null, null, null),
+                new PostSearchIndex.Query(3, null, null, 3, null, null, true),
+                new PostSearchIndex.Query(null, (int) today.minusDays(10).toEpochDay(),
+                        (int) today.minusDays(5).toEpochDay(), 2, null, null, null),
+                new PostSearchIndex.Query(null, null, null, null, 10.0, 10.0, null),
+                new PostSearchIndex.Query(null, null, null, 1, 20.5, 60.0, false),
+                new PostSearchIndex.Query(1, null, null, null, null, null, true),
+                new PostSearchIndex.Query(null, null, null, null, null, 5.0, true),
+                new PostSearchIndex.Query(null, null, null, null, null, null, true),
+                new PostSearchIndex.Query(null, (int) today.minusDays(3).toEpochDay(), null, null, null, null, null),
+                new PostSearchIndex.Query(4, null, (int) today.minusDays(30).toEpochDay(), 4, null, null, null));
+        for (PostSearchIndex.Query query : queries) {
+            assertEquals(expected(query::matches), search(query, Integer.MAX_VALUE), query.toString());
+        }
+    }
+
+    /**
+     * Verify the limit, whichever index drives the search, and the filters that match nothing
+     */
+    @Test
+    @DisplayName("Test search limit and empty results")
+    public void testSearchLimitAndEmpty() {
+        PostSearchIndex.Query byCategory = new PostSearchIndex.Query(null, null, null, 4, null, null, null);
+        PostSearchIndex.Query byPrice = new PostSearchIndex.Query(null, null, null, null, 42.0, 42.0, null);
+
+        assertEquals(expected(byCategory::matches).subList(0, 5), search(byCategory, 5));
+        assertEquals(expected(byPrice::matches).subList(0, 3), search(byPrice, 3));
+        assertTrue(search(new PostSearchIndex.Query(99, null, null, null, null, null, null), 10).isEmpty());
+        assertTrue(search(new PostSearchIndex.Query(null, null, null, 99, null, null, null), 10).isEmpty());
+        assertTrue(search(new PostSearchIndex.Query(null, 10, 5, null, null, null, null), 10).isEmpty());
+        assertTrue(search(new PostSearchIndex.Query(null, null, null, null, 500.0, null, null), 10).isEmpty());
+    }
+}
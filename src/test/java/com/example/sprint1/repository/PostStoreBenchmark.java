@@ -0,0 +1,101 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import com.example.sprint1.util.Bench;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class PostStoreBenchmark {
+
+    private static final int POSTS = 200_000;
+    private static final int LOOKUPS = 10_000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Compares the heap retained by the heap and the mapped post repositories holding the same posts,
+     * the time of a full GC with each one live, and the time of findById, which decodes a record in
+     * the mapped repository
+     */
+    @Test
+    @DisplayName("Benchmark the heap and the mapped post repositories")
+    public void benchmarkStores() throws IOException {
+        LocalDate today = LocalDate.now();
+        List<Post> posts = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            Product product = new Product(i, "Product " + i, "Type " + i % 20, "Brand " + i % 50,
+                    "Color " + i % 10, "Notes of the product " + i);
+            posts.add(new Post(i, i % 10_000, today.minusDays(i % 365).format(Post.DATE_FORMATTER), i % 5,
+                    10.0 + i % 1_000, product, i % 7 == 0, i % 7 == 0 ? 0.1 : 0.0));
+        }
+        SnapshotStore snapshotStore = new SnapshotStore(directory);
+        snapshotStore.writePosts(0, posts);
+        // Indexes both repositories keep on the heap
+        List<Post> indexed = posts;
+        Bench.retainedBytes("user-017 kept by both, search index", () -> {
+            PostSearchIndex searchIndex = new PostSearchIndex(userId -> null, userId -> null);
+            indexed.forEach(searchIndex::add);
+            return searchIndex;
+        });
+        Bench.retainedBytes("user-017 kept by both, text index", () -> {
+            ProductTextIndex textIndex = new ProductTextIndex();
+            indexed.forEach(textIndex::add);
+            return textIndex;
+        });
+        Bench.retainedBytes("user-017 kept by both, columns", () -> {
+            PostColumns columns = new PostColumns();
+            indexed.forEach(columns::append);
+            return columns;
+        });
+        posts = null;
+        indexed.clear();
+
+        List<IPostRepository> repositories = new ArrayList<>();
+        Bench.retainedBytes("user-017 heap repository, 200k posts", () -> {
+            try {
+                repositories.add(new PostRepositoryImpl(Optional.of(snapshotStore)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return repositories;
+        });
+        fullGc("user-017 full GC, heap repository live");
+        Bench.retainedBytes("user-017 mapped repository, 200k posts", () -> {
+            try {
+                repositories.add(new MappedPostRepositoryImpl(directory.resolve("mapped"), Optional.of(snapshotStore)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return repositories;
+        });
+        fullGc("user-017 full GC, both repositories live");
+
+        for (IPostRepository repository : repositories) {
+            Bench.time("user-017 findById, " + repository.getClass().getSimpleName(), LOOKUPS, () -> {
+                long sum = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    sum += repository.findById((int) ((i * 2_654_435_761L) % POSTS)).getUser_id();
+                }
+                return sum;
+            });
+        }
+    }
+
+    private static void fullGc(String name) {
+        System.gc();
+        long start = System.nanoTime();
+        System.gc();
+        Bench.report(name, String.format("%.1f ms", (System.nanoTime() - start) / 1e6));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductTextIndexTest {
+
+    private final Map<Integer, Post> postsById = new HashMap<>();
+    private ProductTextIndex index;
+
+    private void add(int id, LocalDate date, Product product) {
+        Post post = new Post(id, 1, date.format(Post.DATE_FORMATTER), 1, 10.0, product, false, null);
+        postsById.put(id, post);
+        index.add(post);
+    }
+
+    private List<Integer> search(String text, int limit) {
+        return index.search(text, limit, postsById::get).stream().map(Post::getId).collect(Collectors.toList());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        index = new ProductTextIndex();
+        LocalDate today = LocalDate.now();
+        add(1, today.minusDays(3), new Product(1, "Silla Gamer", "Gamer", "Racer", "Rojo", "Edición Especial"));
+        add(2, today.minusDays(1), new Product(2, "Camión de juguete", "Juguete", "Niño Feliz", "Azul", null));
+        add(3, today, new Product(3, "Silla de oficina", "Oficina", "Racer", "Rojo", "Cómoda"));
+        add(4, today.minusDays(2), new Product(4, "Teclado", "Gamer", "Redragon", "Rojo", "Edicion especial"));
+        add(5, today, null);
+        // Enough posts for the lists to have skip entries
+        for (int id = 100; id < 1_100; id++) {
+            add(id, today.minusDays(10), new Product(id, "Mesa " + id, "Oficina", "Generica", "Blanco", null));
+        }
+    }
+
+    /**
+     * Verify that every word must match, in any field, and that the posts come newest first
+     */
+    @Test
+    @DisplayName("Test search with several words")
+    public void testSearch() {
+        assertEquals(List.of(3, 1), search("silla rojo", 10));
+        assertEquals(List.of(3), search("SILLA oficina", 10));
+        assertEquals(List.of(4, 1), search("gamer rojo", 10));
+        assertEquals(List.of(1_099, 1_098), search("blanco oficina", 2));
+        assertEquals(List.of(500), search("mesa 500", 10));
+        assertTrue(search("silla azul", 10).isEmpty());
+        assertTrue(search("inexistente", 10).isEmpty());
+        assertTrue(search("  ¿? ", 10).isEmpty());
+    }
+
+    /**
+     * Verify that the accents, the ñ and the case are ignored on both the products and the query
+     */
+    @Test
+    @DisplayName("Test search without accents")
+    public void testSearchWithoutAccents() {
+        assertEquals(List.of(4, 1), search("edición especial", 10));
+        assertEquals(List.of(4, 1), search("EDICION", 10));
+        assertEquals(List.of(2), search("camion nino", 10));
+        assertEquals(List.of(2), search("Camión Niño", 10));
+        assertEquals(List.of(3), search("comoda", 10));
+    }
+}
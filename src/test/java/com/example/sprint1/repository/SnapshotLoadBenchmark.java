@@ -0,0 +1,228 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import com.example.sprint1.model.User;
+import com.example.sprint1.util.Bench;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotLoadBenchmark {
+
+    private static final int POSTS = 200_000;
+    private static final int USERS = 50_000;
+    private static final int FOLLOWS_PER_USER = 20;
+    // Records of the log before and after the snapshot
+    private static final int LOG_RECORDS = 500_000;
+    private static final int TAIL_RECORDS = 10_000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Compares reading the posts from a binary snapshot with parsing the same posts from a JSON array,
+     * as the startup did before the snapshots
+     */
+    @Test
+    @DisplayName("Benchmark loading posts from a snapshot and from JSON")
+    public void benchmarkLoad() throws IOException {
+        LocalDate today = LocalDate.now();
+        List<Post> posts = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            Product product = new Product(i, "Product " + i, "Type " + i % 20, "Brand " + i % 50,
+                    "Color " + i % 10, "Notes of the product " + i);
+            posts.add(new Post(i, i % 10_000, today.minusDays(i % 365).format(Post.DATE_FORMATTER), i % 5,
+                    10.0 + i % 1_000, product, i % 7 == 0, i % 7 == 0 ? 0.1 : 0.0));
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path json = directory.resolve("posts.json");
+        objectMapper.writeValue(json.toFile(), posts);
+        SnapshotStore snapshotStore = new SnapshotStore(directory);
+        snapshotStore.writePosts(0, posts);
+        Bench.report("user-015 JSON / snapshot file size, 200k posts",
+                String.format("%,d / %,d bytes", Files.size(json), Files.size(directory.resolve("posts.snap"))));
+
+        double fromJson = Bench.time("user-015 parse posts.json, 200k posts", POSTS, () -> {
+            List<Post> loaded = new ArrayList<>();
+            ObjectReader reader = objectMapper.readerFor(Post.class);
+            try (InputStream in = Files.newInputStream(json); JsonParser parser = objectMapper.createParser(in)) {
+                parser.nextToken();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    loaded.add(reader.readValue(parser));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            assertEquals(POSTS, loaded.size());
+            return loaded;
+        });
+        double fromSnapshot = Bench.time("user-015 read the posts snapshot, 200k posts", POSTS, () -> {
+            try {
+                List<Post> loaded = snapshotStore.readPosts().posts();
+                assertEquals(POSTS, loaded.size());
+                return loaded;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Bench.report("user-015 speed-up", String.format("%.1fx", fromJson / fromSnapshot));
+    }
+
+    /**
+     * Times the startup of the user stores with the write-ahead log: opening the log, reading the users
+     * snapshot and replaying the records after it. Compares a log that kept every record with one
+     * truncated at the snapshot, as the snapshots leave it now, and parsing the users from JSON
+     */
+    @Test
+    @DisplayName("Benchmark the startup of the user stores from a snapshot and the log")
+    public void benchmarkStartup() throws IOException {
+        List<Set<Integer>> followers = new ArrayList<>();
+        List<Set<Integer>> followed = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            followers.add(new HashSet<>());
+            followed.add(new HashSet<>());
+        }
+        for (int i = 0; i < USERS; i++) {
+            for (int k = 1; k <= FOLLOWS_PER_USER; k++) {
+                int other = (int) ((i + (long) k * 7_919) % USERS);
+                followed.get(i).add(other + 1);
+                followers.get(other).add(i + 1);
+            }
+        }
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(i + 1, "User " + i, followers.get(i), followed.get(i), Set.of()));
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path json = directory.resolve("users.json");
+        objectMapper.writeValue(json.toFile(), users);
+        SnapshotStore snapshotStore = new SnapshotStore(directory);
+
+        // The same records in a log that kept them all and in a log truncated at the snapshot
+        Path full = directory.resolve("full.wal");
+        Path truncated = directory.resolve("truncated.wal");
+        long snapshotOffset = 0;
+        Random random = new Random(42);
+        WriteAheadLog fullLog = new WriteAheadLog(full, WriteAheadLog.Durability.ASYNC);
+        WriteAheadLog truncatedLog = new WriteAheadLog(truncated, WriteAheadLog.Durability.ASYNC);
+        for (int i = 0; i < LOG_RECORDS + TAIL_RECORDS; i++) {
+            if (i == LOG_RECORDS) {
+                snapshotOffset = fullLog.endOffset();
+                assertEquals(snapshotOffset, truncatedLog.rotate());
+            }
+            int from = random.nextInt(USERS) + 1;
+            int to = random.nextInt(USERS) + 1;
+            if (i % 3 == 2) {
+                fullLog.logUnfollow(from, to);
+                truncatedLog.logUnfollow(from, to);
+            } else {
+                fullLog.logFollow(from, to);
+                truncatedLog.logFollow(from, to);
+            }
+        }
+        fullLog.close();
+        truncatedLog.close();
+        truncatedLog = new WriteAheadLog(truncated, WriteAheadLog.Durability.ASYNC);
+        truncatedLog.truncate(snapshotOffset);
+        truncatedLog.close();
+        snapshotStore.writeUsers(snapshotOffset, users);
+        Bench.report("user-015 JSON / snapshot file size, 50k users, 1M follows",
+                String.format("%,d / %,d bytes", Files.size(json), Files.size(directory.resolve("users.snap"))));
+
+        Bench.time("user-015 parse users.json, 50k users", USERS, () -> {
+            List<User> loaded = new ArrayList<>();
+            // users.json has no countFollowers, the serialized users do
+            ObjectReader reader = objectMapper.readerFor(User.class)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+            try (InputStream in = Files.newInputStream(json); JsonParser parser = objectMapper.createParser(in)) {
+                parser.nextToken();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    loaded.add(reader.readValue(parser));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            assertEquals(USERS, loaded.size());
+            return loaded;
+        });
+        Bench.time("user-015 read the users snapshot, 50k users", USERS, () -> {
+            try {
+                return snapshotStore.readUsers().users();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Bench.time("user-015 open the log, 510k records", 1, () -> open(full));
+        Bench.time("user-015 open the log truncated at the snapshot, 10k records", 1, () -> open(truncated));
+        Bench.time("user-015 CSR store startup, replaying the whole log", 1, () -> {
+            try {
+                WriteAheadLog log = new WriteAheadLog(full, WriteAheadLog.Durability.ASYNC);
+                CsrUserRepositoryImpl repository = new CsrUserRepositoryImpl(Optional.of(snapshotStore));
+                ReflectionTestUtils.setField(repository, "writeAheadLog", log);
+                ReflectionTestUtils.setField(repository, "replayFrom", 0L);
+                repository.replayLog();
+                log.close();
+                return repository;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Bench.time("user-015 CSR store startup, truncated log", 1, () -> {
+            try {
+                WriteAheadLog log = new WriteAheadLog(truncated, WriteAheadLog.Durability.ASYNC);
+                CsrUserRepositoryImpl repository = new CsrUserRepositoryImpl(Optional.of(snapshotStore));
+                ReflectionTestUtils.setField(repository, "writeAheadLog", log);
+                repository.replayLog();
+                log.close();
+                return repository;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Bench.time("user-015 hash store startup, truncated log", 1, () -> {
+            try {
+                WriteAheadLog log = new WriteAheadLog(truncated, WriteAheadLog.Durability.ASYNC);
+                UserRepositoryImpl repository = new UserRepositoryImpl(Optional.of(snapshotStore));
+                ReflectionTestUtils.setField(repository, "writeAheadLog", log);
+                repository.afterSingletonsInstantiated();
+                log.close();
+                return repository;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Opens and closes a log, which checks its last segment
+    private static WriteAheadLog open(Path path) {
+        try {
+            WriteAheadLog log = new WriteAheadLog(path, WriteAheadLog.Durability.ASYNC);
+            log.close();
+            return log;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import com.example.sprint1.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Verify that the users are read back with their follow edges in both directions and the log offset
+     */
+    @Test
+    @DisplayName("Test users snapshot")
+    public void testUsersSnapshot() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory);
+        User seller = new User(1, "Seller", Set.of(2, 3), Set.of(), Set.of(10, 11));
+        User buyer = new User(2, "Buyer", Set.of(), Set.of(1), Set.of());
+        User other = new User(3, null, Set.of(), Set.of(1), Set.of());
+
+        assertNull(store.readUsers());
+        store.writeUsers(42, List.of(seller, buyer, other));
+        SnapshotStore.UserSnapshot snapshot = store.readUsers();
+
+        assertEquals(42, snapshot.logOffset());
+        assertEquals(List.of(seller, buyer, other), snapshot.users());
+    }
+
+    /**
+     * Verify that the posts are read back with their optional fields and the log offset
+     */
+    @Test
+    @DisplayName("Test posts snapshot")
+    public void testPostsSnapshot() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory);
+        Post post = new Post(1000, 3, "01-02-2024", 1, 10.0,
+                new Product(1, "Product 1", "Type", null, "Color", "Notes"), true, 0.25);
+        Post bare = new Post(1001, 4, "02-02-2024", null, null, null, false, null);
+
+        assertNull(store.readPosts());
+        store.writePosts(7, List.of(post, bare));
+        SnapshotStore.PostSnapshot snapshot = store.readPosts();
+
+        assertEquals(7, snapshot.logOffset());
+        assertEquals(List.of(post, bare), snapshot.posts());
+        assertEquals("02-02-2024", snapshot.posts().get(1).getDate());
+    }
+}
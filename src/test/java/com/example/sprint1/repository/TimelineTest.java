@@ -0,0 +1,62 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimelineTest {
+
+    private final LocalDate today = LocalDate.now();
+
+    private Post newPost(Integer id, Integer userId, int daysAgo) {
+        String date = today.minusDays(daysAgo).format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+        return new Post(id, userId, date, 1, 10.0, null, false, 0.0);
+    }
+
+    private int daysAgo(int days) {
+        return (int) today.minusDays(days).toEpochDay();
+    }
+
+    /**
+     * Verify that the entries are read by date in both orders and that the oldest ones are dropped when it is full
+     */
+    @Test
+    @DisplayName("Test timeline order and eviction")
+    public void testOrderAndEviction() {
+        Timeline timeline = new Timeline(3);
+
+        timeline.add(newPost(1, 10, 3));
+        timeline.add(newPost(2, 10, 1));
+        timeline.add(newPost(3, 20, 2));
+        timeline.add(newPost(4, 20, 0));
+
+        assertEquals(3, timeline.size());
+        assertEquals(List.of(4, 2, 3), timeline.readPostIds(daysAgo(2), 10, false));
+        assertEquals(List.of(3, 2), timeline.readPostIds(daysAgo(2), 2, true));
+        // Post 1 was dropped, so a window that includes its day can't be served
+        assertNull(timeline.readPostIds(daysAgo(3), 10, false));
+        assertFalse(timeline.add(newPost(5, 10, 5)));
+    }
+
+    /**
+     * Verify that removing an author only keeps the posts of the other authors
+     */
+    @Test
+    @DisplayName("Test timeline removeAuthor")
+    public void testRemoveAuthor() {
+        Timeline timeline = new Timeline(10);
+        timeline.add(newPost(1, 10, 3));
+        timeline.add(newPost(2, 20, 1));
+        timeline.add(newPost(3, 10, 0));
+
+        timeline.removeAuthor(10);
+
+        assertEquals(List.of(2), timeline.readPostIds(daysAgo(5), 10, false));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.User;
+import com.example.sprint1.util.Bench;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserLookupBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int LOOKUPS = 1_000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Compares findUserById, served by the id index, with the scan of the list of users it replaced
+     */
+    @Test
+    @DisplayName("Benchmark findUserById against a scan of the users")
+    public void benchmarkFindUserById() throws IOException {
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new User(i, "user" + i, Set.of(), Set.of(), Set.of()));
+        }
+        SnapshotStore snapshotStore = new SnapshotStore(directory);
+        snapshotStore.writeUsers(0, users);
+        UserRepositoryImpl userRepository = new UserRepositoryImpl(Optional.of(snapshotStore));
+        userRepository.afterSingletonsInstantiated();
+        List<User> listOfUsers = userRepository.findAll();
+        int[] ids = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            ids[i] = 1 + (int) ((i * 2_654_435_761L) % USERS);
+        }
+
+        double indexed = Bench.time("user-001 findUserById, 100k users", LOOKUPS, () -> {
+            long sum = 0;
+            for (int id : ids) {
+                sum += userRepository.findUserById(id).getId();
+            }
+            return sum;
+        });
+        double scan = Bench.time("user-001 stream scan of the users, 100k users", LOOKUPS, () -> {
+            long sum = 0;
+            for (int id : ids) {
+                sum += listOfUsers.stream().filter(user -> user.getId() == id).findFirst().orElseThrow().getId();
+            }
+            return sum;
+        });
+        Bench.report("user-001 speed-up", String.format("%,.0fx", scan / indexed));
+        assertEquals(USERS, listOfUsers.size());
+    }
+}
@@ -1,4 +1,205 @@
 package com.example.sprint1.repository;
 
+import com.example.sprint1.exception.BadRequestException;
+import com.example.sprint1.exception.NotFoundException;
+import com.example.sprint1.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class UserRepositoryTest {
+
+    UserRepositoryImpl userRepository;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        userRepository = new UserRepositoryImpl();
+    }
+
+    /**
+     * Verify that every loaded user can be found through the id index
+     */
+    @Test
+    @DisplayName("Test findUserById and getUserById use the loaded users")
+    public void testFindUserById() {
+        for (User user : userRepository.findAll()) {
+            assertSame(user, userRepository.findUserById(user.getId()));
+            assertSame(user, userRepository.getUserById(user.getId()).orElse(null));
+        }
+        assertNull(userRepository.findUserById(0));
+        assertNull(userRepository.findUserById(null));
+        assertTrue(userRepository.getUserById(0).isEmpty());
+    }
+
+    /**
+     * Verify that the followers and followed lists are resolved from the ids of the user
+     */
+    @Test
+    @DisplayName("Test getFollowersById and getFollowedById")
+    public void testGetFollowersAndFollowedById() {
+        List<User> followers = userRepository.getFollowersById(3);
+        List<User> followed = userRepository.getFollowedById(3);
+
+        assertEquals(2, followers.size());
+        assertEquals(2, followed.size());
+        assertTrue(followers.stream().allMatch(u -> u.getFollowed().contains(3)));
+        assertTrue(followed.stream().allMatch(u -> u.getFollowers().contains(3)));
+        assertThrows(NotFoundException.class, () -> userRepository.getFollowersById(0));
+    }
+
+    /**
+     * Verify that the pages of followers are sorted by id and start after the given id
+     */
+    @Test
+    @DisplayName("Test getFollowersPage")
+    public void testGetFollowersPage() {
+        List<Integer> ids = userRepository.getFollowersById(3).stream().map(User::getId).sorted().toList();
+
+        List<User> firstPage = userRepository.getFollowersPage(3, null, 1);
+        List<User> secondPage = userRepository.getFollowersPage(3, firstPage.get(0).getId(), 10);
+
+        assertEquals(List.of(ids.get(0)), firstPage.stream().map(User::getId).toList());
+        assertEquals(ids.subList(1, ids.size()), secondPage.stream().map(User::getId).toList());
+        assertThrows(NotFoundException.class, () -> userRepository.getFollowersPage(0, null, 1));
+
+        // The sorted lists follow the follows and unfollows
+        User follower = userRepository.findUserById(1);
+        for (User seller : userRepository.findAll()) {
+            if (!seller.getId().equals(1) && !seller.getFollowers().contains(1)) {
+                userRepository.updateUserFollower(follower, seller);
+            }
+        }
+        User unfollowed = userRepository.getFollowedById(1).get(0);
+        userRepository.updateUserFollowerDelete(follower, unfollowed);
+        List<Integer> followed = userRepository.getFollowedById(1).stream().map(User::getId).sorted().toList();
+        List<Integer> paged = new ArrayList<>();
+        List<User> page = userRepository.getFollowedPage(1, null, 2);
+        while (!page.isEmpty()) {
+            page.forEach(user -> paged.add(user.getId()));
+            page = userRepository.getFollowedPage(1, page.get(page.size() - 1).getId(), 2);
+        }
+        assertEquals(followed, paged);
+        assertFalse(userRepository.getFollowersPage(unfollowed.getId(), null, 100).contains(follower));
+    }
+
+    /**
+     * Verify that the followers and followed are listed sorted by name in both directions, by pages,
+     * and after follows and unfollows
+     */
+    @Test
+    @DisplayName("Test getFollowersByName and getFollowedByName")
+    public void testGetByName() {
+        for (User user : userRepository.findAll()) {
+            List<User> expected = userRepository.getFollowersById(user.getId()).stream().sorted(User.BY_NAME).toList();
+            assertEquals(expected, userRepository.getFollowersByName(user.getId(), true, null, Integer.MAX_VALUE));
+            assertEquals(expected.stream().sorted(User.BY_NAME.reversed()).toList(), userRepository.getFollowersByName(user.getId(), false, null, Integer.MAX_VALUE));
+            assertEquals(userRepository.getFollowedById(user.getId()).stream().sorted(User.BY_NAME).toList(),
+                    userRepository.getFollowedByName(user.getId(), true, null, Integer.MAX_VALUE));
+            // Pages of two, each one after the last user of the previous one
+            List<User> paged = new ArrayList<>();
+            List<User> page = userRepository.getFollowersByName(user.getId(), false, null, 2);
+            while (!page.isEmpty()) {
+                paged.addAll(page);
+                page = userRepository.getFollowersByName(user.getId(), false, page.get(page.size() - 1).getId(), 2);
+            }
+            assertEquals(expected.stream().sorted(User.BY_NAME.reversed()).toList(), paged);
+        }
+
+        User follower = userRepository.findUserById(1);
+        User seller = userRepository.findAll().stream()
+                .filter(u -> !u.getId().equals(1) && !u.getFollowed().contains(u.getId()) && !u.getFollowers().contains(1))
+                .findFirst().orElseThrow();
+        userRepository.updateUserFollower(follower, seller);
+        List<User> followed = userRepository.getFollowedById(1).stream().sorted(User.BY_NAME.reversed()).toList();
+        assertEquals(followed, userRepository.getFollowedByName(1, false, null, Integer.MAX_VALUE));
+
+        List<User> firstPage = userRepository.getFollowedByName(1, false, null, 1);
+        List<User> secondPage = userRepository.getFollowedByName(1, false, firstPage.get(0).getId(), 100);
+        assertEquals(followed.subList(0, 1), firstPage);
+        assertEquals(followed.subList(1, followed.size()), secondPage);
+
+        userRepository.updateUserFollowerDelete(follower, seller);
+        assertFalse(userRepository.getFollowersByName(seller.getId(), true, null, Integer.MAX_VALUE).contains(follower));
+        assertThrows(NotFoundException.class, () -> userRepository.getFollowersByName(0, true, null, 1));
+        assertThrows(BadRequestException.class, () -> userRepository.getFollowersByName(1, true, 0, 1));
+    }
+
+    /**
+     * Verify that the counters follow the follows and unfollows, and that repeated ones are rejected
+     */
+    @Test
+    @DisplayName("Test countFollowers and countFollowed")
+    public void testFollowCounters() {
+        User follower = userRepository.findUserById(1);
+        User seller = userRepository.findAll().stream()
+                .filter(u -> !u.getId().equals(1) && !u.getFollowers().contains(1))
+                .findFirst().orElseThrow();
+        int followers = userRepository.countFollowers(seller.getId());
+        int followed = userRepository.countFollowed(1);
+        assertEquals(seller.getFollowers().size(), followers);
+
+        userRepository.updateUserFollower(follower, seller);
+        assertThrows(BadRequestException.class, () -> userRepository.updateUserFollower(follower, seller));
+        assertEquals(followers + 1, userRepository.countFollowers(seller.getId()));
+        assertEquals(followed + 1, userRepository.countFollowed(1));
+
+        userRepository.updateUserFollowerDelete(follower, seller);
+        assertThrows(BadRequestException.class, () -> userRepository.updateUserFollowerDelete(follower, seller));
+        assertEquals(followers, userRepository.countFollowers(seller.getId()));
+        assertEquals(followed, userRepository.countFollowed(1));
+        assertEquals(0, userRepository.countFollowers(0));
+    }
+
+    /**
+     * Verify that concurrent follows of the same users let exactly one through, and that follows in
+     * opposite directions don't deadlock
+     */
+    @Test
+    @DisplayName("Test concurrent follows are atomic")
+    public void testConcurrentFollow() throws Exception {
+        User follower = userRepository.findUserById(1);
+        User seller = userRepository.findUserById(2);
+        int followers = userRepository.countFollowers(2);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            boolean reverse = i % 2 == 1;
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    if (reverse) {
+                        userRepository.updateUserFollower(seller, follower);
+                    } else {
+                        userRepository.updateUserFollower(follower, seller);
+                    }
+                    return !reverse;
+                } catch (BadRequestException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int followed = 0;
+        for (Future<Boolean> result : results) {
+            followed += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, followed);
+        assertEquals(followers + 1, userRepository.countFollowers(2));
+        assertEquals(1, seller.getFollowers().stream().filter(id -> id == 1).count());
+        assertTrue(follower.getFollowers().contains(2));
+    }
 }
@@ -0,0 +1,66 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.util.Bench;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class WriteAheadLogBenchmark {
+
+    // Concurrent requests, each logs a follow and waits for it as the repositories do
+    private static final int THREADS = 8;
+    private static final int RECORDS = 800;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Compares the time per logged follow of each durability mode, with concurrent writers
+     */
+    @Test
+    @DisplayName("Benchmark the write-ahead log in each durability mode")
+    public void benchmarkDurability() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (WriteAheadLog.Durability durability : WriteAheadLog.Durability.values()) {
+                WriteAheadLog log = new WriteAheadLog(directory.resolve(durability + ".wal"), durability);
+                try {
+                    Bench.time("user-014 " + durability + ", " + THREADS + " writers", RECORDS,
+                            () -> logAll(executor, log));
+                } finally {
+                    log.close();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int logAll(ExecutorService executor, WriteAheadLog log) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int from = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < RECORDS / THREADS; i++) {
+                    log.await(log.logFollow(from, i));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return futures.size();
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.sprint1.repository;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private List<WriteAheadLog.LogRecord> replay(Path path) throws IOException {
+        WriteAheadLog log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        List<WriteAheadLog.LogRecord> records = new ArrayList<>();
+        log.replay(records::add);
+        log.close();
+        return records;
+    }
+
+    /**
+     * Verify that the records are read back in order after reopening the log, and that a torn record at the end is dropped
+     */
+    @Test
+    @DisplayName("Test replay and torn record")
+    public void testReplay() throws IOException {
+        Path path = directory.resolve("test.wal");
+        Post post = new Post(1000, 3, "01-02-2024", 1, 10.0,
+                new Product(1, "Product 1", "Type", "Brand", "Color", "Notes"), false, 0.0);
+        WriteAheadLog log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        log.await(log.logFollow(1, 2));
+        log.await(log.logUnfollow(1, 2));
+        log.await(log.logPost(post));
+        log.close();
+        // A crash in the middle of a write
+        Files.write(path, new byte[]{0, 0, 0, 20, 1, 2}, StandardOpenOption.APPEND);
+
+        List<WriteAheadLog.LogRecord> records = replay(path);
+
+        assertEquals(3, records.size());
+        assertEquals(new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.FOLLOW, 1, 2, null), records.get(0));
+        assertEquals(new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.UNFOLLOW, 1, 2, null), records.get(1));
+        assertEquals(post, records.get(2).post());
+        assertEquals(post.getDate(), records.get(2).post().getDate());
+
+        log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        log.await(log.logFollow(3, 4));
+        log.close();
+        assertEquals(4, replay(path).size());
+    }
+
+    /**
+     * Verify that a replay from the offset returned by endOffset only reads the records queued after it
+     */
+    @Test
+    @DisplayName("Test replay from offset")
+    public void testReplayFromOffset() throws IOException {
+        Path path = directory.resolve("offset.wal");
+        WriteAheadLog log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        log.await(log.logFollow(1, 2));
+        long offset = log.endOffset();
+        log.await(log.logFollow(3, 4));
+        log.await(log.logUnfollow(1, 2));
+        log.close();
+
+        log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        List<WriteAheadLog.LogRecord> records = new ArrayList<>();
+        log.replay(offset, records::add);
+        long end = log.endOffset();
+        log.replay(end, records::add);
+        log.close();
+
+        assertEquals(List.of(new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.FOLLOW, 3, 4, null),
+                new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.UNFOLLOW, 1, 2, null)), records);
+        assertEquals(Files.size(path), end);
+    }
+
+    /**
+     * Verify that records queued from many threads in batch mode are all durable once they are awaited
+     */
+    @Test
+    @DisplayName("Test group commit")
+    public void testGroupCommit() throws Exception {
+        Path path = directory.resolve("batch.wal");
+        WriteAheadLog log = new WriteAheadLog(path, WriteAheadLog.Durability.BATCH);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 800; i++) {
+            int from = i;
+            results.add(executor.submit(() -> log.await(log.logFollow(from, from + 1))));
+        }
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        log.close();
+
+        List<WriteAheadLog.LogRecord> records = replay(path);
+        assertEquals(800, records.size());
+        assertEquals(800, records.stream().mapToInt(WriteAheadLog.LogRecord::from).distinct().count());
+    }
+
+    /**
+     * Verify that a change whose record fails is not applied, and that the bytes of the failed record are
+     * padded, so the offsets read before or after the failure still point to the same records
+     */
+    @Test
+    @DisplayName("Test failed write")
+    public void testFailedWrite() throws IOException {
+        Path path = directory.resolve("failed.wal");
+        AtomicBoolean fail = new AtomicBoolean();
+        WriteAheadLog log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC) {
+            @Override
+            void write(ByteBuffer buffer) throws IOException {
+                if (fail.getAndSet(false)) {
+                    // Half of the record reaches the file
+                    super.write(buffer.slice(buffer.position(), buffer.remaining() / 2));
+                    throw new IOException("Disk full");
+                }
+                super.write(buffer);
+            }
+        };
+        List<Integer> applied = new ArrayList<>();
+        log.logFollow(1, 2, () -> { }, () -> applied.add(2));
+        fail.set(true);
+        assertThrows(UncheckedIOException.class, () -> log.logFollow(3, 4, () -> { }, () -> applied.add(4)));
+        long offset = log.endOffset();
+        log.logUnfollow(1, 2, () -> { }, () -> applied.add(-2));
+        assertThrows(IllegalStateException.class,
+                () -> log.logFollow(5, 6, () -> { throw new IllegalStateException(); }, () -> applied.add(6)));
+        log.close();
+
+        assertEquals(List.of(2, -2), applied);
+        assertEquals(List.of(new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.FOLLOW, 1, 2, null),
+                new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.UNFOLLOW, 1, 2, null)), replay(path));
+        WriteAheadLog reopened = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        List<WriteAheadLog.LogRecord> records = new ArrayList<>();
+        reopened.replay(offset, records::add);
+        reopened.close();
+        assertEquals(List.of(new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.UNFOLLOW, 1, 2, null)), records);
+    }
+
+    /**
+     * Verify that a snapshot offset starts a new segment, that truncating deletes the segments before it
+     * and that the reopened log replays and appends from there
+     */
+    @Test
+    @DisplayName("Test rotate and truncate")
+    public void testRotateAndTruncate() throws IOException {
+        Path path = directory.resolve("rotate.wal");
+        WriteAheadLog log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        log.await(log.logFollow(1, 2));
+        log.await(log.logFollow(1, 3));
+        long offset = log.rotate();
+        assertEquals(offset, log.rotate());
+        log.await(log.logUnfollow(1, 2));
+        log.truncate(offset);
+        log.close();
+
+        Path segment = directory.resolve("rotate.wal." + offset);
+        assertFalse(Files.exists(path));
+        assertTrue(Files.exists(segment));
+        WriteAheadLog reopened = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        List<WriteAheadLog.LogRecord> records = new ArrayList<>();
+        reopened.replay(offset, records::add);
+        assertEquals(offset + Files.size(segment), reopened.endOffset());
+        reopened.await(reopened.logFollow(3, 4));
+        reopened.close();
+
+        assertEquals(List.of(new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.UNFOLLOW, 1, 2, null)), records);
+        assertEquals(List.of(new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.UNFOLLOW, 1, 2, null),
+                new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.FOLLOW, 3, 4, null)), replay(path));
+    }
+
+    /**
+     * Verify that after replaying from an offset past the end of the log, as a snapshot newer than the
+     * records that survived a crash, the next records are written after that offset
+     */
+    @Test
+    @DisplayName("Test replay past the end")
+    public void testReplayPastEnd() throws IOException {
+        Path path = directory.resolve("past.wal");
+        WriteAheadLog log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        log.await(log.logFollow(1, 2));
+        log.close();
+
+        log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        List<WriteAheadLog.LogRecord> records = new ArrayList<>();
+        log.replay(1000, records::add);
+        assertTrue(records.isEmpty());
+        assertEquals(1000, log.endOffset());
+        log.await(log.logFollow(3, 4));
+        log.close();
+
+        log = new WriteAheadLog(path, WriteAheadLog.Durability.SYNC);
+        log.replay(1000, records::add);
+        log.close();
+        assertEquals(List.of(new WriteAheadLog.LogRecord(WriteAheadLog.RecordType.FOLLOW, 3, 4, null)), records);
+    }
+}
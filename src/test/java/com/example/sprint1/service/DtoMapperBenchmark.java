@@ -0,0 +1,68 @@
+package com.example.sprint1.service;
+
+import com.example.sprint1.dto.PostForListDto;
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import com.example.sprint1.util.Bench;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DtoMapperBenchmark {
+
+    // Posts of a feed, converted LISTS times per round
+    private static final int POSTS = 100;
+    private static final int LISTS = 200;
+
+    /**
+     * Compares converting the posts of a feed with DtoMapper and with ObjectMapper.convertValue, as the
+     * services did before: a new ObjectMapper per list
+     */
+    @Test
+    @DisplayName("Benchmark DtoMapper against ObjectMapper.convertValue")
+    public void benchmarkPostList() {
+        LocalDate today = LocalDate.now();
+        List<Post> posts = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            Product product = new Product(i, "Product " + i, "Type " + i % 20, "Brand " + i % 50,
+                    "Color " + i % 10, "Notes of the product " + i);
+            posts.add(new Post(i, 1, today.minusDays(i).format(Post.DATE_FORMATTER), i % 5, 10.0 + i, product,
+                    false, 0.0));
+        }
+        ObjectMapper sharedMapper = new ObjectMapper();
+        assertEquals(posts.stream().map(post -> sharedMapper.convertValue(post, PostForListDto.class)).toList(),
+                DtoMapper.mapAll(posts, DtoMapper::toPostForListDto));
+
+        Bench.time("user-024 DtoMapper.mapAll, per post", POSTS * LISTS, () -> {
+            List<PostForListDto> list = null;
+            for (int i = 0; i < LISTS; i++) {
+                list = DtoMapper.mapAll(posts, DtoMapper::toPostForListDto);
+            }
+            return list;
+        });
+        Bench.time("user-024 convertValue, shared ObjectMapper, per post", POSTS * LISTS, () -> {
+            List<PostForListDto> list = null;
+            for (int i = 0; i < LISTS; i++) {
+                list = posts.stream().map(post -> sharedMapper.convertValue(post, PostForListDto.class))
+                        .collect(Collectors.toList());
+            }
+            return list;
+        });
+        Bench.time("user-024 convertValue, new ObjectMapper per list, per post", POSTS * LISTS, () -> {
+            List<PostForListDto> list = null;
+            for (int i = 0; i < LISTS; i++) {
+                ObjectMapper mapper = new ObjectMapper();
+                list = posts.stream().map(post -> mapper.convertValue(post, PostForListDto.class))
+                        .collect(Collectors.toList());
+            }
+            return list;
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.sprint1.service;
+
+import com.example.sprint1.dto.FollowedPostListDto;
+import com.example.sprint1.dto.PostForListDto;
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
+import com.example.sprint1.util.Bench;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostJsonCacheBenchmark {
+
+    // Posts of a feed, written FEEDS times per round
+    private static final int POSTS = 50;
+    private static final int FEEDS = 200;
+
+    /**
+     * Compares writing a feed with the JSON cached by PostJsonCache and serializing every post field by field
+     */
+    @Test
+    @DisplayName("Benchmark writing feeds with the cached JSON")
+    public void benchmarkFeed() throws JsonProcessingException {
+        LocalDate today = LocalDate.now();
+        List<Post> posts = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            Product product = new Product(i, "Silla gamer " + i, "Gamer", "Racer", "Red & Black",
+                    "Edición especial con garantía oficial de doce meses, envío gratis y devolución sin cargo. Lote " + i);
+            posts.add(new Post(i, 1, today.minusDays(i).format(Post.DATE_FORMATTER), 100, 1500.5 + i, product,
+                    false, 0.0));
+        }
+        PostJsonCache cache = new PostJsonCache(16L << 20);
+        PostForListDtoSerializer serializer = new PostForListDtoSerializer();
+        serializer.postJsonCache = cache;
+        ObjectMapper cached = new ObjectMapper()
+                .registerModule(new SimpleModule().addSerializer(PostForListDto.class, serializer));
+        ObjectMapper plain = new ObjectMapper();
+        // The services build the DTOs of each response from the saved posts
+        FollowedPostListDto sample = new FollowedPostListDto(1, DtoMapper.mapAll(posts, DtoMapper::toPostForListDto), null);
+        assertArrayEquals(plain.writeValueAsBytes(sample), cached.writeValueAsBytes(sample));
+
+        Bench.time("user-025 feed of 50 posts, cached JSON, per feed", FEEDS, () -> writeFeeds(cached, posts));
+        Bench.time("user-025 feed of 50 posts, field by field, per feed", FEEDS, () -> writeFeeds(plain, posts));
+        Bench.report("user-025 cached posts / bytes", cache.size() + " / " + cache.sizeInBytes());
+    }
+
+    private static long writeFeeds(ObjectMapper mapper, List<Post> posts) {
+        long bytes = 0;
+        try {
+            for (int i = 0; i < FEEDS; i++) {
+                FollowedPostListDto feed = new FollowedPostListDto(1, DtoMapper.mapAll(posts, DtoMapper::toPostForListDto), null);
+                bytes += mapper.writeValueAsBytes(feed).length;
+            }
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+}
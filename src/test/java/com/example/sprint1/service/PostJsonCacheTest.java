@@ -0,0 +1,97 @@
+package com.example.sprint1.service;
+
+import com.example.sprint1.dto.FollowedPostListDto;
+import com.example.sprint1.dto.PostForListDto;
+import com.example.sprint1.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostJsonCacheTest {
+
+    private PostForListDto newPost(int id, String notes) {
+        return new PostForListDto(id, 1, "01-02-2024", 100, 1500.5,
+                new Product(id, "Silla gamer", "Gamer", "Racer", "Red", notes));
+    }
+
+    /**
+     * Verify that a response written with the cached JSON is the same as the one serialized field by field
+     */
+    @Test
+    @DisplayName("Test serialization with the cached JSON")
+    public void testSerializer() throws Exception {
+        PostJsonCache cache = new PostJsonCache(1 << 20);
+        PostForListDtoSerializer serializer = new PostForListDtoSerializer();
+        serializer.postJsonCache = cache;
+        ObjectMapper cached = new ObjectMapper()
+                .registerModule(new SimpleModule().addSerializer(PostForListDto.class, serializer));
+        FollowedPostListDto feed = new FollowedPostListDto(1, List.of(newPost(1, "Edición especial"), newPost(2, null)), null);
+
+        String expected = new ObjectMapper().writeValueAsString(feed);
+        assertEquals(expected, cached.writeValueAsString(feed));
+        assertEquals(expected, new String(cached.writeValueAsBytes(feed), StandardCharsets.UTF_8));
+        assertEquals(2, cache.size());
+        // A post with the same id and other fields isn't written with the cached JSON, it replaces it
+        assertEquals(new ObjectMapper().writeValueAsString(newPost(1, null)), cache.get(newPost(1, null)).getValue());
+        assertEquals(2, cache.size());
+        assertSame(cache.get(newPost(1, null)), cache.get(newPost(1, null)));
+    }
+
+    /**
+     * Verify that the cache stays under its size, evicting the posts that weren't read first, and that a
+     * changed post replaces its entry
+     */
+    @Test
+    @DisplayName("Test eviction and changed posts")
+    public void testEviction() {
+        int entry = new PostJsonCache(1 << 20).put(newPost(10, "x")).byteLength() + PostJsonCache.ENTRY_OVERHEAD;
+        PostJsonCache cache = new PostJsonCache(entry * 3L);
+        cache.put(newPost(10, "x"));
+        cache.put(newPost(11, "x"));
+        cache.put(newPost(12, "x"));
+        cache.get(newPost(10, "x"));
+        cache.put(newPost(13, "x"));
+
+        assertEquals(3, cache.size());
+        assertTrue(cache.sizeInBytes() <= entry * 3L);
+        // 10 was read, 11 is the oldest unread one
+        assertSame(cache.get(newPost(10, "x")), cache.get(newPost(10, "x")));
+        // A changed post replaces its entry, a longer one that evicts the next unread post
+        assertTrue(cache.get(newPost(12, "changed")).getValue().contains("changed"));
+        assertSame(cache.get(newPost(12, "changed")), cache.get(newPost(12, "changed")));
+        assertEquals(2, cache.size());
+        assertTrue(cache.sizeInBytes() <= entry * 3L);
+        assertTrue(cache.get(newPost(11, "evicted")).getValue().contains("evicted"));
+
+        PostJsonCache small = new PostJsonCache(10);
+        assertNotNull(small.put(newPost(1, "x")));
+        assertEquals(0, small.size());
+        assertEquals(0, small.sizeInBytes());
+    }
+
+    /**
+     * Verify that a cache hit compares the encoded product, as the mapped store reads it, without decoding it
+     */
+    @Test
+    @DisplayName("Test cache hit with a product read back encoded")
+    public void testEncodedProduct() {
+        PostJsonCache cache = new PostJsonCache(1 << 20);
+        PostForListDto post = newPost(1, "Edición especial con garantía oficial de doce meses y envío gratis a todo el país");
+        Product saved = post.getProduct();
+        PostForListDto read = newPost(1, null);
+        read.setProduct(Product.ofEncoded(saved.getId(), saved.getProduct_name(), saved.typeCode(), saved.brandCode(),
+                saved.colorCode(), saved.encodedNotes().clone()));
+
+        assertSame(cache.get(post), cache.get(read));
+        // Bytes that aren't a valid encoding would throw if they were decoded
+        Product invalid = Product.ofEncoded(1, "x", 0, 0, 0, new byte[]{9, 9});
+        assertEquals(invalid, Product.ofEncoded(1, "x", 0, 0, 0, new byte[]{9, 9}));
+        assertEquals(invalid.hashCode(), Product.ofEncoded(1, "x", 0, 0, 0, new byte[]{9, 9}).hashCode());
+    }
+}
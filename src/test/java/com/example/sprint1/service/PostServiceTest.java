@@ -1,14 +1,25 @@
 package com.example.sprint1.service;
 
+import com.example.sprint1.dto.FollowedPostListDto;
+import com.example.sprint1.dto.FollowerUsersDto;
 import com.example.sprint1.dto.PostForListDto;
 import com.example.sprint1.dto.PostDto;
+import com.example.sprint1.dto.PostPromoDto;
+import com.example.sprint1.dto.PostStatsDto;
+import com.example.sprint1.dto.PromoPostDto;
+import com.example.sprint1.dto.PromoPostListDto;
 import com.example.sprint1.dto.ProductDto;
 import com.example.sprint1.exception.BadRequestException;
+import com.example.sprint1.exception.NotFoundException;
 import com.example.sprint1.model.Post;
 import com.example.sprint1.model.Product;
 import com.example.sprint1.model.User;
 import com.example.sprint1.repository.IUserRepository;
+import com.example.sprint1.repository.PostColumns;
+import com.example.sprint1.repository.PostSearchIndex;
 import com.example.sprint1.repository.PostRepositoryImpl;
+import com.example.sprint1.repository.Timeline;
+import com.example.sprint1.repository.TimelineRepositoryImpl;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +27,7 @@ import org.junit.jupiter.api.BeforeEach;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -33,11 +45,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 
 @ExtendWith(MockitoExtension.class)
 public class PostServiceTest {
@@ -46,11 +63,24 @@ public class PostServiceTest {
     PostRepositoryImpl postRepository;
     @Mock
     IUserRepository userRepository;
-
+    @Spy
+    TimelineRepositoryImpl timelineRepository;
+    @Spy
+    PostJsonCache postJsonCache;
 
     @InjectMocks
     PostServiceImpl postService;
 
+    // Resolves the ids read from the timelines to the given posts
+    private void mockFindAllById(List<Post> posts) {
+        Mockito.when(postRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Integer> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> posts.stream().filter(post -> post.getId().equals(id)).findFirst().orElseThrow())
+                    .toList();
+        });
+    }
+
     /**
      * T-0005
      * This test case tests the method selectIfOrderFollowedList of the PostService class.
@@ -67,7 +97,7 @@ public class PostServiceTest {
         String order = "date_asc";
         // Mock the necessary dependencies
         Mockito.when(userRepository.getUserById(userId)).thenReturn(users.stream().filter(u -> u.getId().equals(userId)).findFirst());
-        Mockito.when(postRepository.getResentPost(anyInt())).thenReturn(new ArrayList<>()); //Return something
+        Mockito.when(postRepository.getResentPostIterator(anyInt(), anyInt(), anyBoolean(), any())).thenReturn(Collections.emptyIterator()); //Return something
 
         // Act
         List<PostForListDto> result = postService.selectIfOrderFollowedList(userId, order);
@@ -111,17 +141,21 @@ public class PostServiceTest {
         // create two products
         Product product1 = new Product(1, "Product 1", "Type 1", "Brand 1", "Color 1", "Notes 1");
         Product product2 = new Product(2, "Product 2", "Type 2", "Brand 2", "Color 2", "Notes 2");
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        String yesterday = LocalDate.now().minusDays(1).format(formatter);
+        String twoDaysAgo = LocalDate.now().minusDays(2).format(formatter);
         // create a list of expected posts
         List<Post> expectedPosts = List.of(
-                new Post(1, 2, "19-12-2022", 1, 100.0, product1, false, 0.0),
-                new Post(2, 2, "20-12-2022", 2, 200.0, product2, false, 0.0)
+                new Post(1, 2, twoDaysAgo, 1, 100.0, product1, false, 0.0),
+                new Post(2, 2, yesterday, 2, 200.0, product2, false, 0.0)
         );
 
         // act
 
         // mock the UserRepository and PostRepository methods
         Mockito.when(userRepository.getUserById(1)).thenReturn(Optional.of(new User(1, "User 1", Set.of(2), Set.of(2), Set.of(1))));
-        Mockito.when(postRepository.getResentPost(anyInt())).thenReturn(expectedPosts);
+        Mockito.when(postRepository.getResentPostIterator(anyInt(), anyInt(), anyBoolean(), any())).thenAnswer(invocation -> expectedPosts.iterator());
+        mockFindAllById(expectedPosts);
         // call the method under test
         List<PostForListDto> actualPosts = postService.selectIfOrderFollowedList(1, "date_asc");
         // convert expectedPosts to PostForListDto
@@ -149,16 +183,20 @@ public class PostServiceTest {
         // create two products
         Product product1 = new Product(1, "Product 1", "Type 1", "Brand 1", "Color 1", "Notes 1");
         Product product2 = new Product(2, "Product 2", "Type 2", "Brand 2", "Color 2", "Notes 2");
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        String yesterday = LocalDate.now().minusDays(1).format(formatter);
+        String twoDaysAgo = LocalDate.now().minusDays(2).format(formatter);
         // create a list of expected posts
         List<Post> expectedPosts = List.of(
-                new Post(1, 2, "20-12-2022", 1, 100.0, product1, false, 0.0),
-                new Post(2, 2, "19-12-2022", 2, 200.0, product2, false, 0.0)
+                new Post(1, 2, yesterday, 1, 100.0, product1, false, 0.0),
+                new Post(2, 2, twoDaysAgo, 2, 200.0, product2, false, 0.0)
         );
 
         // act
         // mock the UserRepository and PostRepository methods
         Mockito.when(userRepository.getUserById(1)).thenReturn(Optional.of(new User(1, "User 1", Set.of(2), Set.of(2), Set.of(1))));
-        Mockito.when(postRepository.getResentPost(anyInt())).thenReturn(expectedPosts);
+        Mockito.when(postRepository.getResentPostIterator(anyInt(), anyInt(), eq(false), any())).thenAnswer(invocation -> expectedPosts.iterator());
+        mockFindAllById(expectedPosts);
         // call the method under test
         List<PostForListDto> actualPosts = postService.selectIfOrderFollowedList(1, "date_desc");
         // convert expectedPosts to PostForListDto
@@ -187,18 +225,21 @@ public class PostServiceTest {
         // Arrange
         LocalDate today = LocalDate.now();
         LocalDate twoWeeksAgo = today.minusWeeks(2);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        String todayDate = today.format(formatter);
+        String yesterdayDate = today.minusDays(1).format(formatter);
 
         Integer userId = 4;
         Product product1 = new Product(6, "Product Q", "Type S", "Brand Epsilon", "Yellow", "This is product Q.");
-        PostForListDto post1 = new PostForListDto(6, 3, "08-05-2024", 3, 15.07, product1);
+        PostForListDto post1 = new PostForListDto(6, 3, todayDate, 3, 15.07, product1);
 
         Product product2 = new Product(7, "Product W", "Type T", "Brand Blue Label", "Blue", "This is product W.");
-        PostForListDto post2 = new PostForListDto(7, 3, "07-05-2024", 1, 1005.07, product2);
+        PostForListDto post2 = new PostForListDto(7, 3, yesterdayDate, 1, 1005.07, product2);
 
         List<PostForListDto> postsListDto = List.of(post2, post1);
         List<Post> expectedPosts = List.of(
-                new Post(6, 3, "08-05-2024", 3, 15.07, product1, false, 0.0),
-                new Post(7, 3, "07-05-2024", 1, 1005.07, product2, false, 0.0)
+                new Post(6, 3, todayDate, 3, 15.07, product1, false, 0.0),
+                new Post(7, 3, yesterdayDate, 1, 1005.07, product2, false, 0.0)
         );
 
         User user = users.stream().filter(u -> u.getId().equals(userId)).findFirst().orElse(null);
@@ -206,13 +247,13 @@ public class PostServiceTest {
         // Act
 
         Mockito.when(userRepository.getUserById(userId)).thenReturn(Optional.ofNullable(user));
-        Mockito.when(postRepository.getResentPost(3)).thenReturn(expectedPosts);
+        Mockito.when(postRepository.getResentPostIterator(eq(3), anyInt(), eq(false), any())).thenAnswer(invocation -> expectedPosts.iterator());
+        mockFindAllById(expectedPosts);
 
         List<PostForListDto> result = postService.selectIfOrderFollowedList(userId, null);
 
         // Assert
         Assertions.assertEquals(postsListDto.size(), result.size());
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
 
         IntStream.range(0, postsListDto.size()).forEach(i -> {
             LocalDate dateToValidate = LocalDate.parse(result.get(i).getDate(), formatter);
@@ -221,4 +262,297 @@ public class PostServiceTest {
 
     }
 
+    /**
+     * This test case tests the method selectIfOrderFollowedList of the PostService class with a limit.
+     * It tests that the posts of several followed users are merged by date and cut at the limit.
+     * The test case uses a mock UserRepository and a mock PostRepository to provide the necessary data for the test.
+     */
+    @Test
+    @DisplayName("Test merge of followed posts with limit")
+    public void testFollowedListMergeWithLimit() {
+        // arrange
+        LocalDate today = LocalDate.now();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        Product product = new Product(1, "Product 1", "Type 1", "Brand 1", "Color 1", "Notes 1");
+        List<Post> sellerTwoPosts = List.of(
+                new Post(1, 2, today.format(formatter), 1, 100.0, product, false, 0.0),
+                new Post(2, 2, today.minusDays(2).format(formatter), 1, 100.0, product, false, 0.0)
+        );
+        List<Post> sellerThreePosts = List.of(
+                new Post(3, 3, today.minusDays(1).format(formatter), 1, 100.0, product, false, 0.0),
+                new Post(4, 3, today.minusDays(3).format(formatter), 1, 100.0, product, false, 0.0)
+        );
+        Mockito.when(userRepository.getUserById(1)).thenReturn(Optional.of(new User(1, "User 1", Set.of(), Set.of(2, 3), Set.of())));
+        Mockito.when(postRepository.getResentPostIterator(eq(2), anyInt(), eq(false), any())).thenAnswer(invocation -> sellerTwoPosts.iterator());
+        Mockito.when(postRepository.getResentPostIterator(eq(3), anyInt(), eq(false), any())).thenAnswer(invocation -> sellerThreePosts.iterator());
+        mockFindAllById(List.of(sellerTwoPosts.get(0), sellerTwoPosts.get(1), sellerThreePosts.get(0), sellerThreePosts.get(1)));
+
+        // act
+        List<PostForListDto> actualPosts = postService.selectIfOrderFollowedList(1, "date_desc", null, 3);
+
+        // assert
+        Assertions.assertEquals(List.of(1, 3, 2), actualPosts.stream().map(PostForListDto::getId).toList());
+        assertThrows(BadRequestException.class, () -> postService.selectIfOrderFollowedList(1, null, null, 0));
+    }
+
+    /**
+     * This test case tests the method selectIfOrderFollowedList of the PostService class with a pull seller.
+     * It tests that the posts read from the timeline are merged with the posts of the pull seller.
+     * The test case uses a mock UserRepository and a mock PostRepository to provide the necessary data for the test.
+     */
+    @Test
+    @DisplayName("Test merge of timeline and pull seller posts")
+    public void testFollowedListWithPullSeller() {
+        // arrange
+        LocalDate today = LocalDate.now();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        Product product = new Product(1, "Product 1", "Type 1", "Brand 1", "Color 1", "Notes 1");
+        List<Post> pushSellerPosts = List.of(
+                new Post(1, 2, today.format(formatter), 1, 100.0, product, false, 0.0),
+                new Post(2, 2, today.minusDays(2).format(formatter), 1, 100.0, product, false, 0.0)
+        );
+        List<Post> pullSellerPosts = List.of(
+                new Post(3, 3, today.minusDays(1).format(formatter), 1, 100.0, product, false, 0.0)
+        );
+        timelineRepository.markPullSeller(3);
+        Mockito.when(userRepository.getUserById(1)).thenReturn(Optional.of(new User(1, "User 1", Set.of(), Set.of(2, 3), Set.of())));
+        Mockito.when(postRepository.getResentPostIterator(eq(2), anyInt(), eq(false), any())).thenAnswer(invocation -> pushSellerPosts.iterator());
+        Mockito.when(postRepository.getResentPostIterator(eq(3), anyInt(), eq(false), any())).thenAnswer(invocation -> pullSellerPosts.iterator());
+        mockFindAllById(pushSellerPosts);
+
+        // act
+        List<PostForListDto> actualPosts = postService.selectIfOrderFollowedList(1, null);
+
+        // assert
+        Assertions.assertEquals(List.of(1, 3, 2), actualPosts.stream().map(PostForListDto::getId).toList());
+        // the posts of the pull seller are not kept in the timeline
+        Assertions.assertEquals(2, timelineRepository.findByUserId(1).size());
+    }
+
+    /**
+     * This test case tests the method getFollowedPostPage of the PostService class.
+     * It tests that the pages follow each other through the cursor and that the last page has no cursor.
+     * The test case uses a mock UserRepository and a mock PostRepository to provide the necessary data for the test.
+     */
+    @Test
+    @DisplayName("Test followed list pages with cursor")
+    public void testFollowedPostPage() {
+        // arrange
+        LocalDate today = LocalDate.now();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        Product product = new Product(1, "Product 1", "Type 1", "Brand 1", "Color 1", "Notes 1");
+        List<Post> sellerTwoPosts = List.of(
+                new Post(1, 2, today.format(formatter), 1, 100.0, product, false, 0.0),
+                new Post(2, 2, today.minusDays(2).format(formatter), 1, 100.0, product, false, 0.0)
+        );
+        List<Post> sellerThreePosts = List.of(
+                new Post(3, 3, today.minusDays(1).format(formatter), 1, 100.0, product, false, 0.0),
+                new Post(4, 3, today.minusDays(3).format(formatter), 1, 100.0, product, false, 0.0)
+        );
+        Mockito.when(userRepository.getUserById(1)).thenReturn(Optional.of(new User(1, "User 1", Set.of(), Set.of(2, 3), Set.of())));
+        Mockito.when(postRepository.getResentPostIterator(eq(2), anyInt(), eq(false), any())).thenAnswer(invocation -> sellerTwoPosts.iterator());
+        Mockito.when(postRepository.getResentPostIterator(eq(3), anyInt(), eq(false), any())).thenAnswer(invocation -> sellerThreePosts.iterator());
+        mockFindAllById(List.of(sellerTwoPosts.get(0), sellerTwoPosts.get(1), sellerThreePosts.get(0), sellerThreePosts.get(1)));
+
+        // act
+        FollowedPostListDto firstPage = postService.getFollowedPostPage(1, "date_desc", null, 2, null);
+        FollowedPostListDto secondPage = postService.getFollowedPostPage(1, "date_desc", null, 2, firstPage.getNext_cursor());
+
+        // assert
+        Assertions.assertEquals(List.of(1, 3), firstPage.getPosts().stream().map(PostForListDto::getId).toList());
+        Assertions.assertNotNull(firstPage.getNext_cursor());
+        Assertions.assertEquals(List.of(2, 4), secondPage.getPosts().stream().map(PostForListDto::getId).toList());
+        Assertions.assertNull(secondPage.getNext_cursor());
+        assertThrows(BadRequestException.class, () -> postService.getFollowedPostPage(1, null, null, 2, "not a cursor"));
+    }
+
+    /**
+     * This test case tests the method getPostStats of the PostService class.
+     * It checks that the aggregated values of the repository are mapped, and that missing averages are null.
+     */
+    @Test
+    @DisplayName("Test post stats")
+    public void testGetPostStats() {
+        // arrange
+        Mockito.when(userRepository.findUserById(3)).thenReturn(new User(3, "User 3", Set.of(), Set.of(), Set.of()));
+        Mockito.when(postRepository.getStats(eq(3), eq(1), any())).thenReturn(new PostColumns.Stats(4, 1, 25.0, Double.NaN));
+
+        // act
+        PostStatsDto stats = postService.getPostStats(3, 1, 30);
+
+        // assert
+        Assertions.assertEquals(new PostStatsDto(4, 1, 25.0, null), stats);
+        assertThrows(NotFoundException.class, () -> postService.getPostStats(99, null, null));
+        assertThrows(BadRequestException.class, () -> postService.getPostStats(null, null, 0));
+    }
+
+    /**
+     * US 0010 - US 0012
+     * This test case tests the methods postPromo, quantityPromo and getPromo of the PostService class.
+     * It checks that a promo post is saved with its discount, and that the count and list come from the promo index.
+     */
+    @Test
+    @DisplayName("Test promo posts")
+    public void testPromoPosts() {
+        // arrange
+        User seller = new User(3, "Seller", Set.of(), Set.of(), Set.of());
+        Post promo = new Post(10, 3, "01-02-2024", 1, 100.0, new Product(1, "Silla", "Gamer", "Racer", "Red", "Notes"), true, 0.25);
+        PostPromoDto postDto = new PostPromoDto();
+        postDto.setId(10);
+        postDto.setUser_id(3);
+        postDto.setDate("01-02-2024");
+        postDto.setCategory(1);
+        postDto.setPrice(100.0);
+        postDto.setProduct(new ProductDto(1, "Silla", "Gamer", "Racer", "Red", "Notes"));
+        postDto.setHas_promo(true);
+        postDto.setDiscount(0.25);
+        Mockito.when(userRepository.findUserById(3)).thenReturn(seller);
+        Mockito.when(postRepository.countPromoPosts(3)).thenReturn(1);
+        Mockito.when(postRepository.findPromoPosts(3)).thenReturn(List.of(promo));
+
+        // act
+        postService.postPromo(postDto);
+        PromoPostDto count = postService.quantityPromo(3);
+        PromoPostListDto list = postService.getPromo(3);
+
+        // assert
+        Mockito.verify(postRepository).save(promo);
+        Assertions.assertEquals(1, postJsonCache.size());
+        Assertions.assertEquals(new PromoPostDto(3, "Seller", 1), count);
+        Assertions.assertEquals(List.of(postDto), list.getPosts());
+        assertThrows(NotFoundException.class, () -> postService.quantityPromo(99));
+        postDto.setHas_promo(false);
+        assertThrows(BadRequestException.class, () -> postService.postPromo(postDto));
+    }
+
+    /**
+     * This test case tests the push of a new post to the timelines of the followers of its author.
+     * The follower 2 unfollows the author after the followers were read, so the post must not stay in its timeline.
+     */
+    @Test
+    @DisplayName("Test push of a post to the timelines of the followers")
+    public void testPushToFollowers() {
+        // arrange
+        User seller = new User(3, "Seller", Set.of(1, 2), Set.of(), Set.of());
+        PostDto postDto = new PostDto();
+        postDto.setId(10);
+        postDto.setUser_id(3);
+        postDto.setDate(LocalDate.now().format(Post.DATE_FORMATTER));
+        postDto.setCategory(1);
+        postDto.setPrice(100.0);
+        postDto.setProduct(new ProductDto(1, "Silla", "Gamer", "Racer", "Red", "Notes"));
+        Mockito.when(userRepository.findUserById(3)).thenReturn(seller);
+        Mockito.when(userRepository.isFollowing(1, 3)).thenReturn(true);
+        Mockito.when(userRepository.isFollowing(2, 3)).thenReturn(false);
+        Timeline follower = new Timeline(10);
+        Timeline unfollower = new Timeline(10);
+        timelineRepository.saveIfAbsent(1, follower);
+        timelineRepository.saveIfAbsent(2, unfollower);
+
+        // act
+        postService.addPost(postDto);
+
+        // assert
+        int firstDay = (int) LocalDate.now().toEpochDay();
+        Assertions.assertEquals(List.of(10), follower.readPostIds(firstDay, 10, false));
+        Assertions.assertEquals(List.of(), unfollower.readPostIds(firstDay, 10, false));
+    }
+
+    /**
+     * This test case tests the method searchPosts of the PostService class.
+     * It checks that the dates are converted to days for the repository and that invalid filters are rejected.
+     */
+    @Test
+    @DisplayName("Test search posts")
+    public void testSearchPosts() {
+        // arrange
+        Post post = new Post(10, 3, "01-02-2024", 1, 100.0, null, true, 0.25);
+        int day = (int) LocalDate.of(2024, 2, 1).toEpochDay();
+        Mockito.when(userRepository.findUserById(3)).thenReturn(new User(3, "Seller", Set.of(), Set.of(), Set.of()));
+        Mockito.when(postRepository.search(new PostSearchIndex.Query(3, day, day, 1, 50.0, null, true), 10))
+                .thenReturn(List.of(post));
+
+        // act
+        List<Post> posts = postService.searchPosts(3, "01-02-2024", "01-02-2024", 1, 50.0, null, true, 10);
+
+        // assert
+        Assertions.assertEquals(List.of(post), posts);
+        assertThrows(NotFoundException.class, () -> postService.searchPosts(99, null, null, null, null, null, null, null));
+        assertThrows(BadRequestException.class, () -> postService.searchPosts(null, "2024-02-01", null, null, null, null, null, null));
+        assertThrows(BadRequestException.class, () -> postService.searchPosts(null, "02-02-2024", "01-02-2024", null, null, null, null, null));
+        assertThrows(BadRequestException.class, () -> postService.searchPosts(null, null, null, null, 10.0, 5.0, null, null));
+        assertThrows(BadRequestException.class, () -> postService.searchPosts(null, null, null, null, null, null, null, 0));
+    }
+
+    /**
+     * This test case tests the method searchPostsByText of the PostService class.
+     * It checks the default limit and that a text without words or an invalid limit are rejected.
+     */
+    @Test
+    @DisplayName("Test search posts by text")
+    public void testSearchPostsByText() {
+        // arrange
+        Post post = new Post(10, 3, "01-02-2024", 1, 100.0, null, false, null);
+        Mockito.when(postRepository.searchText("silla roja", 20)).thenReturn(List.of(post));
+
+        // act
+        List<Post> posts = postService.searchPostsByText("silla roja", null);
+
+        // assert
+        Assertions.assertEquals(List.of(post), posts);
+        assertThrows(BadRequestException.class, () -> postService.searchPostsByText(" ¿? ", null));
+        assertThrows(BadRequestException.class, () -> postService.searchPostsByText("silla", 0));
+    }
+
+    /**
+     * Verify that the converters of DtoMapper give the same DTOs as the ObjectMapper conversion they replace
+     */
+    @Test
+    @DisplayName("Test DTO mapping")
+    public void testDtoMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        Product product = new Product(7, "Silla gamer", "Gamer", "Racer", "Red", "Special Edition");
+        Post post = new Post(3, 1, LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")), 100, 1500.5,
+                product, true, 0.25);
+
+        Assertions.assertEquals(mapper.convertValue(post, PostForListDto.class), DtoMapper.toPostForListDto(post));
+        Assertions.assertEquals(mapper.convertValue(post, PostPromoDto.class), DtoMapper.toPostPromoDto(post));
+        Assertions.assertEquals(mapper.convertValue(product, ProductDto.class), DtoMapper.toProductDto(product));
+
+        PostPromoDto promoDto = DtoMapper.toPostPromoDto(post);
+        Post converted = DtoMapper.toPost(promoDto);
+        Assertions.assertEquals(post.getEpochDay(), converted.getEpochDay());
+        Assertions.assertEquals(post.getProduct(), converted.getProduct());
+        Assertions.assertTrue(converted.isHas_promo());
+        Assertions.assertEquals(0.25, converted.getDiscount());
+        Post plain = DtoMapper.toPost(new PostDto(3, 1, post.getDate(), 100, 1500.5, DtoMapper.toProductDto(product)));
+        Assertions.assertFalse(plain.isHas_promo());
+        Assertions.assertEquals(0.0, plain.getDiscount());
+        assertThrows(IllegalArgumentException.class, () -> DtoMapper.toPost(
+                new PostDto(3, 1, "2024-01-01", 100, 1500.5, DtoMapper.toProductDto(product))));
+
+        User user = new User(1, "Juan", Set.of(), Set.of(), Set.of());
+        Assertions.assertEquals(new FollowerUsersDto(1, "Juan"), DtoMapper.toFollowerUsersDto(user));
+    }
+
+    /**
+     * Verify that a post without an id is rejected before it reaches the repository
+     */
+    @Test
+    @DisplayName("Test add post without id")
+    public void testAddPostWithoutId() {
+        ProductDto product = new ProductDto(1, "Silla", "Gamer", "Racer", "Red", "Notes");
+        PostDto postDto = new PostDto(null, 1, "01-02-2024", 100, 1500.5, product);
+        PostPromoDto promoDto = new PostPromoDto();
+        promoDto.setUser_id(1);
+        promoDto.setDate("01-02-2024");
+        promoDto.setPrice(1500.5);
+        promoDto.setProduct(product);
+        promoDto.setHas_promo(true);
+        promoDto.setDiscount(0.1);
+
+        assertThrows(BadRequestException.class, () -> postService.addPost(postDto));
+        assertThrows(BadRequestException.class, () -> postService.postPromo(promoDto));
+        Mockito.verifyNoInteractions(postRepository);
+    }
 }
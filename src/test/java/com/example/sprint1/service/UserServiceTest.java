@@ -3,9 +3,12 @@ package com.example.sprint1.service;
 import com.example.sprint1.dto.FollowListDto;
 import com.example.sprint1.exception.BadRequestException;
 import com.example.sprint1.model.Post;
+import com.example.sprint1.model.Product;
 import com.example.sprint1.model.User;
 import com.example.sprint1.repository.UserRepositoryImpl;
 import com.example.sprint1.repository.PostRepositoryImpl;
+import com.example.sprint1.repository.Timeline;
+import com.example.sprint1.repository.TimelineRepositoryImpl;
 import com.example.sprint1.repository.UserRepositoryTest;
 import com.example.sprint1.dto.*;
 import com.example.sprint1.exception.BadRequestException;
@@ -24,6 +27,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
@@ -43,6 +47,10 @@ public class UserServiceTest {
 
     @Mock
     UserRepositoryImpl userRepository;
+    @Mock
+    PostRepositoryImpl postRepository;
+    @Spy
+    TimelineRepositoryImpl timelineRepository;
 
     @InjectMocks
     UserServiceImpl userService;
@@ -314,7 +322,11 @@ public class UserServiceTest {
         );
 
         when(userRepository.getUserById(1)).thenReturn(Optional.of(new User(1, "John",new HashSet<>(), new HashSet<>(), new HashSet<>())));
-        when(userRepository.getFollowersById(1)).thenReturn(mockFollowerList);
+        // The repository keeps the followers sorted by name
+        when(userRepository.getFollowersByName(1, true, null, Integer.MAX_VALUE))
+                .thenReturn(mockFollowerList.stream().sorted(User.BY_NAME).toList());
+        when(userRepository.getFollowersByName(1, false, null, Integer.MAX_VALUE))
+                .thenReturn(mockFollowerList.stream().sorted(User.BY_NAME.reversed()).toList());
 
         // Act
         FollowListDto resultAsc = userService.getFollowerList(1, "name_asc");
@@ -339,14 +351,7 @@ public class UserServiceTest {
     @Test
     @DisplayName("Verify that the alphabetical sort type doesn't exist")
     public void testGetFollowerListToStringException() {
-        List<User> mockFollowerList = Arrays.asList(
-                new User(2, "Manuel", new HashSet<>(), new HashSet<>(), new HashSet<>()),
-                new User(3, "Mau", new HashSet<>(), new HashSet<>(), new HashSet<>()),
-                new User(4, "Joaquin",new HashSet<>(), new HashSet<>(), new HashSet<>())
-        );
-
         when(userRepository.getUserById(1)).thenReturn(Optional.of(new User(1, "John",new HashSet<>(), new HashSet<>(), new HashSet<>())));
-        when(userRepository.getFollowersById(1)).thenReturn(mockFollowerList);
 
         // Exception handling for invalid sort order
         assertThrows(BadRequestException.class, () -> userService.getFollowerList(1, "other_sort"));
@@ -364,7 +369,9 @@ public class UserServiceTest {
     @MethodSource("com.example.sprint1.util.Utils#userProvider")
     public void testGetFollowers(List<User> users) {
         // arrange
-        Mockito.when(userRepository.findAll()).thenReturn(users);
+        User user = users.stream().filter(u -> u.getId().equals(3)).findFirst().orElseThrow();
+        Mockito.when(userRepository.findUserById(3)).thenReturn(user);
+        Mockito.when(userRepository.countFollowers(3)).thenReturn(user.getFollowers().size());
         // act
         CountFollowersUserDto expected = userService.getFollowerCount(3);
         // assert
@@ -382,7 +389,7 @@ public class UserServiceTest {
     @DisplayName("Test getFollowers bad path")
     public void testGetFollowersBadPath() {
         // arrange
-        Mockito.when(userRepository.findAll()).thenReturn(new ArrayList<>());
+        Mockito.when(userRepository.findUserById(3)).thenReturn(null);
         // act
         Assertions.assertThrows(NotFoundException.class, () -> userService.getFollowerCount(3));
     }
@@ -411,7 +418,8 @@ public class UserServiceTest {
 
         //Mocking
         when(userRepository.getUserById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.getFollowersById(user.getId())).thenReturn(inputUserDtoList);
+        when(userRepository.getFollowersByName(user.getId(), true, null, Integer.MAX_VALUE))
+                .thenReturn(inputUserDtoList.stream().sorted(User.BY_NAME).toList());
 
         //Act
         actualresponseFollowListDto = userService.getFollowerList(user.getId(), "name_asc");
@@ -445,7 +453,8 @@ public class UserServiceTest {
 
         //Mocking
         when(userRepository.getUserById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.getFollowersById(user.getId())).thenReturn(inputUserDtoList);
+        when(userRepository.getFollowersByName(user.getId(), false, null, Integer.MAX_VALUE))
+                .thenReturn(inputUserDtoList.stream().sorted(User.BY_NAME.reversed()).toList());
 
         //Act
         actualresponseFollowListDto = userService.getFollowerList(user.getId(), "name_desc");
@@ -479,7 +488,8 @@ public class UserServiceTest {
 
         //Mocking
         when(userRepository.getUserById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.getFollowedById(user.getId())).thenReturn(inputUserDtoList);
+        when(userRepository.getFollowedByName(user.getId(), false, null, Integer.MAX_VALUE))
+                .thenReturn(inputUserDtoList.stream().sorted(User.BY_NAME.reversed()).toList());
 
         //Act
         actualresponseFollowListDto = userService.getFollowedList(user.getId(), "name_desc");
@@ -514,7 +524,8 @@ public class UserServiceTest {
 
         //Mocking
         when(userRepository.getUserById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.getFollowedById(user.getId())).thenReturn(inputUserDtoList);
+        when(userRepository.getFollowedByName(user.getId(), true, null, Integer.MAX_VALUE))
+                .thenReturn(inputUserDtoList.stream().sorted(User.BY_NAME).toList());
 
         //Act
         actualresponseFollowListDto = userService.getFollowedList(user.getId(), "name_asc");
@@ -523,4 +534,138 @@ public class UserServiceTest {
         Assertions.assertEquals(actualresponseFollowListDto, outputFollowListDto, "Non matching sorting");
 
     }
+
+    // Users of the timeline tests by id, followed and unfollowed through the mocked repository
+    private final Map<Integer, User> timelineUsers = new HashMap<>();
+
+    private void mockTimelineUsers(User... users) {
+        for (User user : users) {
+            timelineUsers.put(user.getId(), user);
+        }
+        lenient().when(userRepository.findUserById(anyInt())).thenAnswer(invocation -> timelineUsers.get(invocation.<Integer>getArgument(0)));
+        lenient().when(userRepository.getUserById(anyInt())).thenAnswer(invocation -> Optional.ofNullable(timelineUsers.get(invocation.<Integer>getArgument(0))));
+        lenient().when(userRepository.isFollowing(anyInt(), anyInt())).thenAnswer(invocation ->
+                timelineUsers.get(invocation.<Integer>getArgument(0)).getFollowed().contains(invocation.<Integer>getArgument(1)));
+        lenient().doAnswer(invocation -> {
+            invocation.<User>getArgument(0).addFollowed(invocation.<User>getArgument(1).getId());
+            invocation.<User>getArgument(1).addFollower(invocation.<User>getArgument(0).getId());
+            return null;
+        }).when(userRepository).updateUserFollower(any(User.class), any(User.class));
+        lenient().doAnswer(invocation -> {
+            invocation.<User>getArgument(0).deleteFollowed(invocation.<User>getArgument(1).getId());
+            invocation.<User>getArgument(1).deleteFollower(invocation.<User>getArgument(0).getId());
+            return null;
+        }).when(userRepository).updateUserFollowerDelete(any(User.class), any(User.class));
+    }
+
+    // Recent posts of a seller, newest first, one per day starting today
+    private void mockRecentPosts(int sellerId, int... postIds) {
+        Product product = new Product(1, "Product 1", "Type 1", "Brand 1", "Color 1", "Notes 1");
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < postIds.length; i++) {
+            posts.add(new Post(postIds[i], sellerId, LocalDate.now().minusDays(i).format(Post.DATE_FORMATTER), 1, 100.0,
+                    product, false, 0.0));
+        }
+        lenient().when(postRepository.getResentPostIterator(eq(sellerId), anyInt(), eq(false))).thenAnswer(invocation -> posts.iterator());
+    }
+
+    private Timeline timelineOf(int userId) {
+        Timeline timeline = new Timeline(timelineRepository.getCapacity());
+        timelineRepository.saveIfAbsent(userId, timeline);
+        return timeline;
+    }
+
+    private static List<Integer> postIds(Timeline timeline) {
+        int firstDay = (int) LocalDate.now().minusDays(30).toEpochDay();
+        return timeline.readPostIds(firstDay, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Verify that following a push seller adds its recent posts to the timeline of the follower,
+     * and that following a pull seller doesn't
+     */
+    @Test
+    @DisplayName("Test addFollower backfills the timeline")
+    public void testAddFollowerBackfillsTimeline() {
+        // arrange
+        mockTimelineUsers(new User(1, "User 1", Set.of(), Set.of(), Set.of()),
+                new User(2, "User 2", Set.of(), Set.of(), Set.of()),
+                new User(3, "User 3", Set.of(4, 5), Set.of(), Set.of()));
+        mockRecentPosts(2, 21, 20);
+        mockRecentPosts(3, 31);
+        doReturn(1).when(timelineRepository).getPullThreshold();
+        timelineRepository.markPullSeller(3);
+        Timeline timeline = timelineOf(1);
+
+        // act
+        userService.addFollower(1, 2);
+        userService.addFollower(1, 3);
+
+        // assert
+        assertEquals(List.of(21, 20), postIds(timeline));
+        assertTrue(timelineRepository.isPullSeller(3));
+    }
+
+    /**
+     * Verify that unfollowing a seller removes its posts from the timeline of the follower
+     */
+    @Test
+    @DisplayName("Test setUnfollow purges the timeline")
+    public void testUnfollowPurgesTimeline() {
+        // arrange
+        mockTimelineUsers(new User(1, "User 1", Set.of(), Set.of(2, 3), Set.of()),
+                new User(2, "User 2", Set.of(1), Set.of(), Set.of()),
+                new User(3, "User 3", Set.of(1), Set.of(), Set.of()));
+        mockRecentPosts(2, 21, 20);
+        mockRecentPosts(3, 31);
+        Timeline timeline = timelineOf(1);
+        timeline.addAll(postRepository.getResentPostIterator(2, 30, false));
+        timeline.addAll(postRepository.getResentPostIterator(3, 30, false));
+
+        // act
+        userService.setUnfollow(1, 2);
+
+        // assert
+        assertEquals(List.of(31), postIds(timeline));
+    }
+
+    /**
+     * Verify that a seller becomes a pull seller above the threshold, stays one until it has 10% fewer
+     * followers than the threshold, and then its posts are added to the timelines of its followers
+     */
+    @Test
+    @DisplayName("Test pull and push reclassification of a seller")
+    public void testReclassifySellerWithHysteresis() {
+        // arrange: the seller 2 has 10 followers, 100 to 109, and the threshold is 10
+        Set<Integer> followers = new HashSet<>();
+        List<User> users = new ArrayList<>(List.of(new User(1, "User 1", Set.of(), Set.of(), Set.of())));
+        for (int id = 100; id < 110; id++) {
+            followers.add(id);
+            users.add(new User(id, "User " + id, Set.of(), Set.of(2), Set.of()));
+        }
+        users.add(new User(2, "User 2", followers, Set.of(), Set.of()));
+        mockTimelineUsers(users.toArray(new User[0]));
+        mockRecentPosts(2, 21, 20);
+        doReturn(10).when(timelineRepository).getPullThreshold();
+        Timeline followerTimeline = timelineOf(102);
+        Timeline timeline = timelineOf(1);
+
+        // act and assert: 11 followers, above the threshold
+        userService.addFollower(1, 2);
+        assertTrue(timelineRepository.isPullSeller(2));
+        assertEquals(List.of(), postIds(timeline));
+
+        // 10 and 9 followers, not 10% below the threshold yet
+        userService.setUnfollow(1, 2);
+        assertTrue(timelineRepository.isPullSeller(2));
+        userService.setUnfollow(100, 2);
+        assertTrue(timelineRepository.isPullSeller(2));
+        assertEquals(List.of(), postIds(followerTimeline));
+
+        // 8 followers, back to push with the posts in the timelines of the followers
+        userService.setUnfollow(101, 2);
+        assertFalse(timelineRepository.isPullSeller(2));
+        assertEquals(List.of(21, 20), postIds(followerTimeline));
+        assertEquals(List.of(), postIds(timeline));
+    }
 }
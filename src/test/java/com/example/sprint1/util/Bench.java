@@ -0,0 +1,76 @@
+package com.example.sprint1.util;
+
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Timing harness of the benchmarks, the *Benchmark classes run with mvn test -Pbenchmark.
+ * It isn't JMH: each measure warms the code up, times a few rounds with System.nanoTime and prints the
+ * median. That is enough to compare two implementations in the same run on the same machine, the
+ * absolute numbers depend on the machine.
+ */
+public final class Bench {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    // Results of the measured code, so the JIT can't drop the code as dead
+    public static volatile Object sink;
+
+    private Bench() {
+    }
+
+    /**
+     * Times a round of operations and prints the median time per operation
+     * @param name name printed with the result
+     * @param operations operations of each round
+     * @param round the code measured, returns a value that depends on every operation
+     * @return the median nanoseconds per operation
+     */
+    public static double time(String name, int operations, Supplier<?> round) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = round.get();
+        }
+        long[] nanos = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink = round.get();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double perOperation = (double) nanos[ROUNDS / 2] / operations;
+        report(name, String.format("%,.1f ns/op", perOperation));
+        return perOperation;
+    }
+
+    /**
+     * Measures the heap retained by a structure: the used heap after a full GC with and without it
+     * @param name name printed with the result
+     * @param build builds the structure measured
+     * @return the bytes retained, approximately
+     */
+    public static long retainedBytes(String name, Supplier<?> build) {
+        long before = usedHeap();
+        Object value = build.get();
+        long bytes = usedHeap() - before;
+        Reference.reachabilityFence(value);
+        report(name, String.format("%,d bytes", bytes));
+        return bytes;
+    }
+
+    public static void report(String name, String result) {
+        System.out.printf("[benchmark] %-60s %s%n", name, result);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A few rounds, one GC may leave garbage behind
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
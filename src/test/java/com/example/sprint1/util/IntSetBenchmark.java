@@ -0,0 +1,97 @@
+package com.example.sprint1.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class IntSetBenchmark {
+
+    // 2M follow edges, 100 per user: the follower sets of 20k users
+    private static final int USERS = 20_000;
+    private static final int EDGES_PER_USER = 100;
+
+    private static int[][] edges() {
+        Random random = new Random(42);
+        int[][] edges = new int[USERS][EDGES_PER_USER];
+        for (int[] followers : edges) {
+            for (int i = 0; i < followers.length; i++) {
+                // Past the cache of Integer.valueOf, as the ids of a real graph
+                followers[i] = 1_000 + random.nextInt(10_000_000);
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Compares the heap of the follower sets stored as IntSet and as the HashSet of boxed ids they replaced
+     */
+    @Test
+    @DisplayName("Benchmark the memory of IntSet against HashSet")
+    public void benchmarkMemory() {
+        int[][] edges = edges();
+        long intSets = Bench.retainedBytes("user-010 IntSet, 2M edges in 20k sets", () -> {
+            IntSet[] sets = new IntSet[USERS];
+            for (int user = 0; user < USERS; user++) {
+                sets[user] = new IntSet();
+                for (int follower : edges[user]) {
+                    sets[user].add(follower);
+                }
+            }
+            return sets;
+        });
+        long hashSets = Bench.retainedBytes("user-010 HashSet<Integer>, 2M edges in 20k sets", () -> {
+            Set<?>[] sets = new Set<?>[USERS];
+            for (int user = 0; user < USERS; user++) {
+                Set<Integer> set = new HashSet<>();
+                for (int follower : edges[user]) {
+                    set.add(follower);
+                }
+                sets[user] = set;
+            }
+            return sets;
+        });
+        long total = (long) USERS * EDGES_PER_USER;
+        Bench.report("user-010 bytes per edge, IntSet / HashSet",
+                String.format("%.1f / %.1f", (double) intSets / total, (double) hashSets / total));
+    }
+
+    /**
+     * Compares contains on IntSet, without boxing, and on a HashSet of boxed ids
+     */
+    @Test
+    @DisplayName("Benchmark contains of IntSet against HashSet")
+    public void benchmarkContains() {
+        int[][] edges = edges();
+        IntSet intSet = new IntSet();
+        Set<Integer> hashSet = new HashSet<>();
+        for (int[] followers : edges) {
+            for (int follower : followers) {
+                intSet.add(follower);
+                hashSet.add(follower);
+            }
+        }
+        int[] probes = edges[0];
+        int operations = probes.length * 1_000;
+        Bench.time("user-010 IntSet.contains(int), 2M values", operations, () -> {
+            int found = 0;
+            for (int round = 0; round < 1_000; round++) {
+                for (int probe : probes) {
+                    found += intSet.contains(probe + round) ? 1 : 0;
+                }
+            }
+            return found;
+        });
+        Bench.time("user-010 HashSet<Integer>.contains, 2M values", operations, () -> {
+            int found = 0;
+            for (int round = 0; round < 1_000; round++) {
+                for (int probe : probes) {
+                    found += hashSet.contains(probe + round) ? 1 : 0;
+                }
+            }
+            return found;
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.sprint1.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntSetTest {
+
+    /**
+     * Verify that the set behaves like a HashSet when values are added and removed, growing as needed
+     */
+    @Test
+    @DisplayName("Test add, contains and remove")
+    public void testAddContainsRemove() {
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(expected.add(i * 7), set.add(i * 7));
+            if (i % 3 == 0) {
+                assertEquals(expected.remove(i * 7 / 2), set.remove(i * 7 / 2));
+            }
+        }
+
+        assertEquals(expected, set);
+        assertEquals(expected.size(), set.size());
+        assertFalse(set.add(7));
+        assertFalse(set.contains(-1));
+        assertFalse(set.contains("7"));
+        assertThrows(IllegalArgumentException.class, () -> set.add(Integer.MIN_VALUE));
+    }
+
+    /**
+     * Verify that values can be removed while iterating
+     */
+    @Test
+    @DisplayName("Test iterator remove")
+    public void testIteratorRemove() {
+        IntSet set = IntSet.copyOf(Set.of(1, 2, 3, 4, 5, 6));
+
+        set.removeIf(value -> value % 2 == 0);
+        Iterator<Integer> iterator = set.iterator();
+        iterator.next();
+        iterator.remove();
+
+        assertEquals(2, set.size());
+        assertTrue(Set.of(1, 3, 5).containsAll(set));
+    }
+
+    /**
+     * Verify that the set is written and read as a JSON array of numbers
+     */
+    @Test
+    @DisplayName("Test JSON serialization")
+    public void testJson() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        IntSet set = objectMapper.readValue("[3, 1, 2, 3]", IntSet.class);
+        IntSet read = objectMapper.readValue(objectMapper.writeValueAsString(set), IntSet.class);
+
+        assertEquals(Set.of(1, 2, 3), set);
+        assertEquals(set, read);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.sprint1.util;
+
+import com.example.sprint1.model.Post;
+import com.example.sprint1.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonStreamLoaderTest {
+
+    private static <T> List<T> readAll(String resource, TypeReference<List<T>> type) throws IOException {
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            return new ObjectMapper().readValue(in, type);
+        }
+    }
+
+    /**
+     * Verify that the streamed records are the same, and in the same order, as the ones of the whole file
+     */
+    @Test
+    @DisplayName("Test streaming load")
+    public void testLoad() throws IOException {
+        List<User> users = new ArrayList<>();
+        JsonStreamLoader.load("users.json", User.class, users::add);
+
+        assertFalse(users.isEmpty());
+        assertEquals(readAll("users.json", new TypeReference<List<User>>() {}), users);
+    }
+
+    /**
+     * Verify that two files loaded in the background are complete once awaited, and that a missing file fails the wait
+     */
+    @Test
+    @DisplayName("Test parallel load")
+    public void testLoadAsync() throws IOException {
+        List<User> users = new ArrayList<>();
+        List<Post> posts = new ArrayList<>();
+        CompletableFuture<Void> usersLoading = JsonStreamLoader.loadAsync("users.json", User.class, users::add);
+        CompletableFuture<Void> postsLoading = JsonStreamLoader.loadAsync("posts.json", Post.class, posts::add);
+        JsonStreamLoader.await(usersLoading);
+        JsonStreamLoader.await(postsLoading);
+
+        assertEquals(readAll("users.json", new TypeReference<List<User>>() {}), users);
+        assertEquals(readAll("posts.json", new TypeReference<List<Post>>() {}), posts);
+        assertThrows(IOException.class,
+                () -> JsonStreamLoader.await(JsonStreamLoader.loadAsync("missing.json", User.class, users::add)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.sprint1.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostingListTest {
+
+    /**
+     * Verify that the documents are read back in order, with small and large gaps
+     */
+    @Test
+    @DisplayName("Test add and next")
+    public void testAddAndNext() {
+        PostingList list = new PostingList();
+        List<Integer> docs = new ArrayList<>();
+        int doc = 0;
+        for (int i = 0; i < 1_000; i++) {
+            doc += i % 3 == 0 ? 1 : 1 + i * 37;
+            docs.add(doc);
+            list.add(doc);
+        }
+
+        PostingList.Cursor cursor = list.cursor();
+        List<Integer> read = new ArrayList<>();
+        for (int next = cursor.next(); next != PostingList.NO_MORE_DOCS; next = cursor.next()) {
+            read.add(next);
+        }
+
+        assertEquals(docs, read);
+        assertEquals(1_000, list.size());
+        assertThrows(IllegalArgumentException.class, () -> list.add(docs.get(999)));
+    }
+
+    /**
+     * Verify that advance finds the first document at or after the target, jumping across skip entries
+     */
+    @Test
+    @DisplayName("Test advance")
+    public void testAdvance() {
+        PostingList list = new PostingList();
+        for (int doc = 0; doc < 10_000; doc += 3) {
+            list.add(doc);
+        }
+
+        PostingList.Cursor cursor = list.cursor();
+        assertEquals(0, cursor.advance(0));
+        assertEquals(9, cursor.advance(7));
+        assertEquals(9, cursor.advance(9));
+        assertEquals(3_000, cursor.advance(2_998));
+        assertEquals(3_003, cursor.next());
+        assertEquals(9_999, cursor.advance(9_998));
+        assertEquals(PostingList.NO_MORE_DOCS, cursor.advance(10_000));
+        assertEquals(PostingList.NO_MORE_DOCS, new PostingList().cursor().advance(1));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.sprint1.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedLongSetTest {
+
+    /**
+     * Verify floor, size and ranges against a TreeSet, with values added in random order and in
+     * increasing order, across several merges of the pending run
+     */
+    @Test
+    @DisplayName("Test add, floor and ranges")
+    public void testAddFloorAndRanges() {
+        Random random = new Random(7);
+        SortedLongSet set = new SortedLongSet();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            long value = i < 3_000 ? random.nextInt(100_000) - 50_000 : 100_000L + i * 3;
+            set.add(value);
+            expected.add(value);
+        }
+        set.add(expected.first());
+
+        assertEquals(expected.size(), set.size());
+        for (int i = 0; i < 1_000; i++) {
+            long key = random.nextInt(120_000) - 60_000;
+            Long floor = expected.floor(key);
+            assertEquals(floor == null ? SortedLongSet.NONE : floor, set.floor(key));
+        }
+        assertEquals(expected.last(), set.floor(Long.MAX_VALUE));
+        assertEquals(SortedLongSet.NONE, set.floor(Long.MIN_VALUE));
+
+        List<Long> range = new ArrayList<>();
+        set.forEach(-1_000, 1_000, range::add);
+        assertEquals(new ArrayList<>(expected.subSet(-1_000L, true, 1_000L, true)), range);
+        range.clear();
+        set.forEach(Long.MIN_VALUE, Long.MAX_VALUE, range::add);
+        assertEquals(new ArrayList<>(expected), range);
+    }
+}
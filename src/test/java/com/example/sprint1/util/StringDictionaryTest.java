@@ -0,0 +1,69 @@
+package com.example.sprint1.util;
+
+import com.example.sprint1.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringDictionaryTest {
+
+    /**
+     * Verify that equal strings get the same code and that every code decodes to its string
+     */
+    @Test
+    @DisplayName("Test encode and decode")
+    public void testEncodeDecode() {
+        StringDictionary dictionary = new StringDictionary();
+
+        int alpha = dictionary.encode("Alpha");
+        int beta = dictionary.encode("Beta");
+
+        assertEquals(alpha, dictionary.encode(new String("Alpha")));
+        assertNotEquals(alpha, beta);
+        assertEquals("Beta", dictionary.decode(beta));
+        assertEquals(StringDictionary.NULL, dictionary.encode(null));
+        assertNull(dictionary.decode(StringDictionary.NULL));
+        assertEquals(2, dictionary.size());
+        assertThrows(IllegalArgumentException.class, () -> dictionary.decode(2));
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Value " + i, dictionary.decode(dictionary.encode("Value " + i)));
+        }
+    }
+
+    /**
+     * Verify that short and long texts are read back, and that long repetitive texts take less space
+     */
+    @Test
+    @DisplayName("Test compressed text")
+    public void testCompressedText() {
+        String longText = "Sin garantía. ".repeat(40);
+
+        assertEquals("Nota", CompressedText.decode(CompressedText.encode("Nota")));
+        assertEquals("", CompressedText.decode(CompressedText.encode("")));
+        assertEquals(longText, CompressedText.decode(CompressedText.encode(longText)));
+        assertTrue(CompressedText.encode(longText).length < longText.length() / 4);
+        assertNull(CompressedText.decode(CompressedText.encode(null)));
+    }
+
+    /**
+     * Verify that an encoded product is serialized and deserialized with its strings
+     */
+    @Test
+    @DisplayName("Test product JSON")
+    public void testProductJson() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Product product = new Product(1, "Silla", "Gamer", "Racer", null, "Special Edition");
+
+        String json = objectMapper.writeValueAsString(product);
+        Product read = objectMapper.readValue(json, Product.class);
+
+        assertEquals("{\"id\":1,\"product_name\":\"Silla\",\"type\":\"Gamer\",\"brand\":\"Racer\",\"color\":null,"
+                + "\"notes\":\"Special Edition\"}", json);
+        assertEquals(product, read);
+        assertEquals(product.hashCode(), read.hashCode());
+    }
+}